@@ -0,0 +1,61 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * A* pla contra A* amb descomposició d'operadors (CercaAStarOD) segons el nombre
+ * d'agents: cada pas té fins a 4k successors. Amb el perfilador de GC per defecte
+ * (veure Benchmarks) la taxa d'assignació mostra els fills que no es materialitzen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class AgentsBenchmark {
+
+    @Param({"32", "64"})
+    public int mida;
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int agents;
+
+    @Param({"2"})
+    public int claus;
+
+    @Param({"AStar-Distancies", "AStarOD-Distancies"})
+    public String motor;
+
+    @Param({"1"})
+    public long llavor;
+
+    private Mapa inicial;
+
+    @Setup
+    public void setup() {
+        inicial = Mapes.genera(mida, agents, claus, llavor);
+    }
+
+    @Benchmark
+    public ResultatCerca cerca() {
+        ResultatCerca rc = new ResultatCerca();
+        Motors.crea(motor, true).ferCerca(inicial, rc);
+        return rc;
+    }
+}
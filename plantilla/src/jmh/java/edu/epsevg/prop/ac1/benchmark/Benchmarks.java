@@ -0,0 +1,32 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punt d'entrada de target/benchmarks.jar. Accepta les mateixes opcions que
+ * org.openjdk.jmh.Main i, si no s'especifica el contrari, hi afegeix el
+ * perfilador de GC (taxa d'assignació) i desa els resultats en JSON a jmh-result.json.
+ */
+public class Benchmarks {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) {
+            opts.addProfiler(GCProfiler.class);
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            opts.resultFormat(ResultFormatType.JSON);
+            if (!cmd.getResult().hasValue()) opts.result("jmh-result.json");
+        }
+        new Runner(opts.build()).run();
+    }
+}
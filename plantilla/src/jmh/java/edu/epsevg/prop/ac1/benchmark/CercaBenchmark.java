@@ -0,0 +1,59 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.cerca.Cerca;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * Cerca completa de cada motor sobre els mapes inclosos, amb LNT.
+ * Cada invocació és una cerca sencera (SingleShotTime).
+ * Macro-Distancies no garanteix l'òptim amb diversos agents (mapA, mapC i mapD tenen
+ * dos agents; veure CercaMacro).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CercaBenchmark {
+
+    @Param({"mapA", "mapB", "mapC", "mapD"})
+    public String mapa;
+
+    @Param({"BFS", "BFS-Arena", "BFS-Parallela", "BFS-Externa", "DFS", "IDS",
+            "IDAStar-Basica", "SMAStar-Claus", "AStar-Basica", "AStar-Avancada",
+            "AStar-Distancies", "AStar-Claus", "AStarCubetes-Basica", "AStarCubetes-Avancada",
+            "Macro-Distancies", "Simetric-AStar-Distancies",
+            "OrdreParcial-BFS", "OrdreParcial-AStar-Distancies", "AStarOD-Distancies",
+            "AStarPEA-Distancies"})
+    public String motor;
+
+    private Mapa inicial;
+
+    @Setup
+    public void setup() {
+        inicial = Mapes.carrega(mapa);
+    }
+
+    @Benchmark
+    public ResultatCerca cerca() {
+        ResultatCerca rc = new ResultatCerca();
+        Motors.crea(motor, true).ferCerca(inicial, rc);
+        return rc;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * Cerca completa de cada motor sense LNT (només control de cicles a la branca).
+ * Per defecte només mapA i mapB: a mapC i mapD l'arbre sense LNT no acaba
+ * (o esgota la memòria) en un temps raonable. Es poden forçar amb -p mapa=mapC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CercaSenseLNTBenchmark {
+
+    @Param({"mapA", "mapB"})
+    public String mapa;
+
+    @Param({"BFS", "BFS-Arena", "BFS-Parallela", "DFS", "IDS", "IDAStar-Basica", "AStar-Basica", "AStar-Avancada"})
+    public String motor;
+
+    private Mapa inicial;
+
+    @Setup
+    public void setup() {
+        inicial = Mapes.carrega(mapa);
+    }
+
+    @Benchmark
+    public ResultatCerca cerca() {
+        ResultatCerca rc = new ResultatCerca();
+        Motors.crea(motor, false).ferCerca(inicial, rc);
+        return rc;
+    }
+}
@@ -0,0 +1,62 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * Cerca completa sobre mapes generats amb GeneradorMapes, per obtenir corbes
+ * de temps segons la mida, el nombre d'agents i el de claus.
+ * Els valors per defecte es mantenen en la zona on tots els motors acaben;
+ * la resta de la família (fins a 1024 i 6 agents) es demana amb -p.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class EscalabilitatBenchmark {
+
+    @Param({"64", "128", "256"})
+    public int mida;
+
+    @Param({"1"})
+    public int agents;
+
+    @Param({"0", "4", "8"})
+    public int claus;
+
+    @Param({"BFS-Arena", "BFS-Parallela", "AStar-Distancies", "AStar-Claus"})
+    public String motor;
+
+    @Param({"1"})
+    public long llavor;
+
+    private Mapa inicial;
+
+    @Setup
+    public void setup() {
+        inicial = Mapes.genera(mida, agents, claus, llavor);
+    }
+
+    @Benchmark
+    public ResultatCerca cerca() {
+        ResultatCerca rc = new ResultatCerca();
+        Motors.crea(motor, true).ferCerca(inicial, rc);
+        return rc;
+    }
+}
@@ -0,0 +1,65 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+
+/**
+ * Cost d'una avaluació de Heuristica.h sobre una mostra d'estats de cada mapa.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicaBenchmark {
+
+    private static final int MOSTRA = 256; // potència de 2
+
+    @Param({"mapA", "mapB", "mapC", "mapD"})
+    public String mapa;
+
+    @Param({"Basica", "Avancada", "Distancies", "Claus"})
+    public String heuristica;
+
+    private Heuristica heur;
+    private Mapa[] estats;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        heur = Motors.heuristica(heuristica);
+        Random rnd = new Random(42);
+        estats = new Mapa[MOSTRA];
+        Mapa m = Mapes.carrega(mapa);
+        for (int i = 0; i < MOSTRA; i++) {
+            List<Moviment> accions = m.getAccionsPossibles();
+            estats[i] = m;
+            m = m.mou(accions.get(rnd.nextInt(accions.size())));
+        }
+        heur.h(estats[0]); // precàlculs mandrosos fora de la mesura
+    }
+
+    @Benchmark
+    public int h() {
+        cursor = (cursor + 1) & (MOSTRA - 1);
+        return heur.h(estats[cursor]);
+    }
+}
@@ -0,0 +1,46 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+
+/**
+ * Càrrega dels mapes inclosos (src/main/resources) des del classpath, perquè els
+ * benchmarks funcionin des del jar independentment del directori de treball.
+ */
+final class Mapes {
+    private Mapes() {}
+
+    /**
+     * @param nom el nom del mapa sense extensió (mapA, mapB, ...)
+     */
+    static Mapa carrega(String nom) {
+        try (InputStream in = Mapes.class.getResourceAsStream("/" + nom + ".map")) {
+            if (in == null) throw new IllegalArgumentException("Mapa desconegut: " + nom);
+            BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            for (String l = br.readLine(); l != null; l = br.readLine()) lines.add(l);
+            return new Mapa(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Mapa quadrat generat amb les mateixes habitacions que les famílies de GeneradorMapes
+     */
+    static Mapa genera(int mida, int agents, int claus, long llavor) {
+        return new Mapa(new GeneradorMapes(mida, mida)
+                .habitacions(GeneradorMapes.habitacionsPerMida(mida))
+                .agents(agents).claus(claus).llavor(llavor)
+                .genera());
+    }
+}
@@ -0,0 +1,103 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+
+/**
+ * Microbenchmarks de les operacions del model sobre una mostra d'estats
+ * obtinguda amb un passeig aleatori des de l'estat inicial de cada mapa.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private static final int MOSTRA = 256; // potència de 2
+
+    @Param({"mapA", "mapB", "mapC", "mapD"})
+    public String mapa;
+
+    private Mapa[] estats;
+    private Mapa[] copies;       // estats iguals però instàncies diferents (equals sense l'atall de ==)
+    private Moviment[] moviments; // un moviment vàlid per estat
+    private int[] codis;
+    private final BufferMoviments buf = new BufferMoviments();
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        estats = new Mapa[MOSTRA];
+        copies = new Mapa[MOSTRA];
+        moviments = new Moviment[MOSTRA];
+        codis = new int[MOSTRA];
+        Mapa m = Mapes.carrega(mapa);
+        for (int i = 0; i < MOSTRA; i++) {
+            List<Moviment> accions = m.getAccionsPossibles();
+            Moviment acc = accions.get(rnd.nextInt(accions.size()));
+            estats[i] = m;
+            copies[i] = new Mapa(m);
+            moviments[i] = acc;
+            codis[i] = acc.getCodi();
+            m = m.mou(acc);
+        }
+    }
+
+    private int seguent() {
+        return cursor = (cursor + 1) & (MOSTRA - 1);
+    }
+
+    @Benchmark
+    public Mapa mou() {
+        int i = seguent();
+        return estats[i].mou(moviments[i]);
+    }
+
+    @Benchmark
+    public Mapa mouCodi() {
+        int i = seguent();
+        return estats[i].mou(codis[i]);
+    }
+
+    @Benchmark
+    public List<Moviment> getAccionsPossibles() {
+        return estats[seguent()].getAccionsPossibles();
+    }
+
+    @Benchmark
+    public int generaMoviments() {
+        estats[seguent()].generaMoviments(buf);
+        return buf.mida();
+    }
+
+    @Benchmark
+    public boolean equalsHashCode() {
+        int i = seguent();
+        return estats[i].hashCode() == copies[i].hashCode() && estats[i].equals(copies[i]);
+    }
+
+    @Benchmark
+    public Object getClausPendents() {
+        return estats[seguent()].getClausPendents();
+    }
+}
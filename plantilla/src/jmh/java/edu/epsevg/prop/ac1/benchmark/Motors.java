@@ -0,0 +1,93 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import edu.epsevg.prop.ac1.cerca.Cerca;
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaAStarOD;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaBFSParallela;
+import edu.epsevg.prop.ac1.cerca.CercaDFS;
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDS;
+import edu.epsevg.prop.ac1.cerca.CercaMacro;
+import edu.epsevg.prop.ac1.cerca.CercaSMAStar;
+import edu.epsevg.prop.ac1.cerca.CercaSimetrica;
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaAvancada;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaBasica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+
+/**
+ * Noms dels motors i heurístiques que accepten els paràmetres dels benchmarks.
+ */
+final class Motors {
+    private Motors() {}
+
+    static Heuristica heuristica(String nom) {
+        switch (nom) {
+            case "Basica": return new HeuristicaBasica();
+            case "Avancada": return new HeuristicaAvancada();
+            case "Distancies": return new HeuristicaDistancies();
+            case "Claus": return new HeuristicaClaus();
+            default: throw new IllegalArgumentException("Heurística desconeguda: " + nom);
+        }
+    }
+
+    /**
+     * @param nom BFS, BFS-Arena, BFS-Parallela, BFS-Externa (sempre amb LNT), DFS, IDS,
+     *            AStar-&lt;heurística&gt;, AStarCubetes-&lt;heurística&gt;,
+     *            AStarOD-&lt;heurística&gt; (descomposició d'operadors),
+     *            AStarPEA-&lt;heurística&gt; (expansió parcial),
+     *            IDAStar-&lt;heurística&gt;, SMAStar-&lt;heurística&gt; (pressupost per defecte),
+     *            Macro-&lt;heurística&gt; (macro-moviments sobre GrafMacro; òptim només
+     *            amb un agent)
+     *            o HDAStar-&lt;heurística&gt; (un fil per processador, sempre amb LNT).
+     *            Amb el prefix Simetric- qualsevol d'aquests es fa sobre estats canònics
+     *            (agents intercanviables, veure CercaSimetrica), i amb el prefix
+     *            OrdreParcial- amb la reducció d'ordre parcial activada.
+     */
+    static Cerca crea(String nom, boolean usarLNT) {
+        if (nom.startsWith("OrdreParcial-")) {
+            return crea(nom.substring("OrdreParcial-".length()), usarLNT).ordreParcial(true);
+        }
+        if (nom.startsWith("Simetric-")) {
+            return new CercaSimetrica(crea(nom.substring("Simetric-".length()), usarLNT));
+        }
+        switch (nom) {
+            case "BFS": return new CercaBFS(usarLNT);
+            case "BFS-Arena": return new CercaBFS(usarLNT, true);
+            case "BFS-Parallela": return new CercaBFSParallela(usarLNT);
+            case "BFS-Externa": return new CercaBFSExterna();
+            case "DFS": return new CercaDFS(usarLNT);
+            case "IDS": return new CercaIDS(usarLNT);
+            default:
+        }
+        if (nom.startsWith("AStar-")) {
+            return new CercaAStar(usarLNT, heuristica(nom.substring("AStar-".length())));
+        }
+        if (nom.startsWith("AStarCubetes-")) {
+            return new CercaAStar(usarLNT, heuristica(nom.substring("AStarCubetes-".length())), true);
+        }
+        if (nom.startsWith("AStarOD-")) {
+            return new CercaAStarOD(usarLNT, heuristica(nom.substring("AStarOD-".length())));
+        }
+        if (nom.startsWith("AStarPEA-")) {
+            return new CercaAStar(usarLNT, heuristica(nom.substring("AStarPEA-".length())), false, true);
+        }
+        if (nom.startsWith("IDAStar-")) {
+            return new CercaIDAStar(usarLNT, heuristica(nom.substring("IDAStar-".length())));
+        }
+        if (nom.startsWith("SMAStar-")) {
+            return new CercaSMAStar(usarLNT, heuristica(nom.substring("SMAStar-".length())));
+        }
+        if (nom.startsWith("Macro-")) {
+            return new CercaMacro(usarLNT, heuristica(nom.substring("Macro-".length())));
+        }
+        if (nom.startsWith("HDAStar-")) {
+            return new CercaHDAStar(heuristica(nom.substring("HDAStar-".length())));
+        }
+        throw new IllegalArgumentException("Motor desconegut: " + nom);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.epsevg.prop.ac1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.epsevg.prop.ac1.cerca.Cerca;
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * Acceleració de CercaHDAStar respecte de CercaAStar seqüencial sobre mapes generats.
+ * fils = 0 és la referència seqüencial (CercaAStar amb la mateixa heurística).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ParalelBenchmark {
+
+    @Param({"256", "512"})
+    public int mida;
+
+    @Param({"1"})
+    public int agents;
+
+    @Param({"8"})
+    public int claus;
+
+    @Param({"Distancies"})
+    public String heuristica;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int fils;
+
+    @Param({"1"})
+    public long llavor;
+
+    private Mapa inicial;
+
+    @Setup
+    public void setup() {
+        inicial = Mapes.genera(mida, agents, claus, llavor);
+    }
+
+    @Benchmark
+    public ResultatCerca cerca() {
+        Cerca c = fils == 0
+                ? new CercaAStar(true, Motors.heuristica(heuristica))
+                : new CercaHDAStar(Motors.heuristica(heuristica), fils);
+        ResultatCerca rc = new ResultatCerca();
+        c.ferCerca(inicial, rc);
+        return rc;
+    }
+}
@@ -2,21 +2,39 @@ package edu.epsevg.prop.ac1;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import edu.epsevg.prop.ac1.cerca.Cerca;
 import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaAStarOD;
 import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaBFSParallela;
 import edu.epsevg.prop.ac1.cerca.CercaDFS;
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDAStar;
 import edu.epsevg.prop.ac1.cerca.CercaIDS;
+import edu.epsevg.prop.ac1.cerca.CercaMacro;
+import edu.epsevg.prop.ac1.cerca.CercaSMAStar;
+import edu.epsevg.prop.ac1.cerca.CercaSimetrica;
 import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaAvancada;
 import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaBasica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
 import edu.epsevg.prop.ac1.model.Mapa;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 import edu.epsevg.prop.ac1.utils.CsvWriter;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
 
 public class Main {
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--genera")) {
+            // Main --genera <directori> [mides] [agents] [claus] [llavor]: família de mapes generats
+            GeneradorMapes.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         Mapa mapaA = new Mapa(Path.of("src/main/resources/mapA.map"));
         Mapa mapaB = new Mapa(Path.of("src/main/resources/mapB.map"));
         Mapa mapaC = new Mapa(Path.of("src/main/resources/mapC.map"));
@@ -25,44 +43,100 @@ public class Main {
         boolean usarLNT = true;
 
         List<String[]> rows = new ArrayList<>();
-        rows.add(new String[] {"Algoritme","Mapa","Trobat","Longitud","NodesExplorats","NodesTallats","MemoriaPic","TempsMs"});
+        rows.add(new String[] {"Algoritme","Mapa","Trobat","Longitud","NodesExplorats","NodesTallats","MemoriaPic","TempsMs","NodesReexpandits"});
         
     
         System.out.println("==================================================================");
         System.out.println("==                        MAPA A                                ==");
         System.out.println("==================================================================");        
         executarIRecopilarResultats("BFS", new CercaBFS(usarLNT), mapaA, "mapA", rows);
+        executarIRecopilarResultats("BFS Parallela", new CercaBFSParallela(usarLNT), mapaA, "mapA", rows);
+        executarIRecopilarResultats("BFS Externa", new CercaBFSExterna(), mapaA, "mapA", rows);
         executarIRecopilarResultats("DFS", new CercaDFS(usarLNT), mapaA, "mapA", rows);
         executarIRecopilarResultats("IDS", new CercaIDS(usarLNT), mapaA, "mapA", rows);
+        executarIRecopilarResultats("IDA* Basica", new CercaIDAStar(usarLNT, new HeuristicaBasica()), mapaA, "mapA", rows);
         executarIRecopilarResultats("A* Basica", new CercaAStar(usarLNT, new HeuristicaBasica()), mapaA, "mapA", rows);
         executarIRecopilarResultats("A* Avancada", new CercaAStar(usarLNT, new HeuristicaAvancada()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Basica Cubetes", new CercaAStar(usarLNT, new HeuristicaBasica(), true), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Avancada Cubetes", new CercaAStar(usarLNT, new HeuristicaAvancada(), true), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Claus", new CercaAStar(usarLNT, new HeuristicaClaus()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Distancies Simetrica", new CercaSimetrica(new CercaAStar(usarLNT, new HeuristicaDistancies())), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* Distancies Ordre Parcial", new CercaAStar(usarLNT, new HeuristicaDistancies()).ordreParcial(true), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* OD Distancies", new CercaAStarOD(usarLNT, new HeuristicaDistancies()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("A* PEA Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies(), false, true), mapaA, "mapA", rows);
+        executarIRecopilarResultats(nomMacro("Macro Distancies", mapaA), new CercaMacro(usarLNT, new HeuristicaDistancies()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("SMA* Claus", new CercaSMAStar(usarLNT, new HeuristicaClaus()), mapaA, "mapA", rows);
+        executarIRecopilarResultats("HDA* Distancies", new CercaHDAStar(new HeuristicaDistancies()), mapaA, "mapA", rows);
 
         System.out.println("==================================================================");
         System.out.println("==                        MAPA B                                ==");
         System.out.println("==================================================================");
         executarIRecopilarResultats("BFS", new CercaBFS(usarLNT), mapaB, "mapB", rows);
+        executarIRecopilarResultats("BFS Parallela", new CercaBFSParallela(usarLNT), mapaB, "mapB", rows);
+        executarIRecopilarResultats("BFS Externa", new CercaBFSExterna(), mapaB, "mapB", rows);
         executarIRecopilarResultats("DFS", new CercaDFS(usarLNT), mapaB, "mapB", rows);
         executarIRecopilarResultats("IDS", new CercaIDS(usarLNT), mapaB, "mapB", rows);
+        executarIRecopilarResultats("IDA* Basica", new CercaIDAStar(usarLNT, new HeuristicaBasica()), mapaB, "mapB", rows);
         executarIRecopilarResultats("A* Basica", new CercaAStar(usarLNT, new HeuristicaBasica()), mapaB, "mapB", rows);
         executarIRecopilarResultats("A* Avancada", new CercaAStar(usarLNT, new HeuristicaAvancada()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Basica Cubetes", new CercaAStar(usarLNT, new HeuristicaBasica(), true), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Avancada Cubetes", new CercaAStar(usarLNT, new HeuristicaAvancada(), true), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Claus", new CercaAStar(usarLNT, new HeuristicaClaus()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Distancies Simetrica", new CercaSimetrica(new CercaAStar(usarLNT, new HeuristicaDistancies())), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* Distancies Ordre Parcial", new CercaAStar(usarLNT, new HeuristicaDistancies()).ordreParcial(true), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* OD Distancies", new CercaAStarOD(usarLNT, new HeuristicaDistancies()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("A* PEA Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies(), false, true), mapaB, "mapB", rows);
+        executarIRecopilarResultats(nomMacro("Macro Distancies", mapaB), new CercaMacro(usarLNT, new HeuristicaDistancies()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("SMA* Claus", new CercaSMAStar(usarLNT, new HeuristicaClaus()), mapaB, "mapB", rows);
+        executarIRecopilarResultats("HDA* Distancies", new CercaHDAStar(new HeuristicaDistancies()), mapaB, "mapB", rows);
 
         System.out.println("==================================================================");
         System.out.println("==                        MAPA C                                ==");
         System.out.println("==================================================================");
         executarIRecopilarResultats("BFS", new CercaBFS(usarLNT), mapaC, "mapC", rows);
+        executarIRecopilarResultats("BFS Parallela", new CercaBFSParallela(usarLNT), mapaC, "mapC", rows);
+        executarIRecopilarResultats("BFS Externa", new CercaBFSExterna(), mapaC, "mapC", rows);
         executarIRecopilarResultats("DFS", new CercaDFS(usarLNT), mapaC, "mapC", rows);
         executarIRecopilarResultats("IDS", new CercaIDS(usarLNT), mapaC, "mapC", rows);
+        executarIRecopilarResultats("IDA* Basica", new CercaIDAStar(usarLNT, new HeuristicaBasica()), mapaC, "mapC", rows);
         executarIRecopilarResultats("A* Basica", new CercaAStar(usarLNT, new HeuristicaBasica()), mapaC, "mapC", rows);
         executarIRecopilarResultats("A* Avancada", new CercaAStar(usarLNT, new HeuristicaAvancada()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Basica Cubetes", new CercaAStar(usarLNT, new HeuristicaBasica(), true), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Avancada Cubetes", new CercaAStar(usarLNT, new HeuristicaAvancada(), true), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Claus", new CercaAStar(usarLNT, new HeuristicaClaus()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Distancies Simetrica", new CercaSimetrica(new CercaAStar(usarLNT, new HeuristicaDistancies())), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* Distancies Ordre Parcial", new CercaAStar(usarLNT, new HeuristicaDistancies()).ordreParcial(true), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* OD Distancies", new CercaAStarOD(usarLNT, new HeuristicaDistancies()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("A* PEA Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies(), false, true), mapaC, "mapC", rows);
+        executarIRecopilarResultats(nomMacro("Macro Distancies", mapaC), new CercaMacro(usarLNT, new HeuristicaDistancies()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("SMA* Claus", new CercaSMAStar(usarLNT, new HeuristicaClaus()), mapaC, "mapC", rows);
+        executarIRecopilarResultats("HDA* Distancies", new CercaHDAStar(new HeuristicaDistancies()), mapaC, "mapC", rows);
         
         System.out.println("==================================================================");
         System.out.println("==                        MAPA D                                ==");
         System.out.println("==================================================================");
         executarIRecopilarResultats("BFS", new CercaBFS(usarLNT), mapaD, "mapD", rows);
+        executarIRecopilarResultats("BFS Parallela", new CercaBFSParallela(usarLNT), mapaD, "mapD", rows);
+        executarIRecopilarResultats("BFS Externa", new CercaBFSExterna(), mapaD, "mapD", rows);
         executarIRecopilarResultats("DFS", new CercaDFS(usarLNT), mapaD, "mapD", rows);
         executarIRecopilarResultats("IDS", new CercaIDS(usarLNT), mapaD, "mapD", rows);
+        executarIRecopilarResultats("IDA* Basica", new CercaIDAStar(usarLNT, new HeuristicaBasica()), mapaD, "mapD", rows);
         executarIRecopilarResultats("A* Basica", new CercaAStar(usarLNT, new HeuristicaBasica()), mapaD, "mapD", rows);
         executarIRecopilarResultats("A* Avancada", new CercaAStar(usarLNT, new HeuristicaAvancada()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Basica Cubetes", new CercaAStar(usarLNT, new HeuristicaBasica(), true), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Avancada Cubetes", new CercaAStar(usarLNT, new HeuristicaAvancada(), true), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Claus", new CercaAStar(usarLNT, new HeuristicaClaus()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Distancies Simetrica", new CercaSimetrica(new CercaAStar(usarLNT, new HeuristicaDistancies())), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* Distancies Ordre Parcial", new CercaAStar(usarLNT, new HeuristicaDistancies()).ordreParcial(true), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* OD Distancies", new CercaAStarOD(usarLNT, new HeuristicaDistancies()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("A* PEA Distancies", new CercaAStar(usarLNT, new HeuristicaDistancies(), false, true), mapaD, "mapD", rows);
+        executarIRecopilarResultats(nomMacro("Macro Distancies", mapaD), new CercaMacro(usarLNT, new HeuristicaDistancies()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("SMA* Claus", new CercaSMAStar(usarLNT, new HeuristicaClaus()), mapaD, "mapD", rows);
+        executarIRecopilarResultats("HDA* Distancies", new CercaHDAStar(new HeuristicaDistancies()), mapaD, "mapD", rows);
         
         
         
@@ -71,6 +145,13 @@ public class Main {
         System.out.println("CSV escrit a results.csv");
     }
 
+    /**
+     * CercaMacro només garanteix l'òptim amb un agent (veure CercaMacro)
+     */
+    private static String nomMacro(String nom, Mapa mapa) {
+        return mapa.getNumAgents() > 1 ? nom + " (no optima, k>1)" : nom;
+    }
+
     private static void executarIRecopilarResultats(String nom, Cerca c, Mapa mapa, String nomMapa, List<String[]> rows) {
         System.out.println("Executant " + nom + " sobre " + nomMapa);
         String error="";
@@ -103,7 +184,8 @@ public class Main {
             String.valueOf(r.getNodesExplorats()),
             String.valueOf(r.getNodesTallats()),
             String.valueOf(r.getMemoriaPic()),
-            String.valueOf(r.getTempsMs())
+            String.valueOf(r.getTempsMs()),
+            String.valueOf(r.getNodesReexpandits())
         });
         System.out.println("\t"+nom + " -> " + r);
     }
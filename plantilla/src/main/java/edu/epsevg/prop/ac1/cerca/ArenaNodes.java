@@ -0,0 +1,150 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.model.Tauler;
+
+/**
+ * Magatzem de nodes en format d'estructura d'arrays: en lloc d'un objecte Node per
+ * node, cada camp viu en un array primitiu i el node s'adreça amb un id enter.
+ *
+ * Per node es desen l'estat empaquetat (1 o 2 longs), l'id del pare, el codi del
+ * moviment (1 byte), g i la profunditat: uns 21 bytes (29 si l'estat ocupa dos longs),
+ * davant dels centenars de bytes d'un Node amb el seu Mapa.
+ *
+ * Els arrays creixen per blocs de mida fixa, sense copiar els nodes ja desats.
+ */
+public class ArenaNodes {
+    /** Id del pare del node arrel */
+    public static final int SENSE_PARE = -1;
+
+    private static final int BITS_BLOC = 14;
+    private static final int MIDA_BLOC = 1 << BITS_BLOC;
+    private static final int MASCARA_BLOC = MIDA_BLOC - 1;
+
+    private final Tauler tauler;
+    private final int numAgents;
+    private final boolean dosLongs;
+
+    private long[][] codis = new long[16][];
+    private long[][] codisAlt = new long[16][];
+    private int[][] pares = new int[16][];
+    private byte[][] moviments = new byte[16][];
+    private int[][] gs = new int[16][];
+    private int[][] depths = new int[16][];
+    private int mida;
+
+    /**
+     * @param inicial un estat qualsevol de la cerca (fixa el tauler i el nombre d'agents)
+     */
+    public ArenaNodes(Mapa inicial) {
+        this.tauler = inicial.getTauler();
+        this.numAgents = inicial.getNumAgents();
+        this.dosLongs = tauler.getParaulesEstat(numAgents) == 2;
+    }
+
+    /**
+     * @return el nombre de nodes desats
+     */
+    public int size() { return mida; }
+
+    /**
+     * Desa un node nou.
+     * @param pare l'id del node pare, o SENSE_PARE per l'arrel
+     * @param codiMoviment el codi (veure Moviment.codi) del moviment que hi porta
+     * @return l'id del node
+     */
+    public int afegeix(Mapa estat, int pare, int codiMoviment, int g, int depth) {
+        return afegeix(estat.getCodi(), estat.getCodiAlt(), pare, codiMoviment, g, depth);
+    }
+
+    /**
+     * Desa un node nou a partir de l'estat ja empaquetat (veure Mapa.getCodi i getCodiAlt)
+     * @return l'id del node
+     */
+    public int afegeix(long codi, long codiAlt, int pare, int codiMoviment, int g, int depth) {
+        if (codiMoviment > 0xFF) throw new IllegalStateException("Massa agents per l'arena de nodes");
+        int id = mida;
+        int b = id >>> BITS_BLOC;
+        if (b == codis.length) {
+            int cap = b << 1;
+            codis = Arrays.copyOf(codis, cap);
+            codisAlt = Arrays.copyOf(codisAlt, cap);
+            pares = Arrays.copyOf(pares, cap);
+            moviments = Arrays.copyOf(moviments, cap);
+            gs = Arrays.copyOf(gs, cap);
+            depths = Arrays.copyOf(depths, cap);
+        }
+        if (codis[b] == null) {
+            codis[b] = new long[MIDA_BLOC];
+            if (dosLongs) codisAlt[b] = new long[MIDA_BLOC];
+            pares[b] = new int[MIDA_BLOC];
+            moviments[b] = new byte[MIDA_BLOC];
+            gs[b] = new int[MIDA_BLOC];
+            depths[b] = new int[MIDA_BLOC];
+        }
+        int i = id & MASCARA_BLOC;
+        codis[b][i] = codi;
+        if (dosLongs) codisAlt[b][i] = codiAlt;
+        mida++;
+        actualitza(id, pare, codiMoviment, g, depth);
+        return id;
+    }
+
+    /**
+     * Canvia el pare, el moviment, la g i la profunditat d'un node ja desat
+     * (quan es troba un camí més curt fins al mateix estat).
+     */
+    public void actualitza(int id, int pare, int codiMoviment, int g, int depth) {
+        int b = id >>> BITS_BLOC, i = id & MASCARA_BLOC;
+        pares[b][i] = pare;
+        moviments[b][i] = (byte) codiMoviment;
+        gs[b][i] = g;
+        depths[b][i] = depth;
+    }
+
+    public long codi(int id) { return codis[id >>> BITS_BLOC][id & MASCARA_BLOC]; }
+
+    public long codiAlt(int id) { return dosLongs ? codisAlt[id >>> BITS_BLOC][id & MASCARA_BLOC] : 0L; }
+
+    public int pare(int id) { return pares[id >>> BITS_BLOC][id & MASCARA_BLOC]; }
+
+    public int moviment(int id) { return moviments[id >>> BITS_BLOC][id & MASCARA_BLOC] & 0xFF; }
+
+    public int g(int id) { return gs[id >>> BITS_BLOC][id & MASCARA_BLOC]; }
+
+    public int depth(int id) { return depths[id >>> BITS_BLOC][id & MASCARA_BLOC]; }
+
+    /**
+     * @return l'estat del node, reconstruït a partir de la forma empaquetada
+     */
+    public Mapa estat(int id) {
+        return Mapa.descodifica(tauler, numAgents, codi(id), codiAlt(id));
+    }
+
+    /**
+     * Comprova si l'estat ja apareix en la branca que va de l'arrel fins al node id
+     */
+    public boolean esDinsDelCami(int id, Mapa estat) {
+        long c = estat.getCodi(), ca = estat.getCodiAlt();
+        for (int x = id; x != SENSE_PARE; x = pare(x)) {
+            if (codi(x) == c && codiAlt(x) == ca) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reconstrueix el camí des de l'arrel fins al node amb una sola passada enrere
+     * sobre un array de la mida exacta (la profunditat del node).
+     */
+    public List<Moviment> cami(int id) {
+        Moviment[] cami = new Moviment[depth(id)];
+        for (int x = id, i = cami.length - 1; i >= 0; x = pare(x), i--) {
+            cami[i] = Moviment.deCodi(moviment(x));
+        }
+        return Arrays.asList(cami);
+    }
+}
@@ -0,0 +1,56 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaIncremental;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+
+/**
+ * Avaluació de la h dels fills d'un node a partir del pare (veure HeuristicaIncremental).
+ *
+ * En preparar el pare es guarden el millor terme, el segon millor i l'agent del millor.
+ * Un fill que no recull cap clau només canvia el terme de l'agent que es mou, de
+ * manera que el mínim dels termes del fill surt en O(1). Si la heurística no és
+ * incremental, o el fill recull una clau, es calcula h(fill).
+ */
+final class AvaluacioIncremental {
+    private final Heuristica heur;
+    private final HeuristicaIncremental incremental; // null si la heurística no ho és
+    private int millor, segon, agentMillor;
+
+    AvaluacioIncremental(Heuristica heur) {
+        this.heur = heur;
+        this.incremental = heur instanceof HeuristicaIncremental ? (HeuristicaIncremental) heur : null;
+    }
+
+    /**
+     * Calcula els termes del node que s'expandeix
+     */
+    void prepara(Mapa pare) {
+        if (incremental == null) return;
+        millor = segon = Integer.MAX_VALUE;
+        agentMillor = -1;
+        for (int a = 1; a <= pare.getNumAgents(); a++) {
+            int t = incremental.terme(pare, pare.getCellaAgent(a));
+            if (t < millor) {
+                segon = millor;
+                millor = t;
+                agentMillor = a;
+            } else if (t < segon) {
+                segon = t;
+            }
+        }
+    }
+
+    /**
+     * @param pare l'últim node preparat
+     * @param codi el moviment (veure Moviment.codi) que porta del pare al fill
+     * @return la h del fill
+     */
+    int h(Mapa pare, int codi, Mapa fill) {
+        if (incremental == null || (codi & 1) != 0) return heur.h(fill);
+        int t = incremental.terme(pare, pare.desti(codi));
+        int resta = Moviment.agentDeCodi(codi) == agentMillor ? segon : millor;
+        return incremental.h(fill, Math.min(resta, t));
+    }
+}
@@ -5,10 +5,33 @@ import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 
 public abstract class Cerca {
     protected final boolean usarLNT;
+    protected boolean usarOrdreParcial;
 
     public Cerca(boolean usarLNT) {
         this.usarLNT = usarLNT;
     }
 
+    /**
+     * Activa o desactiva la reducció d'ordre parcial (veure OrdreParcial): dels ordres
+     * equivalents de moviments independents d'agents diferents només se n'expandeix un.
+     * La longitud de les solucions òptimes no canvia. Per defecte, desactivada.
+     * @return aquesta mateixa cerca
+     */
+    public Cerca ordreParcial(boolean usar) {
+        this.usarOrdreParcial = usar;
+        return this;
+    }
+
     public abstract void ferCerca(Mapa inicial, ResultatCerca rc);
+
+    /**
+     * Comprova amb OracleViabilitat que des de l'estat inicial es pugui arribar a la
+     * sortida. Si no es pot, deixa el resultat sense camí sense explorar res.
+     * @return true si no hi ha solució i la cerca ja ha acabat
+     */
+    protected static boolean senseSolucio(Mapa inicial, ResultatCerca rc) {
+        if (OracleViabilitat.de(inicial.getTauler()).viable(inicial)) return false;
+        rc.setCami(null);
+        return true;
+    }
 }
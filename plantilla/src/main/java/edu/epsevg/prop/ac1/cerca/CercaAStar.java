@@ -1,40 +1,104 @@
 package edu.epsevg.prop.ac1.cerca;
 
+import java.util.Arrays;
+
 import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
 import edu.epsevg.prop.ac1.model.*;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 
-import java.util.*;
-
+/**
+ * A* amb frontera indexada i nodes a l'arena.
+ *
+ * Si la heurística és incremental (HeuristicaIncremental), la h dels fills es calcula a
+ * partir dels termes del pare (veure AvaluacioIncremental).
+ *
+ * Amb expansió parcial (PEA*), cada node de la frontera té una F desada (al principi,
+ * la seva f). En expandir-lo només s'insereixen els fills amb f entre la F de
+ * l'expansió anterior (exclosa) i la F actual, i el node torna a la frontera amb la
+ * f més petita dels fills que s'han deixat; si no en queda cap, es tanca. Els agents
+ * que no poden arribar a la F (Heuristica.hCotaAgent) no es generen. La frontera i
+ * la LNT només guarden els fills que poden sortir abans de la solució, a canvi de
+ * tornar a expandir el pare (ResultatCerca.getNodesReexpandits; les reexpansions no
+ * es compten com a nodes explorats).
+ */
 public class CercaAStar extends Cerca {
 
+    /** F de l'expansió anterior d'un node que encara no s'ha expandit */
+    private static final int SENSE_EXPANDIR = Integer.MIN_VALUE;
+
     private final Heuristica heur;
+    private final boolean usarCubetes;
+    private final boolean expansioParcial;
 
     public CercaAStar(boolean usarLNT, Heuristica heur) { 
+        this(usarLNT, heur, false);
+    }
+
+    /**
+     * @param usarCubetes true per fer servir una frontera per cubetes de f (FronteraCubetes)
+     *                    en lloc del heap binari (FronteraHeap)
+     */
+    public CercaAStar(boolean usarLNT, Heuristica heur, boolean usarCubetes) { 
+        this(usarLNT, heur, usarCubetes, false);
+    }
+
+    /**
+     * @param expansioParcial true per l'expansió parcial (PEA*)
+     */
+    public CercaAStar(boolean usarLNT, Heuristica heur, boolean usarCubetes, boolean expansioParcial) { 
         super(usarLNT); 
         this.heur = heur; 
+        this.usarCubetes = usarCubetes;
+        this.expansioParcial = expansioParcial;
     }
 
     @Override
     public void ferCerca(Mapa inicial, ResultatCerca rc) {
-        // Cua de prioritat ordenada per f = g + h
-        PriorityQueue<Node> frontera = new PriorityQueue<>(
-            Comparator.comparingInt(n -> n.g + heur.h(n.estat))
-        );
+        if (senseSolucio(inicial, rc)) return;
+        // Frontera ordenada per f = g + h. La h es calcula un sol cop per node
+        // i la frontera només compara enters.
+        Frontera frontera = usarCubetes ? new FronteraCubetes() : new FronteraHeap();
+        // Els nodes viuen a l'arena (estat empaquetat, pare, moviment, g, profunditat) i s'adrecen per id
+        ArenaNodes arena = new ArenaNodes(inicial);
+        BufferMoviments accions = new BufferMoviments(); // reutilitzat per totes les expansions
         
-        Map<Mapa, Integer> LNT = usarLNT ? new HashMap<>() : null;
+        // Amb LNT, cada estat té un únic id (el del seu millor node conegut)
+        TaulaLNT LNT = usarLNT ? new TaulaLNT() : null;
+        // Restricció d'ordre parcial de cada node (veure OrdreParcial)
+        int[] restriccions = usarOrdreParcial ? new int[1024] : null;
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+        // Expansió parcial: F desada i F de l'última expansió de cada node, i els fills
+        // seleccionats de l'expansió en curs
+        int[] fDesades = expansioParcial ? new int[1024] : null;
+        int[] fExpandides = expansioParcial ? new int[1024] : null;
+        Fills fills = expansioParcial ? new Fills() : null;
+        // h dels fills a partir del pare, si la heurística ho permet
+        AvaluacioIncremental aval = new AvaluacioIncremental(heur);
         
         // Afegir node inicial
-        Node nodeInicial = new Node(inicial, null, null, 0, 0);
-        frontera.add(nodeInicial);
+        int idInicial = arena.afegeix(inicial, ArenaNodes.SENSE_PARE, 0, 0, 0);
+        frontera.afegeix(idInicial, heur.h(inicial), 0);
+        if (usarOrdreParcial) restriccions[idInicial] = OrdreParcial.LLIURE;
+        if (expansioParcial) {
+            fDesades[idInicial] = heur.h(inicial);
+            fExpandides[idInicial] = SENSE_EXPANDIR;
+        }
         
         if (usarLNT) {
-            LNT.put(inicial, 0);
+            LNT.put(inicial, idInicial);
         }
         
         while (!frontera.isEmpty()) {
-            Node actual = frontera.poll();
-            rc.incNodesExplorats();
+            int idActual = frontera.treu();
+            Mapa actual = arena.estat(idActual);
+            int g = arena.g(idActual);
+            int depth = arena.depth(idActual);
+            int fSeguent = Integer.MAX_VALUE; // expansió parcial: f del millor fill deixat
+            if (expansioParcial && fExpandides[idActual] != SENSE_EXPANDIR) {
+                rc.incNodesReexpandits();
+            } else {
+                rc.incNodesExplorats();
+            }
             
             // Actualitzar memòria pic
             int memoriaActual = frontera.size();
@@ -44,47 +108,94 @@ public class CercaAStar extends Cerca {
             rc.updateMemoria(memoriaActual);
             
             // Comprovar si és meta
-            if (actual.estat.esMeta()) {
-                rc.setCami(reconstruirCami(actual));
+            if (actual.esMeta()) {
+                rc.setCami(arena.cami(idActual));
                 return;
             }
             
             // Expandir node
-            List<Moviment> accions = actual.estat.getAccionsPossibles();
+            int restriccioActual = usarOrdreParcial ? restriccions[idActual] : OrdreParcial.LLIURE;
+            aval.prepara(actual);
+            int numFills;
+            if (expansioParcial) {
+                int fNode = fDesades[idActual];
+                fSeguent = fills.selecciona(actual, g, restriccioActual, fExpandides[idActual], fNode, accions, aval);
+                fExpandides[idActual] = fNode;
+                numFills = fills.mida;
+            } else {
+                actual.generaMoviments(accions, restriccioActual);
+                numFills = accions.mida();
+            }
             
-            for (Moviment accio : accions) {
-                Mapa nouEstat = actual.estat.mou(accio);
-                int nouG = actual.g + 1; // Cost uniforme de 1 per moviment
-                int novaDepth = actual.depth + 1;
-                
-                boolean esRepetit = false;
+            for (int i = 0; i < numFills; i++) {
+                int codi = expansioParcial ? fills.codis[i] : accions.get(i);
+                Mapa nouEstat = expansioParcial ? fills.estats[i] : actual.mou(codi);
+                int nouG = g + 1; // Cost uniforme de 1 per moviment
+                int novaDepth = depth + 1;
+                int restriccio = OrdreParcial.restriccio(usarOrdreParcial, actual, codi);
                 
                 if (usarLNT) {
                     // Per A* amb LNT, hem de considerar el cost g, no només la profunditat
                     // Però en aquest problema el cost és igual a la profunditat
-                    if (LNT.containsKey(nouEstat)) {
-                        int gAnterior = LNT.get(nouEstat);
-                        if (gAnterior <= nouG) {
-                            esRepetit = true;
+                    int idAnterior = LNT.get(nouEstat);
+                    if (idAnterior != TaulaLNT.ABSENT) {
+                        int gAnterior = arena.g(idAnterior);
+                        if (gAnterior == nouG && usarOrdreParcial
+                                && OrdreParcial.uneix(restriccions[idAnterior], restriccio) != restriccions[idAnterior]) {
+                            // Mateixa g per un camí amb una altra restricció: el node s'ha
+                            // d'expandir sense podar (si ja s'havia expandit, es reobre)
+                            restriccions[idAnterior] = OrdreParcial.LLIURE;
+                            int f = nouG + aval.h(actual, codi, nouEstat);
+                            if (expansioParcial) reinicia(fDesades, fExpandides, idAnterior, f);
+                            if (!frontera.millora(idAnterior, f, nouG)) frontera.afegeix(idAnterior, f, nouG);
+                            rc.incNodesTallats();
+                        } else if (gAnterior <= nouG) {
+                            rc.incNodesTallats();
                         } else {
-                            // Hem trobat un camí més curt
-                            LNT.put(nouEstat, nouG);
+                            // Hem trobat un camí més curt: actualitzem el node existent
+                            arena.actualitza(idAnterior, idActual, codi, nouG, novaDepth);
+                            if (usarOrdreParcial) restriccions[idAnterior] = restriccio;
+                            int f = nouG + aval.h(actual, codi, nouEstat);
+                            // Amb expansió parcial, els fills es tornen a seleccionar amb la g nova
+                            if (expansioParcial) reinicia(fDesades, fExpandides, idAnterior, f);
+                            if (!frontera.millora(idAnterior, f, nouG)) {
+                                // Ja s'havia expandit (heurística no consistent): el reobrim
+                                frontera.afegeix(idAnterior, f, nouG);
+                            }
                         }
-                    } else {
-                        LNT.put(nouEstat, nouG);
+                        continue;
                     }
-                } else {
+                } else if (arena.esDinsDelCami(idActual, nouEstat)) {
                     // Control dins de la branca actual
-                    esRepetit = estaDinsDelCami(actual, nouEstat);
+                    rc.incNodesTallats();
+                    continue;
                 }
                 
-                if (esRepetit) {
-                    rc.incNodesTallats();
-                } else {
-                    Node nouNode = new Node(nouEstat, actual, accio, novaDepth, nouG);
-                    frontera.add(nouNode);
+                int id = arena.afegeix(nouEstat, idActual, codi, nouG, novaDepth);
+                int f = nouG + (expansioParcial ? fills.hs[i] : aval.h(actual, codi, nouEstat));
+                frontera.afegeix(id, f, nouG);
+                if (usarOrdreParcial) {
+                    if (id == restriccions.length) restriccions = Arrays.copyOf(restriccions, id * 2);
+                    restriccions[id] = restriccio;
+                }
+                if (expansioParcial) {
+                    if (id == fDesades.length) {
+                        fDesades = Arrays.copyOf(fDesades, id * 2);
+                        fExpandides = Arrays.copyOf(fExpandides, id * 2);
+                    }
+                    fDesades[id] = f;
+                    fExpandides[id] = SENSE_EXPANDIR;
+                }
+                if (usarLNT) {
+                    LNT.put(nouEstat, id);
                 }
             }
+            
+            // Expansió parcial: el node torna a la frontera amb la f del millor fill deixat
+            if (fSeguent != Integer.MAX_VALUE) {
+                fDesades[idActual] = fSeguent;
+                frontera.afegeix(idActual, fSeguent, g);
+            }
         }
         
         // No s'ha trobat solució
@@ -92,31 +203,61 @@ public class CercaAStar extends Cerca {
     }
     
     /**
-     * Reconstrueix el camí des del node final fins a l'inicial
+     * Expansió parcial: un node amb una g nova o una restricció nova torna a
+     * seleccionar tots els fills des de la seva f
      */
-    private List<Moviment> reconstruirCami(Node nodeFinal) {
-        List<Moviment> cami = new ArrayList<>();
-        Node actual = nodeFinal;
-        
-        while (actual.pare != null) {
-            cami.add(0, actual.accio);
-            actual = actual.pare;
-        }
-        
-        return cami;
+    private static void reinicia(int[] fDesades, int[] fExpandides, int id, int f) {
+        fDesades[id] = f;
+        fExpandides[id] = SENSE_EXPANDIR;
     }
     
     /**
-     * Comprova si un estat està repetit dins del camí actual (branca)
+     * Fills seleccionats d'una expansió parcial, amb l'estat i la h ja calculats
      */
-    private boolean estaDinsDelCami(Node node, Mapa estat) {
-        Node actual = node;
-        while (actual != null) {
-            if (actual.estat.equals(estat)) {
-                return true;
+    private final class Fills {
+        int[] codis = new int[16];
+        Mapa[] estats = new Mapa[16];
+        int[] hs = new int[16];
+        int mida;
+        
+        /**
+         * Selecciona els fills amb f a (fAnterior, fNode]
+         * @return la f més petita dels fills que queden per sobre de fNode (o una cota
+         *         inferior, per als agents que no s'han generat), MAX_VALUE si no n'hi ha
+         */
+        int selecciona(Mapa actual, int g, int restriccio, int fAnterior, int fNode, BufferMoviments accions,
+                       AvaluacioIncremental aval) {
+            mida = 0;
+            int fSeguent = Integer.MAX_VALUE;
+            for (int a = 1; a <= actual.getNumAgents(); a++) {
+                int cota = g + 1 + heur.hCotaAgent(actual, a);
+                if (cota > fNode) {
+                    // Cap fill d'aquest agent no entra en aquesta expansió
+                    fSeguent = Math.min(fSeguent, cota);
+                    continue;
+                }
+                actual.generaMoviments(accions, a, restriccio);
+                for (int i = 0; i < accions.mida(); i++) {
+                    int codi = accions.get(i);
+                    Mapa fill = actual.mou(codi);
+                    int h = aval.h(actual, codi, fill);
+                    int f = g + 1 + h;
+                    if (f <= fAnterior) continue; // ja inserit en una expansió anterior
+                    if (f > fNode) {
+                        fSeguent = Math.min(fSeguent, f);
+                        continue;
+                    }
+                    if (mida == codis.length) {
+                        codis = Arrays.copyOf(codis, mida * 2);
+                        estats = Arrays.copyOf(estats, mida * 2);
+                        hs = Arrays.copyOf(hs, mida * 2);
+                    }
+                    codis[mida] = codi;
+                    estats[mida] = fill;
+                    hs[mida++] = h;
+                }
             }
-            actual = actual.pare;
+            return fSeguent;
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * A* amb descomposició d'operadors (OD).
+ *
+ * Cada pas mou un sol agent, de manera que un estat amb k agents té fins a 4k fills.
+ * L'A* pla els genera tots (un Mapa.mou i una h per fill) i la majoria no surten mai
+ * de la frontera. Aquí l'elecció del pas es fa en dos nivells: en treure un estat de
+ * la frontera només s'hi posen k estats intermedis (estat, agent), amb
+ * f = g + 1 + Heuristica.hCotaAgent, i els fills reals d'un agent només es generen
+ * quan el seu intermedi surt de la frontera. Els agents que no poden millorar la f
+ * es queden a la frontera i, si la solució es troba abans, no es materialitzen mai.
+ *
+ * Com que la cota no supera la f de cap fill de l'agent, els estats complets surten
+ * en el mateix ordre de f que a l'A* pla: cost, optimalitat i camí (una llista de
+ * Moviment) no canvien. Els intermedis no són estats i no passen per la LNT.
+ *
+ * Els ids de la frontera són id * (k + 1) per l'estat complet i id * (k + 1) + a per
+ * l'intermedi de l'agent a.
+ */
+public class CercaAStarOD extends Cerca {
+
+    private final Heuristica heur;
+
+    public CercaAStarOD(boolean usarLNT, Heuristica heur) {
+        super(usarLNT);
+        this.heur = heur;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        int k = inicial.getNumAgents();
+        int entrades = k + 1;
+        Frontera frontera = new FronteraHeap();
+        ArenaNodes arena = new ArenaNodes(inicial);
+        BufferMoviments accions = new BufferMoviments();
+        TaulaLNT LNT = usarLNT ? new TaulaLNT() : null;
+        // Restricció d'ordre parcial de cada node (veure OrdreParcial)
+        int[] restriccions = usarOrdreParcial ? new int[1024] : null;
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+
+        int idInicial = arena.afegeix(inicial, ArenaNodes.SENSE_PARE, 0, 0, 0);
+        frontera.afegeix(idInicial * entrades, heur.h(inicial), 0);
+        if (usarOrdreParcial) restriccions[idInicial] = OrdreParcial.LLIURE;
+        if (usarLNT) LNT.put(inicial, idInicial);
+
+        while (!frontera.isEmpty()) {
+            int entrada = frontera.treu();
+            int idActual = entrada / entrades, agent = entrada % entrades;
+            Mapa actual = arena.estat(idActual);
+            int g = arena.g(idActual);
+
+            if (agent == 0) {
+                // Estat complet: meta o un intermedi per agent
+                rc.incNodesExplorats();
+                int memoriaActual = frontera.size();
+                if (usarLNT) memoriaActual += LNT.size();
+                rc.updateMemoria(memoriaActual);
+
+                if (actual.esMeta()) {
+                    rc.setCami(arena.cami(idActual));
+                    return;
+                }
+                for (int a = 1; a <= k; a++) {
+                    int f = g + 1 + heur.hCotaAgent(actual, a);
+                    // Si l'estat s'ha reobert, l'intermedi pot ser encara a la frontera
+                    if (!frontera.millora(entrada + a, f, g + 1)) frontera.afegeix(entrada + a, f, g + 1);
+                }
+                continue;
+            }
+
+            // Intermedi: es generen els fills de l'agent
+            actual.generaMoviments(accions, agent, usarOrdreParcial ? restriccions[idActual] : OrdreParcial.LLIURE);
+            int depth = arena.depth(idActual);
+            for (int i = 0; i < accions.mida(); i++) {
+                int codi = accions.get(i);
+                Mapa nouEstat = actual.mou(codi);
+                int nouG = g + 1;
+                int novaDepth = depth + 1;
+                int restriccio = OrdreParcial.restriccio(usarOrdreParcial, actual, codi);
+
+                if (usarLNT) {
+                    int idAnterior = LNT.get(nouEstat);
+                    if (idAnterior != TaulaLNT.ABSENT) {
+                        int gAnterior = arena.g(idAnterior);
+                        if (gAnterior == nouG && usarOrdreParcial
+                                && OrdreParcial.uneix(restriccions[idAnterior], restriccio) != restriccions[idAnterior]) {
+                            // Mateixa g per un camí amb una altra restricció: es reobre sense podar
+                            restriccions[idAnterior] = OrdreParcial.LLIURE;
+                            int f = nouG + heur.h(nouEstat);
+                            if (!frontera.millora(idAnterior * entrades, f, nouG)) frontera.afegeix(idAnterior * entrades, f, nouG);
+                            rc.incNodesTallats();
+                        } else if (gAnterior <= nouG) {
+                            rc.incNodesTallats();
+                        } else {
+                            // Camí més curt: el node existent canvia de pare
+                            arena.actualitza(idAnterior, idActual, codi, nouG, novaDepth);
+                            if (usarOrdreParcial) restriccions[idAnterior] = restriccio;
+                            int f = nouG + heur.h(nouEstat);
+                            if (!frontera.millora(idAnterior * entrades, f, nouG)) frontera.afegeix(idAnterior * entrades, f, nouG);
+                        }
+                        continue;
+                    }
+                } else if (arena.esDinsDelCami(idActual, nouEstat)) {
+                    rc.incNodesTallats();
+                    continue;
+                }
+
+                int id = arena.afegeix(nouEstat, idActual, codi, nouG, novaDepth);
+                if ((long) id * entrades + k > Integer.MAX_VALUE) throw new IllegalStateException("Massa nodes per la frontera");
+                frontera.afegeix(id * entrades, nouG + heur.h(nouEstat), nouG);
+                if (usarOrdreParcial) {
+                    if (id == restriccions.length) restriccions = Arrays.copyOf(restriccions, id * 2);
+                    restriccions[id] = restriccio;
+                }
+                if (usarLNT) LNT.put(nouEstat, id);
+            }
+        }
+
+        rc.setCami(null);
+    }
+}
@@ -1,34 +1,54 @@
 
 package edu.epsevg.prop.ac1.cerca;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 
+import edu.epsevg.prop.ac1.model.BufferMoviments;
 import edu.epsevg.prop.ac1.model.Mapa;
 import edu.epsevg.prop.ac1.model.Moviment;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 
 public class CercaBFS extends Cerca {
     
+    private final boolean usarArena;
+    
     public CercaBFS(boolean usarLNT) { 
+        this(usarLNT, false);
+    }
+
+    /**
+     * @param usarArena true per desar els nodes en una ArenaNodes (ids enters i arrays
+     *                  primitius) en lloc d'objectes Node
+     */
+    public CercaBFS(boolean usarLNT, boolean usarArena) { 
         super(usarLNT); 
+        this.usarArena = usarArena;
     }
 
     @Override
     public void ferCerca(Mapa inicial, ResultatCerca rc) {
-        Queue<Node> frontera = new LinkedList<>();
-        Map<Mapa, Integer> LNT = usarLNT ? new HashMap<>() : null;
+        if (senseSolucio(inicial, rc)) return;
+        if (usarArena) {
+            ferCercaArena(inicial, rc);
+            return;
+        }
+        Queue<Node> frontera = new ArrayDeque<>();
+        BufferMoviments accions = new BufferMoviments(); // reutilitzat per totes les expansions
+        TaulaLNT LNT = usarLNT ? new TaulaLNT() : null;
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
         
         // Afegir node inicial
         Node nodeInicial = new Node(inicial, null, null, 0, 0);
         frontera.add(nodeInicial);
         
         if (usarLNT) {
-            LNT.put(inicial, 0);
+            // Valor: profunditat i restricció d'ordre parcial (veure OrdreParcial)
+            LNT.put(inicial, OrdreParcial.valor(0, OrdreParcial.LLIURE));
         }
         
         while (!frontera.isEmpty()) {
@@ -49,26 +69,28 @@ public class CercaBFS extends Cerca {
             }
             
             // Expandir node
-            List<Moviment> accions = actual.estat.getAccionsPossibles();
+            actual.estat.generaMoviments(accions, restriccio(actual, LNT));
             
-            for (Moviment accio : accions) {
-                Mapa nouEstat = actual.estat.mou(accio);
+            for (int i = 0; i < accions.mida(); i++) {
+                int codi = accions.get(i);
+                Mapa nouEstat = actual.estat.mou(codi);
                 int novaDepth = actual.depth + 1;
                 
                 boolean esRepetit = false;
                 
                 if (usarLNT) {
                     // Control amb LNT
-                    if (LNT.containsKey(nouEstat)) {
-                        int depthAnterior = LNT.get(nouEstat);
-                        if (depthAnterior <= novaDepth) {
-                            esRepetit = true;
-                        } else {
-                            // Hem trobat un camí més curt
-                            LNT.put(nouEstat, novaDepth);
-                        }
+                    int valor = OrdreParcial.valor(novaDepth, OrdreParcial.restriccio(usarOrdreParcial, actual.estat, codi));
+                    int anterior = LNT.get(nouEstat);
+                    if (anterior != TaulaLNT.ABSENT) {
+                        // Repetit, excepte si el camí és més curt. A la mateixa profunditat
+                        // el node encara és a la cua: n'hi pot canviar la restricció
+                        int combinat = OrdreParcial.combina(anterior, valor);
+                        esRepetit = OrdreParcial.g(combinat) == OrdreParcial.g(anterior);
+                        if (combinat != anterior) LNT.put(nouEstat, combinat);
                     } else {
-                        LNT.put(nouEstat, novaDepth);
+                        // Estat nou
+                        LNT.put(nouEstat, valor);
                     }
                 } else {
                     // Control dins de la branca actual
@@ -78,7 +100,7 @@ public class CercaBFS extends Cerca {
                 if (esRepetit) {
                     rc.incNodesTallats();
                 } else {
-                    Node nouNode = new Node(nouEstat, actual, accio, novaDepth, 0);
+                    Node nouNode = new Node(nouEstat, actual, Moviment.deCodi(codi), novaDepth, 0);
                     frontera.add(nouNode);
                 }
             }
@@ -88,17 +110,108 @@ public class CercaBFS extends Cerca {
         rc.setCami(null);
     }
     
+    /**
+     * BFS sobre una ArenaNodes. Els ids s'assignen en ordre de generació i BFS els
+     * treu en el mateix ordre, així que la frontera és simplement l'interval
+     * [seguent, arena.size()) i no cal cap cua.
+     */
+    private void ferCercaArena(Mapa inicial, ResultatCerca rc) {
+        ArenaNodes arena = new ArenaNodes(inicial);
+        BufferMoviments accions = new BufferMoviments();
+        TaulaLNT LNT = usarLNT ? new TaulaLNT() : null;
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+        // Restricció d'ordre parcial de cada node sense LNT (amb LNT és al valor de la taula)
+        int[] restriccions = usarOrdreParcial && !usarLNT ? new int[1024] : null;
+        
+        arena.afegeix(inicial, ArenaNodes.SENSE_PARE, 0, 0, 0);
+        if (usarLNT) {
+            LNT.put(inicial, OrdreParcial.valor(0, OrdreParcial.LLIURE));
+        } else if (usarOrdreParcial) {
+            restriccions[0] = OrdreParcial.LLIURE;
+        }
+        
+        for (int seguent = 0; seguent < arena.size(); seguent++) {
+            int idActual = seguent;
+            Mapa actual = arena.estat(idActual);
+            int depth = arena.depth(idActual);
+            rc.incNodesExplorats();
+            
+            // Actualitzar memòria pic
+            int memoriaActual = arena.size() - seguent - 1;
+            if (usarLNT) {
+                memoriaActual += LNT.size();
+            }
+            rc.updateMemoria(memoriaActual);
+            
+            if (actual.esMeta()) {
+                rc.setCami(arena.cami(idActual));
+                return;
+            }
+            
+            int restriccio = !usarOrdreParcial ? OrdreParcial.LLIURE
+                    : usarLNT ? OrdreParcial.restriccio(LNT.get(actual)) : restriccions[idActual];
+            actual.generaMoviments(accions, restriccio);
+            for (int i = 0; i < accions.mida(); i++) {
+                int codi = accions.get(i);
+                Mapa nouEstat = actual.mou(codi);
+                int novaDepth = depth + 1;
+                int restriccioFill = OrdreParcial.restriccio(usarOrdreParcial, actual, codi);
+                
+                boolean esRepetit;
+                if (usarLNT) {
+                    int valor = OrdreParcial.valor(novaDepth, restriccioFill);
+                    int anterior = LNT.get(nouEstat);
+                    if (anterior != TaulaLNT.ABSENT) {
+                        int combinat = OrdreParcial.combina(anterior, valor);
+                        esRepetit = OrdreParcial.g(combinat) == OrdreParcial.g(anterior);
+                        if (combinat != anterior) LNT.put(nouEstat, combinat);
+                    } else {
+                        esRepetit = false;
+                        LNT.put(nouEstat, valor);
+                    }
+                } else {
+                    esRepetit = arena.esDinsDelCami(idActual, nouEstat);
+                }
+                
+                if (esRepetit) {
+                    rc.incNodesTallats();
+                } else {
+                    int id = arena.afegeix(nouEstat, idActual, codi, novaDepth, novaDepth);
+                    if (restriccions != null) {
+                        if (id == restriccions.length) restriccions = Arrays.copyOf(restriccions, id * 2);
+                        restriccions[id] = restriccioFill;
+                    }
+                }
+            }
+        }
+        
+        // No s'ha trobat solució
+        rc.setCami(null);
+    }
+    
+    /**
+     * Restricció d'ordre parcial amb què s'expandeix el node: la desada a la LNT (que
+     * hi acumula les arribades a la mateixa profunditat) o, sense LNT, la del seu moviment
+     */
+    private int restriccio(Node node, TaulaLNT LNT) {
+        if (!usarOrdreParcial || node.pare == null) return OrdreParcial.LLIURE;
+        if (usarLNT) return OrdreParcial.restriccio(LNT.get(node.estat));
+        return node.pare.estat.desti(node.accio.getCodi());
+    }
+    
     /**
      * Reconstrueix el camí des del node final fins a l'inicial
      */
     private List<Moviment> reconstruirCami(Node nodeFinal) {
-        List<Moviment> cami = new ArrayList<>();
+        List<Moviment> cami = new ArrayList<>(nodeFinal.depth);
         Node actual = nodeFinal;
         
+        // Recorregut enrere i una sola inversió: O(L) en lloc d'inserir a l'inici
         while (actual.pare != null) {
-            cami.add(0, actual.accio);
+            cami.add(actual.accio);
             actual = actual.pare;
         }
+        Collections.reverse(cami);
         
         return cami;
     }
@@ -0,0 +1,446 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.model.Tauler;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * BFS en memòria externa: cada capa de profunditat és un fitxer ordenat de registres
+ * (codi, codiAlt, moviment d'entrada) al directori temporal, i a memòria només hi ha
+ * el buffer de treball.
+ *
+ * Per passar de la capa d a la d+1:
+ *  1. es llegeix la capa d i els fills es desen al buffer; quan és ple, s'ordena, es
+ *     treuen els repetits i s'escriu com un tram ordenat;
+ *  2. es fusionen els trams i, alhora, es recorren les capes d i d-1 per descartar
+ *     els estats que ja hi són.
+ * Dins d'una mateixa màscara de claus els moviments són reversibles, de manera que
+ * un fill només pot ser a les capes d-1, d o d+1. Recollir una clau no es pot desfer:
+ * un estat amb més claus que ja s'havia vist abans de la capa d-1 es torna a afegir i
+ * se'n torna a explorar el component. La cerca continua sent correcta i finita, però
+ * fa feina de més en mapes amb moltes claus.
+ *
+ * Les capes es conserven fins al final: el camí es reconstrueix enrere, desfent el
+ * moviment d'entrada de cada estat (Mapa.desfes) i cercant-lo per cerca binària a la
+ * capa anterior. El moviment desat es refereix a l'agent tal com és a l'estat desat
+ * i no al pare: amb un tauler simètric (Tauler.ambSimetria) l'ordenació pot canviar
+ * l'índex de l'agent mogut. La lectura es fa amb finestres de fitxers mapats a
+ * memòria (NIO); l'escriptura, seqüencial, amb un buffer directe.
+ *
+ * Amb la reducció d'ordre parcial (veure OrdreParcial), la restricció d'un estat és la
+ * cel·la de l'agent del moviment d'entrada, i no cal desar-la: els repetits de la capa
+ * nova que hi arriben movent agents diferents es marquen com a LLIURES amb el bit alt
+ * del moviment (per això cal que hi hagi com a molt 16 agents).
+ *
+ * Sempre elimina repetits (no fa servir usarLNT).
+ */
+public class CercaBFSExterna extends Cerca {
+
+    /** Memòria per defecte del buffer de treball */
+    public static final long BYTES_TREBALL_PER_DEFECTE = 64L << 20;
+
+    /** codi (8), codiAlt (8) i moviment d'entrada (1) */
+    static final int BYTES_REGISTRE = 17;
+    private static final int REGISTRES_FINESTRA = 1 << 20;
+    private static final int REGISTRES_ESCRIPTURA = 1 << 12;
+    private static final int SENSE_MOVIMENT = 0xFF;
+    /** Bit del moviment desat que marca un estat LLIURE (veure OrdreParcial) */
+    private static final int MOVIMENT_LLIURE = 0x80;
+
+    private final Path dirTemporal;
+    private final int capacitatBuffer;
+
+    public CercaBFSExterna() {
+        this(Path.of(System.getProperty("java.io.tmpdir")), BYTES_TREBALL_PER_DEFECTE);
+    }
+
+    /**
+     * @param dirTemporal directori on es crea (i s'esborra en acabar) el directori de les capes
+     * @param bytesTreball memòria del buffer on s'acumulen i s'ordenen els fills
+     */
+    public CercaBFSExterna(Path dirTemporal, long bytesTreball) {
+        super(true);
+        this.dirTemporal = dirTemporal;
+        this.capacitatBuffer = (int) Math.max(16, Math.min(Integer.MAX_VALUE - 8, bytesTreball / BYTES_REGISTRE));
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(dirTemporal, "bfs-externa");
+            rc.setCami(new Execucio(inicial, rc, dir).cerca());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (dir != null) esborra(dir);
+        }
+    }
+
+    private static void esborra(Path dir) {
+        try (var fitxers = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) fitxers::iterator) Files.deleteIfExists(f);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            // Fitxers temporals: si no es poden esborrar, no afecta el resultat
+        }
+    }
+
+    private class Execucio {
+        private final Mapa inicial;
+        private final Tauler tauler;
+        private final ResultatCerca rc;
+        private final Path dir;
+        private final List<Path> capes = new ArrayList<>();
+
+        // Buffer de treball: fills pendents d'escriure en un tram
+        private final long[] codis = new long[capacitatBuffer];
+        private final long[] codisAlt = new long[capacitatBuffer];
+        private final byte[] moviments = new byte[capacitatBuffer];
+        private int mida;
+        private final List<Path> trams = new ArrayList<>();
+
+        Execucio(Mapa inicial, ResultatCerca rc, Path dir) {
+            this.inicial = inicial;
+            this.tauler = inicial.getTauler();
+            this.rc = rc;
+            this.dir = dir;
+        }
+
+        List<Moviment> cerca() throws IOException {
+            if (usarOrdreParcial && inicial.getNumAgents() > 16) {
+                throw new IllegalStateException("La reducció d'ordre parcial admet com a molt 16 agents");
+            }
+            Path capa0 = dir.resolve("capa0");
+            try (Escriptor e = new Escriptor(capa0)) {
+                e.escriu(inicial.getCodi(), inicial.getCodiAlt(), SENSE_MOVIMENT);
+            }
+            capes.add(capa0);
+            if (inicial.esMeta()) {
+                rc.incNodesExplorats();
+                return new ArrayList<>();
+            }
+
+            BufferMoviments accions = new BufferMoviments();
+            for (int d = 0; ; d++) {
+                // Expandir la capa d
+                try (Lector capa = new Lector(capes.get(d))) {
+                    while (capa.avanca()) {
+                        rc.incNodesExplorats();
+                        Mapa estat = Mapa.descodifica(tauler, inicial.getNumAgents(), capa.codi, capa.codiAlt);
+                        estat.generaMoviments(accions, restriccio(estat, capa.moviment));
+                        for (int i = 0; i < accions.mida(); i++) {
+                            int codi = accions.get(i);
+                            Mapa fill = estat.mou(codi);
+                            if (fill.esMeta()) {
+                                rc.incNodesExplorats();
+                                List<Moviment> cami = camiFins(estat, d);
+                                cami.add(Moviment.deCodi(codi));
+                                return cami;
+                            }
+                            if (mida == capacitatBuffer) buidaBuffer();
+                            codis[mida] = fill.getCodi();
+                            codisAlt[mida] = fill.getCodiAlt();
+                            // Moviment d'entrada amb l'agent tal com és al fill: amb tauler
+                            // simètric l'ordenació li pot haver canviat l'índex
+                            int desti = tauler.veiTransitable(estat.getCellaAgent(Moviment.agentDeCodi(codi)), (codi >> 1) & 3);
+                            moviments[mida] = (byte) Moviment.ambAgent(codi, fill.agentA(desti));
+                            mida++;
+                        }
+                        rc.updateMemoria(mida);
+                    }
+                }
+                if (mida > 0) buidaBuffer();
+
+                // Fusionar els trams en la capa d+1 descartant les capes d i d-1
+                Path nova = dir.resolve("capa" + (d + 1));
+                long registres = fusiona(nova, capes.get(d), d > 0 ? capes.get(d - 1) : null);
+                for (Path t : trams) Files.deleteIfExists(t);
+                trams.clear();
+                capes.add(nova);
+                if (registres == 0) return null;
+            }
+        }
+
+        /**
+         * @return la restricció d'ordre parcial de l'estat desat amb el moviment d'entrada
+         */
+        private int restriccio(Mapa estat, int mov) {
+            if (!usarOrdreParcial || mov == SENSE_MOVIMENT || (mov & MOVIMENT_LLIURE) != 0) return OrdreParcial.LLIURE;
+            return estat.getCellaAgent(Moviment.agentDeCodi(mov));
+        }
+
+        /**
+         * Moviment d'entrada d'un estat de la capa nova que s'hi ha repetit: amb la
+         * reducció d'ordre parcial, si els dos arriben movent agents diferents (i per
+         * tant amb restriccions diferents), queda LLIURE
+         */
+        private int uneix(int desat, int nou) {
+            if (!usarOrdreParcial) return desat;
+            if (((desat | nou) & MOVIMENT_LLIURE) != 0 || Moviment.agentDeCodi(desat) != Moviment.agentDeCodi(nou)) {
+                return desat | MOVIMENT_LLIURE;
+            }
+            return desat;
+        }
+
+        /**
+         * Ordena el buffer, en treu els repetits i l'escriu com un tram
+         */
+        private void buidaBuffer() throws IOException {
+            ordena(0, mida - 1);
+            Path tram = dir.resolve("tram" + trams.size());
+            try (Escriptor e = new Escriptor(tram)) {
+                for (int i = 0; i < mida; ) {
+                    int mov = moviments[i] & 0xFF;
+                    int j = i + 1;
+                    for (; j < mida && codis[j] == codis[i] && codisAlt[j] == codisAlt[i]; j++) {
+                        rc.incNodesTallats();
+                        mov = uneix(mov, moviments[j] & 0xFF);
+                    }
+                    e.escriu(codis[i], codisAlt[i], mov);
+                    i = j;
+                }
+            }
+            trams.add(tram);
+            mida = 0;
+        }
+
+        /**
+         * Fusió en k vies dels trams, sense repetits ni estats de les capes anteriors
+         * @return el nombre de registres de la capa nova
+         */
+        private long fusiona(Path nova, Path capaD, Path capaAnterior) throws IOException {
+            List<Lector> lectors = new ArrayList<>();
+            PriorityQueue<Lector> cua = new PriorityQueue<>(Comparator.<Lector>comparingLong(l -> l.codi)
+                    .thenComparingLong(l -> l.codiAlt));
+            try (Escriptor e = new Escriptor(nova);
+                 Lector anteriorD = new Lector(capaD);
+                 Lector anteriorD1 = capaAnterior != null ? new Lector(capaAnterior) : null) {
+                for (Path t : trams) {
+                    Lector l = new Lector(t);
+                    lectors.add(l);
+                    if (l.avanca()) cua.add(l);
+                }
+                anteriorD.avanca();
+                if (anteriorD1 != null) anteriorD1.avanca();
+                while (!cua.isEmpty()) {
+                    Lector l = cua.poll();
+                    long codi = l.codi, codiAlt = l.codiAlt;
+                    int mov = l.moviment;
+                    if (l.avanca()) cua.add(l);
+                    // Repetits entre trams: surten seguits de la cua
+                    while (!cua.isEmpty() && cua.peek().codi == codi && cua.peek().codiAlt == codiAlt) {
+                        Lector r = cua.poll();
+                        rc.incNodesTallats();
+                        mov = uneix(mov, r.moviment);
+                        if (r.avanca()) cua.add(r);
+                    }
+
+                    if (anteriorD.salta(codi, codiAlt) || (anteriorD1 != null && anteriorD1.salta(codi, codiAlt))) {
+                        rc.incNodesTallats();
+                        continue;
+                    }
+                    e.escriu(codi, codiAlt, mov);
+                }
+                return e.registres;
+            } finally {
+                for (Lector l : lectors) l.close();
+            }
+        }
+
+        /**
+         * Camí des de l'inicial fins a l'estat de la capa d, desfent els moviments
+         * d'entrada capa per capa
+         */
+        private List<Moviment> camiFins(Mapa estat, int d) throws IOException {
+            List<Moviment> cami = new ArrayList<>(d + 1);
+            for (int capa = d; capa > 0; capa--) {
+                int mov;
+                try (Lector l = new Lector(capes.get(capa))) {
+                    mov = l.cerca(estat.getCodi(), estat.getCodiAlt());
+                }
+                if (mov < 0) throw new IllegalStateException("Estat absent de la capa " + capa);
+                mov &= ~MOVIMENT_LLIURE;
+                // El camí fa servir l'índex de l'agent a l'estat anterior
+                Mapa anterior = estat.desfes(mov);
+                int origen = tauler.veiTransitable(estat.getCellaAgent(Moviment.agentDeCodi(mov)), ((mov >> 1) & 3) ^ 1);
+                cami.add(Moviment.deCodi(Moviment.ambAgent(mov, anterior.agentA(origen))));
+                estat = anterior;
+            }
+            Collections.reverse(cami);
+            return cami;
+        }
+
+        // Quicksort sobre els tres arrays del buffer, per (codi, codiAlt)
+        private void ordena(int lo, int hi) {
+            while (hi - lo > 16) {
+                int mig = (lo + hi) >>> 1;
+                if (menor(mig, lo)) intercanvia(mig, lo);
+                if (menor(hi, lo)) intercanvia(hi, lo);
+                if (menor(hi, mig)) intercanvia(hi, mig);
+                long pc = codis[mig], pca = codisAlt[mig];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (compara(codis[i], codisAlt[i], pc, pca) < 0) i++;
+                    while (compara(codis[j], codisAlt[j], pc, pca) > 0) j--;
+                    if (i <= j) intercanvia(i++, j--);
+                }
+                // Recursió a la part petita, iteració a la gran
+                if (j - lo < hi - i) {
+                    ordena(lo, j);
+                    lo = i;
+                } else {
+                    ordena(i, hi);
+                    hi = j;
+                }
+            }
+            for (int i = lo + 1; i <= hi; i++) {
+                for (int j = i; j > lo && menor(j, j - 1); j--) intercanvia(j, j - 1);
+            }
+        }
+
+        private boolean menor(int a, int b) {
+            return compara(codis[a], codisAlt[a], codis[b], codisAlt[b]) < 0;
+        }
+
+        private void intercanvia(int a, int b) {
+            long c = codis[a]; codis[a] = codis[b]; codis[b] = c;
+            long ca = codisAlt[a]; codisAlt[a] = codisAlt[b]; codisAlt[b] = ca;
+            byte m = moviments[a]; moviments[a] = moviments[b]; moviments[b] = m;
+        }
+    }
+
+    private static int compara(long codiA, long codiAltA, long codiB, long codiAltB) {
+        int c = Long.compare(codiA, codiB);
+        return c != 0 ? c : Long.compare(codiAltA, codiAltB);
+    }
+
+    /**
+     * Lectura d'un fitxer de registres ordenats per finestres mapades a memòria:
+     * seqüencial (avanca, salta) o per cerca binària (cerca)
+     */
+    private static final class Lector implements Closeable {
+        private final FileChannel canal;
+        private final long registres;
+        private long seguent;
+        private MappedByteBuffer finestra;
+        private long numFinestra = -1;
+        private boolean esgotat;
+
+        long codi, codiAlt;
+        int moviment;
+
+        Lector(Path fitxer) throws IOException {
+            this.canal = FileChannel.open(fitxer, StandardOpenOption.READ);
+            this.registres = canal.size() / BYTES_REGISTRE;
+        }
+
+        /**
+         * Carrega el registre següent
+         * @return false si ja no n'hi ha
+         */
+        boolean avanca() throws IOException {
+            if (seguent >= registres) {
+                esgotat = true;
+                return false;
+            }
+            llegeix(seguent++);
+            return true;
+        }
+
+        /**
+         * Avança mentre el registre actual sigui menor que (c, cAlt)
+         * @return true si el fitxer conté (c, cAlt)
+         */
+        boolean salta(long c, long cAlt) throws IOException {
+            while (!esgotat && compara(codi, codiAlt, c, cAlt) < 0) avanca();
+            return !esgotat && codi == c && codiAlt == cAlt;
+        }
+
+        /**
+         * @return el moviment d'entrada de l'estat, o -1 si no hi és
+         */
+        int cerca(long c, long cAlt) throws IOException {
+            long lo = 0, hi = registres - 1;
+            while (lo <= hi) {
+                long mig = (lo + hi) >>> 1;
+                llegeix(mig);
+                int cmp = compara(codi, codiAlt, c, cAlt);
+                if (cmp == 0) return moviment;
+                if (cmp < 0) lo = mig + 1;
+                else hi = mig - 1;
+            }
+            return -1;
+        }
+
+        private void llegeix(long i) throws IOException {
+            long f = i / REGISTRES_FINESTRA;
+            if (f != numFinestra) {
+                long inici = f * REGISTRES_FINESTRA;
+                long n = Math.min(REGISTRES_FINESTRA, registres - inici);
+                finestra = canal.map(FileChannel.MapMode.READ_ONLY, inici * BYTES_REGISTRE, n * BYTES_REGISTRE);
+                numFinestra = f;
+            }
+            int off = (int) (i - numFinestra * REGISTRES_FINESTRA) * BYTES_REGISTRE;
+            codi = finestra.getLong(off);
+            codiAlt = finestra.getLong(off + 8);
+            moviment = finestra.get(off + 16) & 0xFF;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finestra = null;
+            canal.close();
+        }
+    }
+
+    /**
+     * Escriptura seqüencial de registres amb un buffer directe
+     */
+    private static final class Escriptor implements Closeable {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(REGISTRES_ESCRIPTURA * BYTES_REGISTRE);
+        long registres;
+
+        Escriptor(Path fitxer) throws IOException {
+            this.canal = FileChannel.open(fitxer, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void escriu(long codi, long codiAlt, int moviment) throws IOException {
+            if (buffer.remaining() < BYTES_REGISTRE) buida();
+            buffer.putLong(codi).putLong(codiAlt).put((byte) moviment);
+            registres++;
+        }
+
+        private void buida() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) canal.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            buida();
+            canal.close();
+        }
+    }
+}
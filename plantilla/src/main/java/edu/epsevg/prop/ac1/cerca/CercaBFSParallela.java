@@ -0,0 +1,266 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.model.Tauler;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * BFS paral·lela per capes.
+ *
+ * Cada capa (tots els nodes d'una mateixa profunditat) es reparteix en trossos entre
+ * els fils d'un ForkJoinPool. Cada tros genera els seus successors en un fragment
+ * propi, i la duplicació es resol amb un ConjuntConcurrent d'estats empaquetats (qui
+ * insereix l'estat primer se'l queda). En acabar la capa els fragments es concatenen,
+ * en ordre, per formar la capa següent.
+ *
+ * La cerca s'atura a la primera capa que conté una meta, per tant la longitud del camí
+ * és la mateixa que la de CercaBFS. Sense LNT, cada successor es comprova contra la
+ * seva pròpia branca (a través dels pares de les capes anteriors).
+ *
+ * Amb la reducció d'ordre parcial (veure OrdreParcial), la restricció de cada node es
+ * desa al conjunt amb la profunditat, i els repetits de la mateixa capa la combinen
+ * atòmicament; sense LNT, es desa a la capa.
+ */
+public class CercaBFSParallela extends Cerca {
+
+    /** Nodes de la capa per tros (els trossos més petits no compensen el repartiment) */
+    private static final int MIDA_TROS = 1024;
+
+    private final int numFils;
+
+    /**
+     * Fa servir el ForkJoinPool comú
+     */
+    public CercaBFSParallela(boolean usarLNT) {
+        this(usarLNT, 0);
+    }
+
+    /**
+     * @param numFils paral·lelisme del ForkJoinPool propi de la cerca (0 = pool comú)
+     */
+    public CercaBFSParallela(boolean usarLNT, int numFils) {
+        super(usarLNT);
+        if (numFils < 0) throw new IllegalArgumentException("Nombre de fils negatiu");
+        this.numFils = numFils;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        ForkJoinPool pool = numFils == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(numFils);
+        try {
+            new Execucio(inicial, pool).executa(rc);
+        } finally {
+            if (numFils != 0) pool.shutdown();
+        }
+    }
+
+    /**
+     * Nodes d'una profunditat: estat empaquetat, índex del pare a la capa anterior i moviment
+     */
+    private static final class Capa {
+        long[] codis;
+        long[] codisAlt;
+        int[] pares;
+        byte[] moviments;
+        int[] restriccions; // només sense LNT i amb reducció d'ordre parcial
+        int mida;
+        int meta = -1; // primer node meta del fragment, -1 si no n'hi ha
+
+        Capa(int capacitat, boolean ambRestriccions) {
+            codis = new long[capacitat];
+            codisAlt = new long[capacitat];
+            pares = new int[capacitat];
+            moviments = new byte[capacitat];
+            if (ambRestriccions) restriccions = new int[capacitat];
+        }
+
+        void afegeix(long codi, long codiAlt, int pare, int moviment, int restriccio) {
+            if (mida == codis.length) {
+                int cap = Math.max(16, mida * 2);
+                codis = Arrays.copyOf(codis, cap);
+                codisAlt = Arrays.copyOf(codisAlt, cap);
+                pares = Arrays.copyOf(pares, cap);
+                moviments = Arrays.copyOf(moviments, cap);
+                if (restriccions != null) restriccions = Arrays.copyOf(restriccions, cap);
+            }
+            codis[mida] = codi;
+            codisAlt[mida] = codiAlt;
+            pares[mida] = pare;
+            moviments[mida] = (byte) moviment;
+            if (restriccions != null) restriccions[mida] = restriccio;
+            mida++;
+        }
+
+        /**
+         * Concatena els fragments en ordre
+         */
+        static Capa uneix(Capa[] fragments) {
+            int total = 0;
+            for (Capa f : fragments) total += f.mida;
+            Capa c = new Capa(total, fragments.length > 0 && fragments[0].restriccions != null);
+            for (Capa f : fragments) {
+                System.arraycopy(f.codis, 0, c.codis, c.mida, f.mida);
+                System.arraycopy(f.codisAlt, 0, c.codisAlt, c.mida, f.mida);
+                System.arraycopy(f.pares, 0, c.pares, c.mida, f.mida);
+                System.arraycopy(f.moviments, 0, c.moviments, c.mida, f.mida);
+                if (c.restriccions != null) System.arraycopy(f.restriccions, 0, c.restriccions, c.mida, f.mida);
+                if (c.meta < 0 && f.meta >= 0) c.meta = c.mida + f.meta;
+                c.mida += f.mida;
+            }
+            return c;
+        }
+    }
+
+    private final class Execucio {
+        final Tauler tauler;
+        final int numAgents;
+        final ForkJoinPool pool;
+        final List<Capa> capes = new ArrayList<>();
+        final ConjuntConcurrent visitats;
+        final boolean restriccionsACapa;
+
+        Execucio(Mapa inicial, ForkJoinPool pool) {
+            this.tauler = inicial.getTauler();
+            this.numAgents = inicial.getNumAgents();
+            this.pool = pool;
+            if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+            this.visitats = usarLNT ? new ConjuntConcurrent(1 << 10, usarOrdreParcial) : null;
+            this.restriccionsACapa = usarOrdreParcial && !usarLNT;
+            Capa arrel = new Capa(1, restriccionsACapa);
+            arrel.afegeix(inicial.getCodi(), inicial.getCodiAlt(), -1, 0, OrdreParcial.LLIURE);
+            if (inicial.esMeta()) arrel.meta = 0;
+            capes.add(arrel);
+            if (usarLNT) {
+                visitats.afegeix(inicial.getCodi(), inicial.getCodiAlt(), OrdreParcial.valor(0, OrdreParcial.LLIURE), null);
+            }
+        }
+
+        void executa(ResultatCerca rc) {
+            Capa actual = capes.get(0);
+            while (actual.meta < 0 && actual.mida > 0) {
+                if (usarLNT) visitats.reserva(actual.mida * numAgents * 4);
+
+                int numTrossos = (actual.mida + MIDA_TROS - 1) / MIDA_TROS;
+                Capa[] fragments = new Capa[numTrossos];
+                int[] tallats = new int[numTrossos];
+                Capa capa = actual;
+                int profunditat = capes.size() - 1;
+                pool.invoke(new Expandeix(capa, profunditat, fragments, tallats, 0, numTrossos));
+
+                rc.incNodesExplorats(actual.mida);
+                int t = 0;
+                for (int x : tallats) t += x;
+                rc.incNodesTallats(t);
+
+                actual = Capa.uneix(fragments);
+                capes.add(actual);
+                rc.updateMemoria(actual.mida + (usarLNT ? visitats.size() : 0));
+            }
+            rc.setCami(actual.meta >= 0 ? cami(actual.meta) : null);
+        }
+
+        /**
+         * Reparteix els trossos [de, fins) de la capa entre els fils
+         */
+        private final class Expandeix extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            final Capa capa;
+            final int profunditat;
+            final Capa[] fragments;
+            final int[] tallats;
+            final int de, fins;
+
+            Expandeix(Capa capa, int profunditat, Capa[] fragments, int[] tallats, int de, int fins) {
+                this.capa = capa;
+                this.profunditat = profunditat;
+                this.fragments = fragments;
+                this.tallats = tallats;
+                this.de = de;
+                this.fins = fins;
+            }
+
+            @Override
+            protected void compute() {
+                if (fins - de > 1) {
+                    int mig = (de + fins) >>> 1;
+                    invokeAll(new Expandeix(capa, profunditat, fragments, tallats, de, mig),
+                              new Expandeix(capa, profunditat, fragments, tallats, mig, fins));
+                    return;
+                }
+                int inici = de * MIDA_TROS, fi = Math.min(capa.mida, inici + MIDA_TROS);
+                Capa fragment = new Capa((fi - inici) * 2, restriccionsACapa);
+                BufferMoviments accions = new BufferMoviments();
+                int nTallats = 0;
+                for (int i = inici; i < fi; i++) {
+                    Mapa estat = Mapa.descodifica(tauler, numAgents, capa.codis[i], capa.codisAlt[i]);
+                    estat.generaMoviments(accions, restriccio(capa, i));
+                    for (int j = 0; j < accions.mida(); j++) {
+                        int codi = accions.get(j);
+                        Mapa fill = estat.mou(codi);
+                        long c = fill.getCodi(), ca = fill.getCodiAlt();
+                        int restriccio = OrdreParcial.restriccio(usarOrdreParcial, estat, codi);
+                        boolean nou;
+                        if (!usarLNT) {
+                            nou = !dinsDeLaBranca(profunditat, i, c, ca);
+                        } else if (usarOrdreParcial) {
+                            // Els repetits de la mateixa capa uneixen la restricció; els de capes
+                            // anteriors tenen la g menor i no canvien
+                            nou = visitats.afegeix(c, ca, OrdreParcial.valor(profunditat + 1, restriccio), OrdreParcial::combina);
+                        } else {
+                            nou = visitats.afegeix(c, ca);
+                        }
+                        if (!nou) {
+                            nTallats++;
+                            continue;
+                        }
+                        if (fragment.meta < 0 && fill.esMeta()) fragment.meta = fragment.mida;
+                        fragment.afegeix(c, ca, i, codi, restriccio);
+                    }
+                }
+                fragments[de] = fragment;
+                tallats[de] = nTallats;
+            }
+        }
+
+        /**
+         * @return la restricció d'ordre parcial del node de la capa
+         */
+        private int restriccio(Capa capa, int i) {
+            if (!usarOrdreParcial) return OrdreParcial.LLIURE;
+            if (!usarLNT) return capa.restriccions[i];
+            return OrdreParcial.restriccio(visitats.valor(capa.codis[i], capa.codisAlt[i]));
+        }
+
+        /**
+         * Comprova si l'estat apareix a la branca que va de l'arrel al node (profunditat, index)
+         */
+        private boolean dinsDeLaBranca(int profunditat, int index, long codi, long codiAlt) {
+            for (int p = profunditat, i = index; p >= 0; i = capes.get(p).pares[i], p--) {
+                Capa c = capes.get(p);
+                if (c.codis[i] == codi && c.codisAlt[i] == codiAlt) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Camí fins al node index de la darrera capa, seguint els pares capa a capa
+         */
+        private List<Moviment> cami(int index) {
+            Moviment[] cami = new Moviment[capes.size() - 1];
+            for (int p = cami.length, i = index; p > 0; i = capes.get(p).pares[i], p--) {
+                cami[p - 1] = Moviment.deCodi(capes.get(p).moviments[i] & 0xFF);
+            }
+            return Arrays.asList(cami);
+        }
+    }
+}
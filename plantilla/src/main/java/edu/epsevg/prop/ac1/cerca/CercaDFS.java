@@ -1,108 +1,134 @@
 package edu.epsevg.prop.ac1.cerca;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+import edu.epsevg.prop.ac1.model.BufferMoviments;
 import edu.epsevg.prop.ac1.model.Mapa;
 import edu.epsevg.prop.ac1.model.Moviment;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 
+/**
+ * Cerca en profunditat amb límit de profunditat.
+ *
+ * La pila és explícita i només conté la branca actual (un nivell per estat, amb els
+ * seus moviments pendents), de manera que la memòria de la cerca és la profunditat
+ * més la taula de transposició, que té mida fixa.
+ *
+ * Els estats de la branca es mantenen en un ConjuntCami que s'actualitza en empilar i
+ * desempilar: els cicles es tallen en O(1) amb o sense LNT. Amb LNT, a més, es fa
+ * servir una TaulaDosNivells (estat -> profunditat mínima) per tallar els estats ja
+ * explorats des d'una profunditat igual o menor. Com a IDA*, si la taula és molt més
+ * petita que el conjunt d'estats a l'abast del límit de profunditat, els reemplaçaments
+ * fan perdre poda i el nombre d'expansions creix ràpidament.
+ */
 public class CercaDFS extends Cerca {
     
     private static final int MAX_DEPTH = 50; // Límit de profunditat
+
+    /** Pressupost per defecte de la taula de transposició */
+    public static final long BYTES_TAULA_PER_DEFECTE = 16L << 20;
+
+    private final long bytesTaula;
     
     public CercaDFS(boolean usarLNT) { 
-        super(usarLNT); 
+        this(usarLNT, BYTES_TAULA_PER_DEFECTE);
+    }
+
+    /**
+     * @param bytesTaula memòria de la taula de transposició (només amb LNT)
+     */
+    public CercaDFS(boolean usarLNT, long bytesTaula) {
+        super(usarLNT);
+        this.bytesTaula = bytesTaula;
     }
 
     @Override
     public void ferCerca(Mapa inicial, ResultatCerca rc) {
-        // Stack per DFS (LIFO)
-        Deque<Node> stack = new ArrayDeque<>();
-        Map<Mapa, Integer> LNT = usarLNT ? new HashMap<>() : null;
-        
-        Node initialNode = new Node(inicial, null, null, 0, 0);
-        stack.push(initialNode);
-        
-        if (usarLNT) {
-            LNT.put(inicial, 0);
+        if (senseSolucio(inicial, rc)) return;
+        TaulaDosNivells taula = usarLNT ? new TaulaDosNivells(bytesTaula) : null;
+        ConjuntCami branca = new ConjuntCami(MAX_DEPTH + 1);
+
+        // Pila explícita: estat, moviments pendents i moviment d'entrada per nivell
+        Mapa[] estats = new Mapa[MAX_DEPTH + 1];
+        BufferMoviments[] accions = new BufferMoviments[MAX_DEPTH + 1];
+        int[] seguent = new int[MAX_DEPTH + 1];
+        int[] moviments = new int[MAX_DEPTH + 1];
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+
+        estats[0] = inicial;
+        branca.afegeix(inicial.getCodi(), inicial.getCodiAlt());
+        // Valor de la taula: profunditat i restricció d'ordre parcial (veure OrdreParcial)
+        if (usarLNT) taula.put(inicial.getCodi(), inicial.getCodiAlt(), inicial.getZobrist(), OrdreParcial.valor(0, OrdreParcial.LLIURE));
+        rc.incNodesExplorats();
+        if (inicial.esMeta()) {
+            rc.setCami(cami(moviments, 0));
+            return;
         }
-        
-        while (!stack.isEmpty()) {
-            Node current = stack.pop();
-            rc.incNodesExplorats();
-            
-            // Actualitzar memòria
-            int memoria = stack.size();
-            if (usarLNT) memoria += LNT.size();
-            rc.updateMemoria(memoria);
-            
-            // Comprovar meta
-            if (current.estat.esMeta()) {
-                rc.setCami(reconstruirCami(current));
-                return;
-            }
-            
-            // No expandir si ja hem arribat al límit
-            if (current.depth >= MAX_DEPTH) {
+        accions[0] = new BufferMoviments();
+        inicial.generaMoviments(accions[0]);
+
+        int d = 0;
+        while (d >= 0) {
+            // Nivell esgotat (o al límit de profunditat): desempilar
+            if (d == MAX_DEPTH || seguent[d] == accions[d].mida()) {
+                branca.treu(estats[d].getCodi(), estats[d].getCodiAlt());
+                estats[d] = null;
+                d--;
                 continue;
             }
-            
-            // Expandir
-            List<Moviment> accions = current.estat.getAccionsPossibles();
-            
-            // Processar en ordre invers per mantenir ordre DFS correcte
-            for (int i = accions.size() - 1; i >= 0; i--) {
-                Moviment accio = accions.get(i);
-                Mapa nouEstat = current.estat.mou(accio);
-                int nouDepth = current.depth + 1;
-                
-                boolean repetit = false;
-                
-                if (usarLNT) {
-                    if (LNT.containsKey(nouEstat)) {
-                        if (LNT.get(nouEstat) <= nouDepth) {
-                            repetit = true;
-                        } else {
-                            LNT.put(nouEstat, nouDepth);
-                        }
-                    } else {
-                        LNT.put(nouEstat, nouDepth);
-                    }
-                } else {
-                    repetit = estaDinsDelCami(current, nouEstat);
-                }
-                
-                if (repetit) {
-                    rc.incNodesTallats();
+            int codi = accions[d].get(seguent[d]++);
+            Mapa fill = estats[d].mou(codi);
+            int nouDepth = d + 1;
+            long c = fill.getCodi(), cAlt = fill.getCodiAlt();
+            int restriccio = OrdreParcial.restriccio(usarOrdreParcial, estats[d], codi);
+
+            boolean repetit = branca.conte(c, cAlt);
+            if (!repetit && usarLNT) {
+                int valor = OrdreParcial.valor(nouDepth, restriccio);
+                int anterior = taula.get(c, cAlt, fill.getZobrist());
+                if (anterior != TaulaLNT.ABSENT) valor = OrdreParcial.combina(anterior, valor);
+                if (valor == anterior) {
+                    repetit = true;
                 } else {
-                    stack.push(new Node(nouEstat, current, accio, nouDepth, 0));
+                    taula.put(c, cAlt, fill.getZobrist(), valor);
+                    restriccio = OrdreParcial.restriccio(valor);
                 }
             }
+            if (repetit) {
+                rc.incNodesTallats();
+                continue;
+            }
+
+            // Empilar el fill
+            d = nouDepth;
+            estats[d] = fill;
+            moviments[d] = codi;
+            branca.afegeix(c, cAlt);
+            rc.incNodesExplorats();
+            rc.updateMemoria(d + (usarLNT ? taula.size() : 0));
+
+            if (fill.esMeta()) {
+                rc.setCami(cami(moviments, d));
+                return;
+            }
+            if (d < MAX_DEPTH) {
+                if (accions[d] == null) accions[d] = new BufferMoviments();
+                fill.generaMoviments(accions[d], restriccio);
+            }
+            seguent[d] = 0;
         }
         
         // No trobat
         rc.setCami(null);
     }
-    
-    private List<Moviment> reconstruirCami(Node node) {
-        List<Moviment> cami = new ArrayList<>();
-        while (node.pare != null) {
-            cami.add(0, node.accio);
-            node = node.pare;
-        }
-        return cami;
-    }
-    
-    private boolean estaDinsDelCami(Node node, Mapa estat) {
-        while (node != null) {
-            if (node.estat.equals(estat)) return true;
-            node = node.pare;
-        }
-        return false;
+
+    /**
+     * @return els moviments d'entrada dels nivells 1..d
+     */
+    private static List<Moviment> cami(int[] moviments, int d) {
+        Moviment[] cami = new Moviment[d];
+        for (int i = 1; i <= d; i++) cami[i - 1] = Moviment.deCodi(moviments[i]);
+        return Arrays.asList(cami);
     }
 }
@@ -0,0 +1,392 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * A* paral·lel amb distribució per hash (HDA*).
+ *
+ * Cada estat pertany a un sol fil, triat per la seva clau Zobrist. Cada fil
+ * té la seva frontera, la seva LNT i la seva arena de nodes; els successors es
+ * calculen (amb la h) a qui expandeix i s'envien al fil propietari en lots, a través
+ * de cues sense bloqueig (una bústia per fil).
+ *
+ * Finalització:
+ *  - La millor solució trobada (incumbent, cost U) es comparteix atòmicament. Un node
+ *    només es dona per solució quan es treu de la frontera, i els nodes amb f >= U es
+ *    descarten (amb h admissible, no poden millorar U).
+ *  - Un comptador global de nodes pendents (enviats i encara no descartats o expandits,
+ *    incloent-hi els de les fronteres) arriba a 0 només quan no queda feina enlloc.
+ *    L'expansió hi suma els fills abans d'enviar-los i resta el pare en la mateixa
+ *    operació, de manera que el comptador no pot tocar 0 mentre hi hagi nodes en vol.
+ *  En acabar, U és el cost òptim.
+ *
+ * Un fil sense feina local ni lots a la bústia s'adorm (amb un temps màxim, per tornar a
+ * mirar el comptador); qui li envia un lot o acaba la cerca el desperta.
+ *
+ * La LNT distribuïda és la base del repartiment, per això la cerca sempre la fa servir.
+ */
+public class CercaHDAStar extends Cerca {
+
+    /** Registres per lot abans d'enviar-lo a la bústia del destinatari */
+    private static final int MIDA_LOT = 64;
+    /** Expansions entre buidats forçats dels lots parcials */
+    private static final int EXPANSIONS_PER_BUIDAT = 32;
+    /** Longs per registre: codi, codiAlt, zobrist, (pare << 32 | (restricció + 1) << 8 | moviment), (g << 32 | h) */
+    private static final int LONGS_REGISTRE = 5;
+    /** Temps màxim que un fil sense feina s'adorm abans de tornar a mirar si s'ha acabat */
+    private static final long ESPERA_INACTIU_NS = 100_000;
+
+    private final Heuristica heur;
+    private final int numFils;
+
+    /**
+     * Un fil per processador disponible
+     */
+    public CercaHDAStar(Heuristica heur) {
+        this(heur, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param numFils nombre de fils de treball (com a mínim 1)
+     */
+    public CercaHDAStar(Heuristica heur, int numFils) {
+        super(true);
+        if (numFils < 1) throw new IllegalArgumentException("Cal com a mínim un fil");
+        this.heur = heur;
+        this.numFils = numFils;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        Execucio cerca = new Execucio(inicial);
+        cerca.executa();
+
+        int explorats = 0, tallats = 0, memoria = 0;
+        for (Fil f : cerca.fils) {
+            explorats += f.explorats;
+            tallats += f.tallats;
+            memoria += f.memoriaPic;
+        }
+        rc.incNodesExplorats(explorats);
+        rc.incNodesTallats(tallats);
+        rc.updateMemoria(memoria);
+        rc.setCami(cerca.cami());
+    }
+
+    /**
+     * Estat compartit d'una execució
+     */
+    private final class Execucio {
+        final Mapa inicial;
+        final Fil[] fils;
+        final int bitsFil;
+        /** Nodes enviats encara no descartats ni expandits */
+        final AtomicLong pendents = new AtomicLong();
+        /** (U << 32) | referència del node meta; Long.MAX_VALUE si encara no n'hi ha */
+        final AtomicLong incumbent = new AtomicLong(Long.MAX_VALUE);
+        volatile boolean acabat;
+        volatile Throwable error;
+
+        Execucio(Mapa inicial) {
+            this.inicial = inicial;
+            this.bitsFil = 32 - Integer.numberOfLeadingZeros(Math.max(1, numFils - 1));
+            this.fils = new Fil[numFils];
+            for (int i = 0; i < numFils; i++) fils[i] = new Fil(this, i);
+        }
+
+        void executa() {
+            if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+            long codi = inicial.getCodi(), codiAlt = inicial.getCodiAlt(), zobrist = inicial.getZobrist();
+            pendents.set(1);
+            fils[propietari(zobrist)].bustia.add(new long[] {
+                codi, codiAlt, zobrist, ((long) ArenaNodes.SENSE_PARE << 32), heur.h(inicial) & 0xFFFFFFFFL
+            });
+
+            // Tots els fils es coneixen abans que cap comenci (per poder-los despertar)
+            for (int i = 0; i < numFils; i++) fils[i].thread = new Thread(fils[i], "hda-" + i);
+            for (Fil f : fils) f.thread.start();
+            boolean interromput = false;
+            for (Fil f : fils) {
+                while (true) {
+                    try {
+                        f.thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        // S'atura la cerca i s'espera igualment que els fils acabin
+                        interromput = true;
+                        atura();
+                    }
+                }
+            }
+            if (interromput) Thread.currentThread().interrupt();
+            Throwable e = error;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            if (e instanceof Error) throw (Error) e;
+        }
+
+        /**
+         * Marca la cerca com a acabada i desperta els fils adormits
+         */
+        void atura() {
+            acabat = true;
+            for (Fil f : fils) LockSupport.unpark(f.thread);
+        }
+
+        /**
+         * Només fa servir la meitat alta de la clau: la LNT de cada fil la plega amb la
+         * baixa, i els estats d'un mateix fil no queden agrupats a la taula
+         */
+        int propietari(long zobrist) {
+            return (int) ((zobrist >>> 32) % numFils);
+        }
+
+        int cost() {
+            long inc = incumbent.get();
+            return inc == Long.MAX_VALUE ? Integer.MAX_VALUE : (int) (inc >>> 32);
+        }
+
+        /**
+         * Registra una solució si millora l'actual
+         */
+        void solucio(int g, int ref) {
+            long nou = ((long) g << 32) | (ref & 0xFFFFFFFFL);
+            long actual;
+            do {
+                actual = incumbent.get();
+                if (actual != Long.MAX_VALUE && (int) (actual >>> 32) <= g) return;
+            } while (!incumbent.compareAndSet(actual, nou));
+        }
+
+        int referencia(int fil, int id) { return (id << bitsFil) | fil; }
+
+        /**
+         * Reconstrueix el camí seguint les referències de pare entre arenes (cridar amb els fils aturats)
+         */
+        List<Moviment> cami() {
+            long inc = incumbent.get();
+            if (inc == Long.MAX_VALUE) return null;
+            int mascaraFil = (1 << bitsFil) - 1;
+            int ref = (int) inc;
+            ArenaNodes arena = fils[ref & mascaraFil].arena;
+            Moviment[] cami = new Moviment[arena.depth(ref >>> bitsFil)];
+            for (int i = cami.length - 1; i >= 0; i--) {
+                arena = fils[ref & mascaraFil].arena;
+                int id = ref >>> bitsFil;
+                cami[i] = Moviment.deCodi(arena.moviment(id));
+                ref = arena.pare(id);
+            }
+            return Arrays.asList(cami);
+        }
+    }
+
+    /**
+     * Fil de treball: propietari d'una partició dels estats
+     */
+    private final class Fil implements Runnable {
+        final Execucio cerca;
+        final int index;
+        final ConcurrentLinkedQueue<long[]> bustia = new ConcurrentLinkedQueue<>();
+        Thread thread;
+        final ArenaNodes arena;
+        final TaulaLNT LNT = new TaulaLNT();
+        final BufferMoviments accions = new BufferMoviments();
+        Frontera frontera = new FronteraHeap();
+        int[] hs = new int[1024]; // h de cada node de l'arena (per saber-ne la f en treure'l)
+        int[] restriccions; // restricció d'ordre parcial de cada node (veure OrdreParcial)
+
+        // Lots de sortida, un per fil destinatari
+        final long[][] lots;
+        final int[] midesLots;
+        long descartsPendents; // descomptes del comptador global encara no aplicats
+
+        int explorats, tallats, memoriaPic;
+
+        Fil(Execucio cerca, int index) {
+            this.cerca = cerca;
+            this.index = index;
+            this.arena = new ArenaNodes(cerca.inicial);
+            this.lots = new long[numFils][MIDA_LOT * LONGS_REGISTRE];
+            this.midesLots = new int[numFils];
+            if (usarOrdreParcial) restriccions = new int[1024];
+        }
+
+        @Override
+        public void run() {
+            try {
+                treballa();
+            } catch (Throwable e) {
+                cerca.error = e;
+                cerca.atura();
+            }
+        }
+
+        private void treballa() {
+            int expansions = 0;
+            while (!cerca.acabat) {
+                rebre();
+                if (!frontera.isEmpty()) {
+                    int id = frontera.treu();
+                    int g = arena.g(id);
+                    if (g + hs[id] >= cerca.cost()) {
+                        // La resta de la frontera tampoc pot millorar la solució
+                        descartsPendents += 1 + frontera.size();
+                        tallats += 1 + frontera.size();
+                        frontera = new FronteraHeap();
+                    } else {
+                        expandeix(id, g);
+                        if (++expansions % EXPANSIONS_PER_BUIDAT == 0) buidaLots(1);
+                        continue;
+                    }
+                }
+                // Sense feina local: enviem tot el que tinguem i mirem si s'ha acabat
+                buidaLots(1);
+                aplicaDescarts();
+                if (cerca.pendents.get() == 0) {
+                    cerca.atura();
+                } else if (bustia.isEmpty()) {
+                    LockSupport.parkNanos(this, ESPERA_INACTIU_NS);
+                }
+            }
+        }
+
+        private void expandeix(int id, int g) {
+            Mapa actual = arena.estat(id);
+            explorats++;
+            int memoria = frontera.size() + LNT.size();
+            if (memoria > memoriaPic) memoriaPic = memoria;
+
+            if (actual.esMeta()) {
+                cerca.solucio(g, cerca.referencia(index, id));
+                cerca.pendents.decrementAndGet();
+                return;
+            }
+
+            actual.generaMoviments(accions, usarOrdreParcial ? restriccions[id] : OrdreParcial.LLIURE);
+            int n = accions.mida();
+            // Primer es compten els fills (i es resta el pare): fins aquí cap fill no ha sortit
+            cerca.pendents.addAndGet(n - 1);
+            long pare = (long) cerca.referencia(index, id) << 32;
+            int nouG = g + 1;
+            int cost = cerca.cost();
+            for (int i = 0; i < n; i++) {
+                int codi = accions.get(i);
+                Mapa fill = actual.mou(codi);
+                int h = heur.h(fill);
+                if (nouG + h >= cost) {
+                    tallats++;
+                    descartsPendents++;
+                    continue;
+                }
+                long c = fill.getCodi(), ca = fill.getCodiAlt(), z = fill.getZobrist();
+                long gh = ((long) nouG << 32) | (h & 0xFFFFFFFFL);
+                long mov = ((long) (OrdreParcial.restriccio(usarOrdreParcial, actual, codi) + 1) << 8) | codi;
+                int desti = cerca.propietari(z);
+                if (desti == index) {
+                    insereix(c, ca, z, pare | mov, gh);
+                } else {
+                    encua(desti, c, ca, z, pare | mov, gh);
+                }
+            }
+            buidaLots(MIDA_LOT);
+        }
+
+        private void encua(int desti, long codi, long codiAlt, long zobrist, long pareMov, long gh) {
+            long[] lot = lots[desti];
+            int j = midesLots[desti] * LONGS_REGISTRE;
+            if (j == lot.length) lots[desti] = lot = Arrays.copyOf(lot, lot.length * 2);
+            lot[j] = codi;
+            lot[j + 1] = codiAlt;
+            lot[j + 2] = zobrist;
+            lot[j + 3] = pareMov;
+            lot[j + 4] = gh;
+            midesLots[desti]++;
+        }
+
+        /**
+         * Envia els lots amb com a mínim minim registres
+         */
+        private void buidaLots(int minim) {
+            for (int d = 0; d < numFils; d++) {
+                int n = midesLots[d];
+                if (n == 0 || n < minim) continue;
+                Fil desti = cerca.fils[d];
+                desti.bustia.add(Arrays.copyOf(lots[d], n * LONGS_REGISTRE));
+                midesLots[d] = 0;
+                if (d != index) LockSupport.unpark(desti.thread);
+            }
+        }
+
+        private void aplicaDescarts() {
+            if (descartsPendents != 0) {
+                cerca.pendents.addAndGet(-descartsPendents);
+                descartsPendents = 0;
+            }
+        }
+
+        private void rebre() {
+            long[] lot;
+            while ((lot = bustia.poll()) != null) {
+                for (int j = 0; j < lot.length; j += LONGS_REGISTRE) {
+                    insereix(lot[j], lot[j + 1], lot[j + 2], lot[j + 3], lot[j + 4]);
+                }
+            }
+            aplicaDescarts();
+        }
+
+        /**
+         * Incorpora un node a la partició: nou, millora d'un conegut o duplicat
+         */
+        private void insereix(long codi, long codiAlt, long zobrist, long pareMov, long gh) {
+            int g = (int) (gh >>> 32), h = (int) gh;
+            int pare = (int) (pareMov >>> 32), mov = (int) pareMov & 0xFF;
+            int restriccio = ((int) pareMov >>> 8) - 1;
+            if (g + h >= cerca.cost()) {
+                tallats++;
+                descartsPendents++;
+                return;
+            }
+            int id = LNT.get(codi, codiAlt, zobrist);
+            if (id != TaulaLNT.ABSENT) {
+                int gAnterior = arena.g(id);
+                if (gAnterior == g && usarOrdreParcial
+                        && OrdreParcial.uneix(restriccions[id], restriccio) != restriccions[id]) {
+                    // Mateixa g per un camí incompatible: el node es torna a obrir sense podar
+                    restriccions[id] = OrdreParcial.LLIURE;
+                } else if (gAnterior <= g) {
+                    tallats++;
+                    descartsPendents++;
+                    return;
+                } else {
+                    arena.actualitza(id, pare, mov, g, g);
+                    if (usarOrdreParcial) restriccions[id] = restriccio;
+                }
+                if (frontera.millora(id, g + h, g)) {
+                    descartsPendents++; // ja hi era comptat
+                } else {
+                    frontera.afegeix(id, g + h, g);
+                }
+                return;
+            }
+            id = arena.afegeix(codi, codiAlt, pare, mov, g, g);
+            if (id == hs.length) hs = Arrays.copyOf(hs, hs.length * 2);
+            hs[id] = h;
+            if (usarOrdreParcial) {
+                if (id == restriccions.length) restriccions = Arrays.copyOf(restriccions, id * 2);
+                restriccions[id] = restriccio;
+            }
+            LNT.put(codi, codiAlt, zobrist, id);
+            frontera.afegeix(id, g + h, g);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * IDA*: profunditat iterativa amb llindar de f = g + h en lloc de profunditat.
+ * Cada iteració és una cerca en profunditat que talla els nodes amb f per sobre
+ * del llindar; el llindar següent és la f més petita que s'ha tallat. No hi ha
+ * límit d'iteracions: la cerca acaba quan troba la meta o quan no s'ha tallat cap
+ * node per f (no hi ha solució).
+ *
+ * La pila és explícita (arrays per nivell), de manera que la profunditat no depèn
+ * de la pila del fil.
+ *
+ * Amb LNT es fa servir una TaulaTransposicio de mida fixa que es conserva entre
+ * iteracions (veure visita() per la regla de poda). La taula hauria de poder
+ * contenir els estats de l'última iteració: si és molt més petita, els reemplaçaments
+ * fan perdre la poda de transposicions i el nombre d'expansions torna a créixer
+ * exponencialment (la solució continua sent òptima). Sense LNT, només es tallen els
+ * estats repetits dins de la branca actual.
+ */
+public class CercaIDAStar extends Cerca {
+
+    /** Pressupost per defecte de la taula de transposició */
+    public static final long BYTES_TAULA_PER_DEFECTE = 64L << 20;
+
+    private final Heuristica heur;
+    private final long bytesTaula;
+
+    public CercaIDAStar(boolean usarLNT, Heuristica heur) {
+        this(usarLNT, heur, BYTES_TAULA_PER_DEFECTE);
+    }
+
+    /**
+     * @param bytesTaula memòria de la taula de transposició (només amb LNT)
+     */
+    public CercaIDAStar(boolean usarLNT, Heuristica heur, long bytesTaula) {
+        super(usarLNT);
+        this.heur = heur;
+        this.bytesTaula = bytesTaula;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        TaulaTransposicio taula = usarLNT ? new TaulaTransposicio(bytesTaula) : null;
+
+        // Pila explícita: estat, moviments pendents i moviment d'entrada per nivell
+        Mapa[] estats = new Mapa[64];
+        BufferMoviments[] accions = new BufferMoviments[64];
+        int[] seguent = new int[64];
+        int[] moviments = new int[64];
+        if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+
+        int llindar = heur.h(inicial);
+        for (int iteracio = 1; ; iteracio++) {
+            int llindarSeguent = Integer.MAX_VALUE;
+            if (usarLNT) taula.visita(inicial.getCodi(), inicial.getCodiAlt(), inicial.getZobrist(), 0, iteracio);
+
+            estats[0] = inicial;
+            int d = 0;
+            rc.incNodesExplorats();
+            if (inicial.esMeta()) {
+                rc.setCami(cami(moviments, 0));
+                return;
+            }
+            if (accions[0] == null) accions[0] = new BufferMoviments();
+            inicial.generaMoviments(accions[0], OrdreParcial.LLIURE);
+            seguent[0] = 0;
+
+            while (d >= 0) {
+                if (seguent[d] == accions[d].mida()) {
+                    estats[d] = null;
+                    d--;
+                    continue;
+                }
+                int codi = accions[d].get(seguent[d]++);
+                Mapa fill = estats[d].mou(codi);
+                int g = d + 1;
+
+                int f = g + heur.h(fill);
+                if (f > llindar) {
+                    if (f < llindarSeguent) llindarSeguent = f;
+                    continue;
+                }
+                int restriccio = OrdreParcial.restriccio(usarOrdreParcial, estats[d], codi);
+                boolean repetit;
+                if (usarLNT) {
+                    restriccio = taula.visita(fill.getCodi(), fill.getCodiAlt(), fill.getZobrist(), g, restriccio, iteracio);
+                    repetit = restriccio == TaulaTransposicio.TALLAT;
+                } else {
+                    repetit = dinsDeLaBranca(estats, d, fill);
+                }
+                if (repetit) {
+                    rc.incNodesTallats();
+                    continue;
+                }
+
+                // Empilar el fill
+                d++;
+                if (d == estats.length) {
+                    int cap = d * 2;
+                    estats = Arrays.copyOf(estats, cap);
+                    accions = Arrays.copyOf(accions, cap);
+                    seguent = Arrays.copyOf(seguent, cap);
+                    moviments = Arrays.copyOf(moviments, cap);
+                }
+                estats[d] = fill;
+                moviments[d] = codi;
+                rc.incNodesExplorats();
+                rc.updateMemoria(d + (usarLNT ? taula.size() : 0));
+
+                if (fill.esMeta()) {
+                    rc.setCami(cami(moviments, d));
+                    return;
+                }
+                if (accions[d] == null) accions[d] = new BufferMoviments();
+                fill.generaMoviments(accions[d], restriccio);
+                seguent[d] = 0;
+            }
+
+            if (llindarSeguent == Integer.MAX_VALUE) break; // res tallat per f: no hi ha solució
+            llindar = llindarSeguent;
+        }
+
+        rc.setCami(null);
+    }
+
+    private static boolean dinsDeLaBranca(Mapa[] estats, int d, Mapa estat) {
+        for (int i = d; i >= 0; i--) {
+            if (estats[i].equals(estat)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return els moviments d'entrada dels nivells 1..d
+     */
+    private static List<Moviment> cami(int[] moviments, int d) {
+        Moviment[] cami = new Moviment[d];
+        for (int i = 1; i <= d; i++) cami[i - 1] = Moviment.deCodi(moviments[i]);
+        return Arrays.asList(cami);
+    }
+}
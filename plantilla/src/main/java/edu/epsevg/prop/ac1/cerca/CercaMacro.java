@@ -0,0 +1,193 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.Direccio;
+import edu.epsevg.prop.ac1.model.GrafMacro;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.model.Tauler;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * A* amb macro-moviments: cada operador porta un agent d'un punt de decisió a un
+ * altre seguint una aresta del GrafMacro, amb cost igual al nombre de passos.
+ *
+ * Un macro-moviment és vàlid si la cel·la destí no té cap altre agent i, si és una
+ * porta, es té la clau (l'interior de l'aresta mai té agents ni portes). La meta es
+ * comprova en treure el node de la frontera, com cal amb costos no unitaris, i el
+ * camí es torna a expandir en la llista exacta de Moviment.
+ *
+ * Amb un sol agent la solució és òptima (amb heurística admissible): tot camí es
+ * parteix pels punts de decisió. Amb diversos agents NO es garanteix l'òptim: només
+ * és òptima entre els plans on els agents s'aturen en punts de decisió, i un pla que
+ * necessiti que un agent s'aparti a mig passadís queda fora. Com que els agents són
+ * intercanviables (n'hi ha prou que un arribi a la sortida i les claus són de tots),
+ * sovint hi ha un pla igual de curt on un agent fa la feina de l'altre en lloc
+ * d'apartar-se. No està demostrat, però els tests ho comproven contra el BFS en mapes
+ * aleatoris de 2 a 4 agents; Main i els benchmarks ho marquen als mapes amb més d'un
+ * agent.
+ *
+ * La reducció d'ordre parcial (veure OrdreParcial) fa servir la mateixa regla que
+ * Mapa.podat amb les veïnes del graf en lloc de les del tauler: l'interior d'una aresta
+ * no té punts de decisió, de manera que dos macro-moviments d'agents diferents només
+ * interactuen si un acaba on l'altre comença o recull la clau de la porta de l'altre.
+ */
+public class CercaMacro extends Cerca {
+
+    private static final Direccio[] DIRECCIONS = Direccio.values();
+
+    private final Heuristica heur;
+
+    public CercaMacro(boolean usarLNT, Heuristica heur) {
+        super(usarLNT);
+        this.heur = heur;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        GrafMacro graf = new GrafMacro(inicial);
+        Tauler tauler = inicial.getTauler();
+        int k = inicial.getNumAgents();
+
+        FronteraHeap frontera = new FronteraHeap();
+        ArenaNodes arena = new ArenaNodes(inicial);
+        // Macro-moviment d'entrada de cada node: agent (0..k-1) + k * aresta
+        int[] macros = new int[1024];
+        TaulaLNT LNT = usarLNT ? new TaulaLNT() : null;
+        // Cel·la destí de l'últim macro-moviment de cada node (veure OrdreParcial)
+        int[] restriccions = usarOrdreParcial ? new int[1024] : null;
+
+        int idInicial = arena.afegeix(inicial, ArenaNodes.SENSE_PARE, 0, 0, 0);
+        frontera.afegeix(idInicial, heur.h(inicial), 0);
+        if (usarOrdreParcial) restriccions[idInicial] = OrdreParcial.LLIURE;
+        if (usarLNT) LNT.put(inicial, idInicial);
+
+        while (!frontera.isEmpty()) {
+            int idActual = frontera.treu();
+            Mapa actual = arena.estat(idActual);
+            int g = arena.g(idActual);
+            rc.incNodesExplorats();
+
+            int memoriaActual = frontera.size();
+            if (usarLNT) memoriaActual += LNT.size();
+            rc.updateMemoria(memoriaActual);
+
+            if (actual.esMeta()) {
+                rc.setCami(cami(inicial, graf, arena, macros, idActual));
+                return;
+            }
+
+            int ultima = usarOrdreParcial ? restriccions[idActual] : OrdreParcial.LLIURE;
+            for (int a = 0; a < k; a++) {
+                int origen = actual.getCellaAgent(a + 1);
+                for (int e = graf.primeraAresta(origen); e < graf.fiArestes(origen); e++) {
+                    int desti = graf.desti(e);
+                    if (!transitable(actual, tauler, desti)) continue;
+                    if (ultima != OrdreParcial.LLIURE && podat(graf, tauler, desti, ultima)) continue;
+                    Mapa nouEstat = actual.desplaca(a + 1, desti);
+                    int nouG = g + graf.cost(e);
+                    int novaDepth = arena.depth(idActual) + 1;
+
+                    if (usarLNT) {
+                        int idAnterior = LNT.get(nouEstat);
+                        if (idAnterior != TaulaLNT.ABSENT) {
+                            int gAnterior = arena.g(idAnterior);
+                            if (gAnterior == nouG && usarOrdreParcial
+                                    && OrdreParcial.uneix(restriccions[idAnterior], desti) != restriccions[idAnterior]) {
+                                // Mateixa g per un camí amb una altra restricció: es reobre sense podar
+                                restriccions[idAnterior] = OrdreParcial.LLIURE;
+                                int f = nouG + heur.h(nouEstat);
+                                if (!frontera.millora(idAnterior, f, nouG)) frontera.afegeix(idAnterior, f, nouG);
+                                rc.incNodesTallats();
+                            } else if (gAnterior <= nouG) {
+                                rc.incNodesTallats();
+                            } else {
+                                // Camí més curt: el node existent canvia de pare i de macro-moviment
+                                arena.actualitza(idAnterior, idActual, 0, nouG, novaDepth);
+                                macros[idAnterior] = a + k * e;
+                                if (usarOrdreParcial) restriccions[idAnterior] = desti;
+                                int f = nouG + heur.h(nouEstat);
+                                if (!frontera.millora(idAnterior, f, nouG)) frontera.afegeix(idAnterior, f, nouG);
+                            }
+                            continue;
+                        }
+                    } else if (arena.esDinsDelCami(idActual, nouEstat)) {
+                        rc.incNodesTallats();
+                        continue;
+                    }
+
+                    int id = arena.afegeix(nouEstat, idActual, 0, nouG, novaDepth);
+                    if (id == macros.length) macros = Arrays.copyOf(macros, id * 2);
+                    macros[id] = a + k * e;
+                    if (usarOrdreParcial) {
+                        if (id == restriccions.length) restriccions = Arrays.copyOf(restriccions, id * 2);
+                        restriccions[id] = desti;
+                    }
+                    frontera.afegeix(id, nouG + heur.h(nouEstat), nouG);
+                    if (usarLNT) LNT.put(nouEstat, id);
+                }
+            }
+        }
+
+        rc.setCami(null);
+    }
+
+    /**
+     * @return true si un agent pot acabar un macro-moviment a la cel·la
+     */
+    private static boolean transitable(Mapa estat, Tauler tauler, int cella) {
+        int cell = tauler.getCell(cella);
+        if (cell >= 'A' && cell <= 'Z' && (estat.getClausMask() & (1 << (cell - 'A'))) == 0) return false;
+        for (int a = 1; a <= estat.getNumAgents(); a++) {
+            if (estat.getCellaAgent(a) == cella) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Mapa.podat sobre el graf: el macro-moviment que acaba a desti es pot fer abans de
+     * l'últim (que ha acabat a ultima) si desti no n'és l'origen possible (una veïna de
+     * ultima al graf) ni la porta de la clau recollida a ultima
+     */
+    private static boolean podat(GrafMacro graf, Tauler tauler, int desti, int ultima) {
+        if (desti >= ultima) return false;
+        for (int e = graf.primeraAresta(ultima); e < graf.fiArestes(ultima); e++) {
+            if (graf.desti(e) == desti) return false;
+        }
+        int cell = tauler.getCell(ultima);
+        return !(cell >= 'a' && cell <= 'z' && tauler.getCell(desti) == cell - 'a' + 'A');
+    }
+
+    /**
+     * Expandeix els macro-moviments fins al node en la llista de moviments unitaris,
+     * tornant-los a aplicar des de l'inicial per saber quan es recull cada clau
+     */
+    private static List<Moviment> cami(Mapa inicial, GrafMacro graf, ArenaNodes arena, int[] macros, int id) {
+        int k = inicial.getNumAgents();
+        List<Integer> seq = new ArrayList<>();
+        for (int n = id; arena.pare(n) != ArenaNodes.SENSE_PARE; n = arena.pare(n)) seq.add(macros[n]);
+
+        Tauler tauler = inicial.getTauler();
+        List<Moviment> cami = new ArrayList<>(arena.g(id));
+        Mapa estat = inicial;
+        for (int i = seq.size() - 1; i >= 0; i--) {
+            int agentId = seq.get(i) % k + 1, aresta = seq.get(i) / k;
+            int cella = estat.getCellaAgent(agentId);
+            for (int p = 0; p < graf.cost(aresta); p++) {
+                int d = graf.direccio(aresta, p);
+                cella = tauler.veiTransitable(cella, d);
+                int cell = tauler.getCell(cella);
+                boolean recull = cell >= 'a' && cell <= 'z' && !estat.teClau((char) cell);
+                int codi = Moviment.codi(agentId, DIRECCIONS[d], recull);
+                cami.add(Moviment.deCodi(codi));
+                estat = estat.mou(codi);
+            }
+        }
+        return cami;
+    }
+}
@@ -0,0 +1,366 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * SMA* simplificat: A* amb un nombre màxim de nodes en memòria, fixat per un
+ * pressupost de bytes.
+ *
+ * Cada node recorda quins fills té en memòria, quins s'han oblidat i quins són
+ * morts (repetits o sense sortida), i la fPendent: la cota inferior de f dels fills
+ * que encara no són en memòria (la seva pròpia f mentre no s'ha expandit). La
+ * frontera ordena per fPendent (i a igual f, el més profund).
+ *
+ * Quan no queda lloc per un fill, s'oblida la pitjor fulla (f més gran, i a igual f
+ * la més superficial) i el seu valor es copia a la fPendent del pare, que torna a la
+ * frontera i la regenerarà quan sigui el millor candidat. Si només es pot fer lloc
+ * oblidant fulles millors que el fill, el fill no es desa i el seu valor queda a la
+ * fPendent del node expandit.
+ *
+ * La solució és òptima (amb heurística admissible) sempre que el camí òptim i els
+ * seus germans de frontera hi càpiguen; si el camí actual omple tota la memòria, els
+ * fills que no hi caben es donen per morts, com al SMA* original amb f infinita.
+ *
+ * Amb LNT, es tallen els fills repetits d'un node en memòria amb g igual o menor
+ * (si aquell node s'oblida, el seu pare el pot regenerar), i els nodes morts es
+ * queden en memòria com a fulles amb f infinita, les primeres a oblidar, perquè
+ * continuïn tallant repetits. Sense LNT, només es tallen els repetits dins de la
+ * branca i els nodes morts s'eliminen de seguida.
+ *
+ * Amb la reducció d'ordre parcial (veure OrdreParcial), els moviments podats es
+ * marquen com a morts i es recorden a part: si el node passa a ser LLIURE després
+ * d'haver-se expandit, tornen a ser pendents. Quan un node LLIURE s'oblida, en
+ * regenerar-lo torna a tenir la restricció del seu moviment d'entrada; com la resta
+ * de l'optimalitat, això només pot perdre solucions quan la memòria no hi cap.
+ */
+public class CercaSMAStar extends Cerca {
+
+    /** Pressupost per defecte */
+    public static final long BYTES_PER_DEFECTE = 256L << 20;
+
+    /**
+     * Bytes aproximats per node: camps del node (~80), entrades als dos heaps (32),
+     * llista lliure (4) i la seva part de la taula de repetits (~90)
+     */
+    public static final int BYTES_NODE = 206;
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int MAX_FILLS = 64;
+
+    private final Heuristica heur;
+    private final int capacitat;
+
+    public CercaSMAStar(boolean usarLNT, Heuristica heur) {
+        this(usarLNT, heur, BYTES_PER_DEFECTE);
+    }
+
+    /**
+     * @param bytes memòria màxima de la cerca (nodes, frontera i taula de repetits)
+     */
+    public CercaSMAStar(boolean usarLNT, Heuristica heur, long bytes) {
+        super(usarLNT);
+        this.heur = heur;
+        this.capacitat = (int) Math.max(2, Math.min(1 << 26, bytes / BYTES_NODE));
+    }
+
+    /**
+     * @return el nombre màxim de nodes en memòria
+     */
+    public int getCapacitat() { return capacitat; }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        if (senseSolucio(inicial, rc)) return;
+        new Execucio(inicial, rc).cerca();
+    }
+
+    /**
+     * Estat d'una cerca: els nodes viuen en arrays indexats per posició (slot) que
+     * es reaprofiten quan s'oblida un node.
+     */
+    private class Execucio {
+        private final Mapa inicial;
+        private final ResultatCerca rc;
+
+        private final long[] codis = new long[capacitat];
+        private final long[] codisAlt = new long[capacitat];
+        private final long[] zobrists;    // clau Zobrist de l'estat (només amb LNT)
+        private final int[] pares = new int[capacitat];
+        private final int[] moviments = new int[capacitat];
+        private final int[] gs = new int[capacitat];
+        private final int[] fPendents = new int[capacitat];
+        private final int[] depths = new int[capacitat];
+        private final byte[] indexFill = new byte[capacitat]; // índex del moviment dins del pare
+        private final byte[] numFills = new byte[capacitat];  // fills en memòria
+        private final boolean[] expandits = new boolean[capacitat];
+        private final long[] presents = new long[capacitat];  // per índex de moviment
+        private final long[] oblidats = new long[capacitat];
+        private final long[] morts = new long[capacitat];
+        private final int[] restriccions; // restricció d'ordre parcial (veure OrdreParcial)
+        private final long[] podats;      // moviments morts per la restricció
+
+        private final int[] lliures = new int[capacitat];
+        private int numLliures;
+        private int expandint = -1;
+
+        // Frontera: nodes amb fills pendents, per fPendent mínima i el més profund
+        private final HeapIndexat frontera = new HeapIndexat(capacitat, false);
+        // Fulles que es poden oblidar, per fPendent màxima i la més superficial
+        private final HeapIndexat fulles = new HeapIndexat(capacitat, true);
+        // Estat -> slot del node en memòria (només amb LNT)
+        private final TaulaLNT index;
+
+        // Candidats de l'expansió en curs
+        private final int[] candIndex = new int[MAX_FILLS];
+        private final int[] candMoviment = new int[MAX_FILLS];
+        private final int[] candF = new int[MAX_FILLS];
+        private final long[] candCodi = new long[MAX_FILLS];
+        private final long[] candCodiAlt = new long[MAX_FILLS];
+        private final long[] candZobrist = new long[MAX_FILLS];
+
+        Execucio(Mapa inicial, ResultatCerca rc) {
+            this.inicial = inicial;
+            this.rc = rc;
+            this.index = usarLNT ? new TaulaLNT(capacitat) : null;
+            this.zobrists = usarLNT ? new long[capacitat] : null;
+            this.restriccions = usarOrdreParcial ? new int[capacitat] : null;
+            this.podats = usarOrdreParcial ? new long[capacitat] : null;
+            for (int i = 0; i < capacitat; i++) lliures[i] = capacitat - 1 - i;
+            numLliures = capacitat;
+        }
+
+        void cerca() {
+            if (usarOrdreParcial) OrdreParcial.comprova(inicial);
+            BufferMoviments accions = new BufferMoviments();
+            int arrel = nouNode(inicial.getCodi(), inicial.getCodiAlt(), inicial.getZobrist(), ArenaNodes.SENSE_PARE, 0, 0, heur.h(inicial), 0);
+            if (usarOrdreParcial) restriccions[arrel] = OrdreParcial.LLIURE;
+
+            while (frontera.size() > 0) {
+                int b = frontera.primer();
+                Mapa estat = Mapa.descodifica(inicial.getTauler(), inicial.getNumAgents(), codis[b], codisAlt[b]);
+                if (!expandits[b] && estat.esMeta()) {
+                    rc.setCami(cami(b));
+                    return;
+                }
+                rc.incNodesExplorats();
+                fulles.treu(b); // no es pot oblidar mentre s'expandeix
+                expandint = b;
+
+                estat.generaMoviments(accions);
+                if (accions.mida() > MAX_FILLS) throw new IllegalStateException("Massa moviments per node");
+                int fBase = fPendents[b];
+                int numCand = 0;
+                for (int i = 0; i < accions.mida(); i++) {
+                    long bit = 1L << i;
+                    if (((presents[b] | morts[b]) & bit) != 0) continue;
+                    int codi = accions.get(i);
+                    // Els índexs dels fills són els de la llista completa: els podats es
+                    // marquen com a morts
+                    if (usarOrdreParcial && restriccions[b] != OrdreParcial.LLIURE
+                            && estat.podat(estat.desti(codi), restriccions[b])) {
+                        morts[b] |= bit;
+                        podats[b] |= bit;
+                        continue;
+                    }
+                    Mapa fill = estat.mou(codi);
+                    long c = fill.getCodi(), cAlt = fill.getCodiAlt();
+                    int nouG = gs[b] + 1;
+                    if (repetit(b, fill, OrdreParcial.restriccio(usarOrdreParcial, estat, codi), nouG)) {
+                        morts[b] |= bit;
+                        oblidats[b] &= ~bit;
+                        rc.incNodesTallats();
+                        continue;
+                    }
+                    // Un fill oblidat valia com a mínim la fPendent del pare (pathmax)
+                    int f = Math.max(nouG + heur.h(fill), fBase);
+                    int j = numCand++;
+                    while (j > 0 && candF[j - 1] > f) {
+                        copiaCandidat(j - 1, j);
+                        j--;
+                    }
+                    candIndex[j] = i;
+                    candMoviment[j] = codi;
+                    candF[j] = f;
+                    candCodi[j] = c;
+                    candCodiAlt[j] = cAlt;
+                    candZobrist[j] = fill.getZobrist();
+                }
+                expandits[b] = true;
+                fPendents[b] = INF;
+
+                for (int j = 0; j < numCand; j++) {
+                    if (numLliures == 0 && !fesLloc(b, candF[j])) {
+                        if (fulles.size() == 0) {
+                            // Tota la memòria és la branca: aquests fills no hi caben mai
+                            for (int r = j; r < numCand; r++) morts[b] |= 1L << candIndex[r];
+                            rc.incNodesTallats(numCand - j);
+                        } else {
+                            fPendents[b] = Math.min(fPendents[b], candF[j]);
+                        }
+                        break;
+                    }
+                    long bit = 1L << candIndex[j];
+                    if ((oblidats[b] & bit) != 0) {
+                        oblidats[b] &= ~bit;
+                        rc.incNodesRegenerats();
+                    }
+                    int n = nouNode(candCodi[j], candCodiAlt[j], candZobrist[j], b, candMoviment[j], gs[b] + 1, candF[j], candIndex[j]);
+                    if (usarOrdreParcial) restriccions[n] = estat.desti(candMoviment[j]);
+                }
+
+                expandint = -1;
+                if (fPendents[b] == INF) frontera.treu(b);
+                else frontera.posa(b, clau(b));
+                if (numFills[b] == 0 && b != arrel) {
+                    if (fPendents[b] != INF || usarLNT) fulles.posa(b, clau(b));
+                    else elimina(b, false);
+                }
+            }
+
+            rc.setCami(null);
+        }
+
+        private boolean repetit(int pare, Mapa fill, int restriccio, int nouG) {
+            long c = fill.getCodi(), cAlt = fill.getCodiAlt();
+            if (usarLNT) {
+                int anterior = index.get(c, cAlt, fill.getZobrist());
+                if (anterior == TaulaLNT.ABSENT || gs[anterior] > nouG) return false;
+                if (usarOrdreParcial && gs[anterior] == nouG
+                        && OrdreParcial.uneix(restriccions[anterior], restriccio) != restriccions[anterior]) {
+                    allibera(anterior, nouG + heur.h(fill));
+                }
+                return true;
+            }
+            for (int n = pare; n != ArenaNodes.SENSE_PARE; n = pares[n]) {
+                if (codis[n] == c && codisAlt[n] == cAlt) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Treu la restricció d'ordre parcial d'un node assolit per un altre camí amb la
+         * mateixa g. Si ja s'havia expandit, els moviments podats tornen a ser pendents,
+         * amb la seva f com a cota
+         */
+        private void allibera(int n, int f) {
+            restriccions[n] = OrdreParcial.LLIURE;
+            if (!expandits[n] || podats[n] == 0) return;
+            morts[n] &= ~podats[n];
+            podats[n] = 0;
+            fPendents[n] = Math.min(fPendents[n], f);
+            frontera.posa(n, clau(n));
+            if (fulles.conte(n)) fulles.posa(n, clau(n));
+        }
+
+        /**
+         * Oblida la pitjor fulla si és pitjor que un fill de b amb valor f.
+         * Una fulla germana amb la mateixa f no es canvia per una altra.
+         * @return true si ha quedat un slot lliure
+         */
+        private boolean fesLloc(int b, int f) {
+            int v = fulles.primer();
+            if (v < 0) return false;
+            if (fPendents[v] < f || (fPendents[v] == f && pares[v] == b)) return false;
+            elimina(v, fPendents[v] != INF);
+            return true;
+        }
+
+        private int nouNode(long c, long cAlt, long zobrist, int pare, int codiMoviment, int g, int f, int idx) {
+            int n = lliures[--numLliures];
+            codis[n] = c;
+            codisAlt[n] = cAlt;
+            pares[n] = pare;
+            moviments[n] = codiMoviment;
+            gs[n] = g;
+            fPendents[n] = f;
+            depths[n] = pare == ArenaNodes.SENSE_PARE ? 0 : depths[pare] + 1;
+            indexFill[n] = (byte) idx;
+            numFills[n] = 0;
+            expandits[n] = false;
+            presents[n] = oblidats[n] = morts[n] = 0;
+            if (usarOrdreParcial) podats[n] = 0;
+            if (usarLNT) {
+                zobrists[n] = zobrist;
+                index.put(c, cAlt, zobrist, n);
+            }
+            frontera.posa(n, clau(n));
+            if (pare != ArenaNodes.SENSE_PARE) {
+                presents[pare] |= 1L << idx;
+                numFills[pare]++;
+                fulles.posa(n, clau(n));
+            }
+            rc.updateMemoria(capacitat - numLliures);
+            return n;
+        }
+
+        /**
+         * Treu de memòria una fulla. Si s'oblida, el seu valor passa a la fPendent del
+         * pare; si és morta, el pare ja no la regenerarà. En tots dos casos, si el pare
+         * es queda sense fills passa a ser fulla (o es mor, si no li queda res pendent).
+         */
+        private void elimina(int n, boolean oblidat) {
+            for (;;) {
+                int p = pares[n];
+                long bit = 1L << indexFill[n];
+                if (usarLNT && index.get(codis[n], codisAlt[n], zobrists[n]) == n) index.treu(codis[n], codisAlt[n], zobrists[n]);
+                frontera.treu(n);
+                fulles.treu(n);
+                lliures[numLliures++] = n;
+
+                presents[p] &= ~bit;
+                numFills[p]--;
+                if (oblidat) {
+                    oblidats[p] |= bit;
+                    fPendents[p] = Math.min(fPendents[p], fPendents[n]);
+                    frontera.posa(p, clau(p));
+                    rc.incNodesOblidats();
+                } else {
+                    morts[p] |= bit;
+                }
+                // El node en expansió decideix el seu estat en acabar
+                if (numFills[p] > 0 || pares[p] == ArenaNodes.SENSE_PARE || p == expandint) return;
+                if (fPendents[p] != INF || usarLNT) {
+                    fulles.posa(p, clau(p));
+                    return;
+                }
+                // El pare ja no té res pendent: també és mort
+                n = p;
+                oblidat = false;
+            }
+        }
+
+        private void copiaCandidat(int de, int a) {
+            candIndex[a] = candIndex[de];
+            candMoviment[a] = candMoviment[de];
+            candF[a] = candF[de];
+            candCodi[a] = candCodi[de];
+            candCodiAlt[a] = candCodiAlt[de];
+            candZobrist[a] = candZobrist[de];
+        }
+
+        /**
+         * Clau de la frontera i de les fulles: fPendent i, a igual f, la profunditat
+         * (invertida, perquè a la frontera surti primer el més profund i a les fulles
+         * el més superficial)
+         */
+        private long clau(int n) {
+            return ((long) fPendents[n] << 32) | (Integer.MAX_VALUE - depths[n]);
+        }
+
+        private List<Moviment> cami(int n) {
+            Moviment[] cami = new Moviment[depths[n]];
+            for (int i = cami.length - 1; i >= 0; i--) {
+                cami[i] = Moviment.deCodi(moviments[n]);
+                n = pares[n];
+            }
+            return Arrays.asList(cami);
+        }
+    }
+}
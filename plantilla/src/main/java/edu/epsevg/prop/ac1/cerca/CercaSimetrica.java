@@ -0,0 +1,71 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+
+/**
+ * Reducció per simetria: els agents són intercanviables (qualsevol pot recollir claus,
+ * obrir portes o arribar a la sortida), de manera que dos estats que només difereixen
+ * per una permutació dels agents tenen les mateixes solucions.
+ *
+ * Embolcalla qualsevol cerca i la fa córrer des de la forma canònica de l'estat inicial
+ * (Mapa.ambSimetria): tots els estats que genera guarden els agents ordenats per cel·la,
+ * i la LNT, les taules de transposició i els fitxers de capes ja els tracten com un
+ * únic estat. Amb k agents en cel·les diferents, l'espai d'estats es divideix fins a k!.
+ *
+ * El camí que retorna la cerca interna fa servir els índexs de l'ordre canònic de cada
+ * estat; al final es torna a aplicar des de l'inicial i cada moviment es tradueix a
+ * l'agent real que ocupa la cel·la d'origen.
+ */
+public class CercaSimetrica extends Cerca {
+
+    private final Cerca cerca;
+
+    /**
+     * @param cerca la cerca que es fa sobre els estats canònics (fa servir la seva usarLNT)
+     */
+    public CercaSimetrica(Cerca cerca) {
+        super(cerca.usarLNT);
+        this.cerca = cerca;
+    }
+
+    /**
+     * La reducció d'ordre parcial la fa la cerca interna
+     */
+    @Override
+    public Cerca ordreParcial(boolean usar) {
+        cerca.ordreParcial(usar);
+        return this;
+    }
+
+    @Override
+    public void ferCerca(Mapa inicial, ResultatCerca rc) {
+        Mapa canonic = inicial.ambSimetria();
+        cerca.ferCerca(canonic, rc);
+        if (rc.getCami() != null) rc.setCami(camiReal(inicial, canonic, rc.getCami()));
+    }
+
+    /**
+     * Tradueix un camí sobre estats canònics als identificadors reals dels agents
+     * @param inicial l'estat inicial amb els agents en l'ordre original
+     * @param canonic la forma canònica de l'inicial
+     * @param cami els moviments, cadascun relatiu a l'ordre canònic de l'estat on s'aplica
+     */
+    static List<Moviment> camiReal(Mapa inicial, Mapa canonic, List<Moviment> cami) {
+        List<Moviment> res = new ArrayList<>(cami.size());
+        Mapa real = inicial, estat = canonic;
+        for (Moviment acc : cami) {
+            int codi = acc.getCodi();
+            int agent = real.agentA(estat.getCellaAgent(acc.getAgentId()));
+            int codiReal = Moviment.ambAgent(codi, agent);
+            res.add(Moviment.deCodi(codiReal));
+            estat = estat.mou(codi);
+            real = real.mou(codiReal);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+/**
+ * Conjunt dels estats empaquetats de la branca actual d'una cerca en profunditat.
+ * S'hi afegeix l'estat en empilar-lo i se'n treu en desempilar-lo, de manera que
+ * saber si un estat és a la branca és O(1) en lloc de recórrer els pares.
+ *
+ * Adreçament obert amb sondeig lineal; l'esborrat desplaça enrere les entrades
+ * següents del mateix grup (sense làpides).
+ */
+public class ConjuntCami {
+    private long[] claus;
+    private long[] clausAlt;
+    private boolean[] ocupat;
+    private int mida;
+
+    public ConjuntCami() {
+        this(64);
+    }
+
+    /**
+     * @param profunditat profunditat màxima esperada de la branca
+     */
+    public ConjuntCami(int profunditat) {
+        assigna(Integer.highestOneBit(Math.max(8, profunditat * 2 - 1)) << 1);
+    }
+
+    private void assigna(int cap) {
+        claus = new long[cap];
+        clausAlt = new long[cap];
+        ocupat = new boolean[cap];
+    }
+
+    public int size() { return mida; }
+
+    public boolean conte(long codi, long codiAlt) {
+        int mascara = ocupat.length - 1;
+        for (int i = TaulaLNT.hash(codi, codiAlt) & mascara; ocupat[i]; i = (i + 1) & mascara) {
+            if (claus[i] == codi && clausAlt[i] == codiAlt) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Afegeix l'estat (que no hi ha de ser)
+     */
+    public void afegeix(long codi, long codiAlt) {
+        if ((mida + 1) * 2 > ocupat.length) creix();
+        int mascara = ocupat.length - 1;
+        int i = TaulaLNT.hash(codi, codiAlt) & mascara;
+        while (ocupat[i]) i = (i + 1) & mascara;
+        claus[i] = codi;
+        clausAlt[i] = codiAlt;
+        ocupat[i] = true;
+        mida++;
+    }
+
+    /**
+     * Treu l'estat si hi és
+     */
+    public void treu(long codi, long codiAlt) {
+        int mascara = ocupat.length - 1;
+        int i = TaulaLNT.hash(codi, codiAlt) & mascara;
+        while (ocupat[i] && !(claus[i] == codi && clausAlt[i] == codiAlt)) i = (i + 1) & mascara;
+        if (!ocupat[i]) return;
+        ocupat[i] = false;
+        mida--;
+        // Desplaçament enrere: recol·loca les entrades que depenien del forat
+        for (int j = (i + 1) & mascara; ocupat[j]; j = (j + 1) & mascara) {
+            int ideal = TaulaLNT.hash(claus[j], clausAlt[j]) & mascara;
+            // l'entrada j es pot moure al forat i si i és entre la seva posició ideal i j
+            if (((j - ideal) & mascara) >= ((j - i) & mascara)) {
+                claus[i] = claus[j];
+                clausAlt[i] = clausAlt[j];
+                ocupat[i] = true;
+                ocupat[j] = false;
+                i = j;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(ocupat, false);
+        mida = 0;
+    }
+
+    private void creix() {
+        long[] vellesClaus = claus, vellesClausAlt = clausAlt;
+        boolean[] vellOcupat = ocupat;
+        assigna(ocupat.length * 2);
+        mida = 0;
+        for (int j = 0; j < vellOcupat.length; j++) {
+            if (vellOcupat[j]) afegeix(vellesClaus[j], vellesClausAlt[j]);
+        }
+    }
+}
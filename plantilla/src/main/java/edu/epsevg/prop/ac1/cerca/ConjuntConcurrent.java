@@ -0,0 +1,168 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Conjunt d'estats empaquetats (long, long) per inserir des de diversos fils alhora,
+ * sense bloquejos: adreçament obert amb sondeig lineal on cada cel·la es reclama
+ * amb un CAS sobre el seu indicador d'estat (BUIDA -> ESCRIVINT -> PLENA).
+ * Només qui troba una cel·la a mig escriure espera, el parell d'escriptures que la completen.
+ *
+ * La capacitat no creix durant les insercions concurrents: qui el fa servir ha de
+ * cridar reserva() en un punt on cap fil hi insereixi (p.ex. entre capes d'una BFS).
+ *
+ * Opcionalment, cada estat pot portar un valor enter que les insercions repetides
+ * combinen atòmicament amb el desat.
+ */
+public class ConjuntConcurrent {
+    private static final int BUIDA = 0;
+    private static final int ESCRIVINT = 1;
+    private static final int PLENA = 2;
+
+    private long[] claus;
+    private long[] clausAlt;
+    private AtomicIntegerArray estats;
+    private AtomicIntegerArray valors; // null si el conjunt no en porta
+    private final LongAdder mida = new LongAdder();
+
+    public ConjuntConcurrent() {
+        this(1 << 10);
+    }
+
+    /**
+     * @param capacitat nombre aproximat d'entrades esperades
+     */
+    public ConjuntConcurrent(int capacitat) {
+        this(capacitat, false);
+    }
+
+    /**
+     * @param capacitat nombre aproximat d'entrades esperades
+     * @param ambValors true si cada estat porta un valor (veure afegeix(long, long, int, IntBinaryOperator))
+     */
+    public ConjuntConcurrent(int capacitat, boolean ambValors) {
+        assigna(Integer.highestOneBit(Math.max(16, capacitat * 2 - 1)) << 1, ambValors);
+    }
+
+    private void assigna(int cap, boolean ambValors) {
+        claus = new long[cap];
+        clausAlt = new long[cap];
+        estats = new AtomicIntegerArray(cap);
+        valors = ambValors ? new AtomicIntegerArray(cap) : null;
+    }
+
+    /**
+     * Assegura lloc per a n insercions més amb factor de càrrega raonable.
+     * No es pot cridar mentre altres fils hi insereixen.
+     */
+    public void reserva(int n) {
+        long ocupades = mida.sum();
+        long necessaria = (ocupades + n) * 4 / 3 + 1;
+        long cap = claus.length;
+        while (cap < necessaria || ocupades >= cap / 2) cap <<= 1;
+        if (cap == claus.length) return;
+        if (cap > 1 << 30) throw new IllegalStateException("Conjunt massa gran");
+        long[] vellesClaus = claus, vellesClausAlt = clausAlt;
+        AtomicIntegerArray vellsEstats = estats, vellsValors = valors;
+        assigna((int) cap, vellsValors != null);
+        int mascara = claus.length - 1;
+        for (int j = 0; j < vellsEstats.length(); j++) {
+            if (vellsEstats.get(j) != PLENA) continue;
+            int i = TaulaLNT.hash(vellesClaus[j], vellesClausAlt[j]) & mascara;
+            while (estats.get(i) != BUIDA) i = (i + 1) & mascara;
+            claus[i] = vellesClaus[j];
+            clausAlt[i] = vellesClausAlt[j];
+            if (valors != null) valors.lazySet(i, vellsValors.get(j));
+            estats.lazySet(i, PLENA);
+        }
+    }
+
+    /**
+     * @return el nombre d'estats
+     */
+    public int size() { return (int) mida.sum(); }
+
+    /**
+     * Insereix l'estat si no hi era.
+     * @return true si l'ha inserit aquest fil, false si ja hi era
+     */
+    public boolean afegeix(long codi, long codiAlt) {
+        return afegeix(codi, codiAlt, 0, null);
+    }
+
+    /**
+     * Insereix l'estat amb el valor si no hi era; si hi era, el seu valor passa a ser
+     * combina(desat, valor).
+     * @param combina la funció de combinació (null per no tocar el valor desat)
+     * @return true si l'ha inserit aquest fil, false si ja hi era
+     */
+    public boolean afegeix(long codi, long codiAlt, int valor, IntBinaryOperator combina) {
+        int mascara = claus.length - 1;
+        int i = TaulaLNT.hash(codi, codiAlt) & mascara;
+        for (int intents = 0; intents <= mascara; intents++) {
+            int e = estats.get(i);
+            if (e == BUIDA) {
+                if (estats.compareAndSet(i, BUIDA, ESCRIVINT)) {
+                    claus[i] = codi;
+                    clausAlt[i] = codiAlt;
+                    if (valors != null) valors.lazySet(i, valor);
+                    estats.set(i, PLENA); // publica les claus i el valor
+                    mida.increment();
+                    return true;
+                }
+                e = estats.get(i);
+            }
+            // Un altre fil hi està escrivint: cal saber quina clau hi deixa
+            while (e == ESCRIVINT) {
+                Thread.onSpinWait();
+                e = estats.get(i);
+            }
+            if (claus[i] == codi && clausAlt[i] == codiAlt) {
+                if (combina != null) valors.accumulateAndGet(i, valor, combina);
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        throw new IllegalStateException("Conjunt ple: cal reservar abans d'inserir");
+    }
+
+    /**
+     * @return el valor de l'estat, o TaulaLNT.ABSENT si no hi és
+     */
+    public int valor(long codi, long codiAlt) {
+        int mascara = claus.length - 1;
+        int i = TaulaLNT.hash(codi, codiAlt) & mascara;
+        for (int intents = 0; intents <= mascara; intents++) {
+            int e = estats.get(i);
+            if (e == BUIDA) return TaulaLNT.ABSENT;
+            while (e == ESCRIVINT) {
+                Thread.onSpinWait();
+                e = estats.get(i);
+            }
+            if (claus[i] == codi && clausAlt[i] == codiAlt) return valors.get(i);
+            i = (i + 1) & mascara;
+        }
+        return TaulaLNT.ABSENT;
+    }
+
+    /**
+     * @return true si l'estat hi és
+     */
+    public boolean conte(long codi, long codiAlt) {
+        int mascara = claus.length - 1;
+        int i = TaulaLNT.hash(codi, codiAlt) & mascara;
+        for (int intents = 0; intents <= mascara; intents++) {
+            int e = estats.get(i);
+            if (e == BUIDA) return false;
+            while (e == ESCRIVINT) {
+                Thread.onSpinWait();
+                e = estats.get(i);
+            }
+            if (claus[i] == codi && clausAlt[i] == codiAlt) return true;
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+}
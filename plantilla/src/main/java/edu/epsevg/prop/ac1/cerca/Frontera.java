@@ -0,0 +1,29 @@
+package edu.epsevg.prop.ac1.cerca;
+
+/**
+ * Llista oberta ordenada per f (menor primer) per les cerques informades.
+ * Treballa amb identificadors enters de node: qui la fa servir guarda els
+ * nodes a part i només hi insereix l'id amb les claus d'ordenació (f, g).
+ */
+public interface Frontera {
+    /**
+     * Insereix un node que no és a la frontera
+     */
+    void afegeix(int id, int f, int g);
+
+    /**
+     * Rebaixa la f (decrease-key) d'un node que ja és a la frontera.
+     * @return false si el node no hi era (ja s'havia tret)
+     */
+    boolean millora(int id, int f, int g);
+
+    /**
+     * Treu el node de menor f. Els empats es desfan a favor de la g més gran.
+     * @return l'id del node
+     */
+    int treu();
+
+    boolean isEmpty();
+
+    int size();
+}
@@ -0,0 +1,105 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+/**
+ * Frontera per cubetes indexades per f. Com que tots els moviments costen 1 i
+ * les heurístiques són enteres, f és un enter petit i acotat: afegir i treure
+ * són O(1) amortitzat en lloc de l'O(log n) del heap.
+ *
+ * Cada cubeta es divideix en subcubetes per g i es buida per la de g més gran,
+ * com demana Frontera.treu(); dins d'una subcubeta l'ordre és LIFO. millora()
+ * és mandrosa: el node s'afegeix a la subcubeta nova i l'entrada vella es
+ * descarta quan surt.
+ */
+public class FronteraCubetes implements Frontera {
+    private int[][][] cubetes = new int[64][][]; // f -> g -> ids
+    private int[][] mides = new int[64][];
+    private int[] entrades = new int[64];        // entrades de cada f, obsoletes incloses
+    private int[] maxG = new int[64];            // cap subcubeta de la f per sobre té entrades
+    private int minF = Integer.MAX_VALUE; // cap cubeta per sota de minF té nodes vius
+    private int mida;
+
+    private int[] fActual = new int[1024]; // (f, g) vigents de cada id
+    private int[] gActual = new int[1024];
+    private boolean[] enCua = new boolean[1024];
+
+    @Override
+    public void afegeix(int id, int f, int g) {
+        asseguraId(id);
+        fActual[id] = f;
+        gActual[id] = g;
+        enCua[id] = true;
+        mida++;
+        empila(f, g, id);
+    }
+
+    @Override
+    public boolean millora(int id, int f, int g) {
+        if (id >= enCua.length || !enCua[id]) return false;
+        fActual[id] = f;
+        gActual[id] = g;
+        empila(f, g, id);
+        return true;
+    }
+
+    @Override
+    public int treu() {
+        while (true) {
+            while (entrades[minF] == 0) minF++;
+            int f = minF, g = maxG[f];
+            while (mides[f][g] == 0) g--;
+            maxG[f] = g;
+            entrades[f]--;
+            int id = cubetes[f][g][--mides[f][g]];
+            // descartar entrades obsoletes (el node ja ha sortit o s'ha millorat)
+            if (enCua[id] && fActual[id] == f && gActual[id] == g) {
+                enCua[id] = false;
+                mida--;
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() { return mida == 0; }
+
+    @Override
+    public int size() { return mida; }
+
+    private void empila(int f, int g, int id) {
+        if (f >= cubetes.length) {
+            int cap = Math.max(f + 1, cubetes.length << 1);
+            cubetes = Arrays.copyOf(cubetes, cap);
+            mides = Arrays.copyOf(mides, cap);
+            entrades = Arrays.copyOf(entrades, cap);
+            maxG = Arrays.copyOf(maxG, cap);
+        }
+        if (cubetes[f] == null) {
+            cubetes[f] = new int[Math.max(g + 1, 16)][];
+            mides[f] = new int[cubetes[f].length];
+        } else if (g >= cubetes[f].length) {
+            int cap = Math.max(g + 1, cubetes[f].length << 1);
+            cubetes[f] = Arrays.copyOf(cubetes[f], cap);
+            mides[f] = Arrays.copyOf(mides[f], cap);
+        }
+        int[] c = cubetes[f][g];
+        if (c == null) {
+            c = cubetes[f][g] = new int[16];
+        } else if (mides[f][g] == c.length) {
+            c = cubetes[f][g] = Arrays.copyOf(c, c.length << 1);
+        }
+        c[mides[f][g]++] = id;
+        entrades[f]++;
+        if (g > maxG[f]) maxG[f] = g;
+        if (f < minF) minF = f;
+    }
+
+    private void asseguraId(int id) {
+        if (id < enCua.length) return;
+        int cap = Math.max(id + 1, enCua.length << 1);
+        fActual = Arrays.copyOf(fActual, cap);
+        gActual = Arrays.copyOf(gActual, cap);
+        enCua = Arrays.copyOf(enCua, cap);
+    }
+}
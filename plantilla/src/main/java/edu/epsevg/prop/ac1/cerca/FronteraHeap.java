@@ -0,0 +1,104 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+/**
+ * Frontera implementada com a heap binari indexat: per cada id recorda la seva
+ * posició al heap, de manera que millora() és O(log n) sense deixar duplicats.
+ * Les claus (f, g) es desen en arrays primitius indexats per id.
+ */
+public class FronteraHeap implements Frontera {
+    private int[] heap = new int[1024];
+    private int mida;
+    private int[] pos = new int[1024]; // posició de cada id dins del heap (-1 si no hi és)
+    private int[] fs = new int[1024];
+    private int[] gs = new int[1024];
+
+    public FronteraHeap() {
+        Arrays.fill(pos, -1);
+    }
+
+    @Override
+    public void afegeix(int id, int f, int g) {
+        asseguraId(id);
+        if (mida == heap.length) heap = Arrays.copyOf(heap, mida << 1);
+        fs[id] = f;
+        gs[id] = g;
+        heap[mida] = id;
+        pos[id] = mida;
+        puja(mida++);
+    }
+
+    @Override
+    public boolean millora(int id, int f, int g) {
+        if (id >= pos.length || pos[id] < 0) return false;
+        fs[id] = f;
+        gs[id] = g;
+        puja(pos[id]);
+        return true;
+    }
+
+    @Override
+    public int treu() {
+        int id = heap[0];
+        pos[id] = -1;
+        if (--mida > 0) {
+            heap[0] = heap[mida];
+            pos[heap[0]] = 0;
+            baixa(0);
+        }
+        return id;
+    }
+
+    @Override
+    public boolean isEmpty() { return mida == 0; }
+
+    @Override
+    public int size() { return mida; }
+
+    /**
+     * @return true si el node a té més prioritat que b (f menor, i a igual f, g major)
+     */
+    private boolean abans(int a, int b) {
+        if (fs[a] != fs[b]) return fs[a] < fs[b];
+        return gs[a] > gs[b];
+    }
+
+    private void puja(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!abans(id, heap[p])) break;
+            heap[i] = heap[p];
+            pos[heap[i]] = i;
+            i = p;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void baixa(int i) {
+        int id = heap[i];
+        while (true) {
+            int fill = 2 * i + 1;
+            if (fill >= mida) break;
+            if (fill + 1 < mida && abans(heap[fill + 1], heap[fill])) fill++;
+            if (!abans(heap[fill], id)) break;
+            heap[i] = heap[fill];
+            pos[heap[i]] = i;
+            i = fill;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void asseguraId(int id) {
+        if (id < pos.length) return;
+        int cap = Math.max(id + 1, pos.length << 1);
+        int vella = pos.length;
+        pos = Arrays.copyOf(pos, cap);
+        Arrays.fill(pos, vella, cap, -1);
+        fs = Arrays.copyOf(fs, cap);
+        gs = Arrays.copyOf(gs, cap);
+    }
+}
@@ -0,0 +1,101 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+/**
+ * Heap binari indexat d'ids amb clau long, de mida fixa. A diferència de
+ * FronteraHeap, permet canviar la clau en tots dos sentits i treure un id
+ * qualsevol, i pot ordenar per clau mínima o màxima.
+ */
+public class HeapIndexat {
+    private final boolean maxim;
+    private final int[] heap;
+    private final int[] pos; // posició de cada id dins del heap (-1 si no hi és)
+    private final long[] claus;
+    private int mida;
+
+    /**
+     * @param capacitat els ids van de 0 a capacitat - 1
+     * @param maxim true si primer() ha de retornar la clau més gran
+     */
+    public HeapIndexat(int capacitat, boolean maxim) {
+        this.maxim = maxim;
+        this.heap = new int[capacitat];
+        this.pos = new int[capacitat];
+        this.claus = new long[capacitat];
+        Arrays.fill(pos, -1);
+    }
+
+    public int size() { return mida; }
+
+    public boolean conte(int id) { return pos[id] >= 0; }
+
+    /**
+     * @return l'id amb més prioritat, o -1 si és buit
+     */
+    public int primer() { return mida == 0 ? -1 : heap[0]; }
+
+    /**
+     * Afegeix l'id o, si ja hi és, li canvia la clau
+     */
+    public void posa(int id, long clau) {
+        if (pos[id] < 0) {
+            claus[id] = clau;
+            heap[mida] = id;
+            pos[id] = mida;
+            puja(mida++);
+            return;
+        }
+        long vella = claus[id];
+        claus[id] = clau;
+        if (abans(clau, vella)) puja(pos[id]);
+        else baixa(pos[id]);
+    }
+
+    /**
+     * Treu l'id si hi és
+     */
+    public void treu(int id) {
+        int i = pos[id];
+        if (i < 0) return;
+        pos[id] = -1;
+        if (--mida == i) return;
+        int ultim = heap[mida];
+        heap[i] = ultim;
+        pos[ultim] = i;
+        puja(i);
+        if (pos[ultim] == i) baixa(i);
+    }
+
+    private boolean abans(long a, long b) {
+        return maxim ? a > b : a < b;
+    }
+
+    private void puja(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!abans(claus[id], claus[heap[p]])) break;
+            heap[i] = heap[p];
+            pos[heap[i]] = i;
+            i = p;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void baixa(int i) {
+        int id = heap[i];
+        while (true) {
+            int fill = 2 * i + 1;
+            if (fill >= mida) break;
+            if (fill + 1 < mida && abans(claus[heap[fill + 1]], claus[heap[fill]])) fill++;
+            if (!abans(claus[heap[fill]], claus[id])) break;
+            heap[i] = heap[fill];
+            pos[heap[i]] = i;
+            i = fill;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+}
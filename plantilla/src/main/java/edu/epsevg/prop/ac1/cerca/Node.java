@@ -15,12 +15,23 @@ public class Node {
     public final Moviment accio;
     public final int depth;
     public final int g; // cost
+    public final int h; // valor heurístic (calculat un sol cop en generar el node)
 
     public Node(Mapa estat, Node pare, Moviment accio, int depth, int g) {
+        this(estat, pare, accio, depth, g, 0);
+    }
+
+    public Node(Mapa estat, Node pare, Moviment accio, int depth, int g, int h) {
         this.estat = estat;
         this.pare = pare;
         this.accio = accio;
         this.depth = depth;
         this.g = g;
+        this.h = h;
     }
+
+    /**
+     * @return f = g + h
+     */
+    public int f() { return g + h; }
 }
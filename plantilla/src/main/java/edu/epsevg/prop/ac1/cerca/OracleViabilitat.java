@@ -0,0 +1,150 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Tauler;
+
+/**
+ * Oracle de viabilitat: decideix si des d'un estat es pot arribar mai a la sortida.
+ *
+ * Relaxa el problema ignorant les col·lisions entre agents: amb una màscara de claus,
+ * cada agent arriba a tota la regió del tauler on és (parets i portes sense clau
+ * tancades), hi recull totes les claus i, amb les portes que obren, la regió creix.
+ * Les claus són compartides, així que es repeteix per tots els agents fins que la
+ * màscara no canvia. Si cap agent no té la sortida a la seva regió final, l'estat no
+ * té solució. Com que la relaxació només afegeix camins, un estat viable pot no tenir
+ * solució, però un d'inviable segur que no en té.
+ *
+ * Les regions es calculen una vegada per màscara (flood fill, O(n·m)) i el tancament
+ * d'una regió es desa per (regió, màscara), de manera que la comprovació de l'estat
+ * inicial costa com a molt O(n·m·claus).
+ *
+ * Els moviments són reversibles i les claus no es perden, de manera que tots els
+ * estats assolibles des d'un d'inviable també ho són, i al revés: n'hi ha prou amb
+ * comprovar l'estat inicial (veure Cerca.senseSolucio).
+ */
+public final class OracleViabilitat {
+    private static final Map<Tauler, OracleViabilitat> ORACLES = new WeakHashMap<>();
+
+    private final Tauler tauler;
+    private final ConcurrentHashMap<Integer, Regions> regions = new ConcurrentHashMap<>();
+    // (màscara << 32 | regió) -> (màscara final << 1 | sortida assolible)
+    private final ConcurrentHashMap<Long, Long> tancaments = new ConcurrentHashMap<>();
+
+    private OracleViabilitat(Tauler tauler) {
+        this.tauler = tauler;
+    }
+
+    /**
+     * @return l'oracle del tauler (se'n crea un per tauler i es conserva mentre el tauler existeixi)
+     */
+    public static OracleViabilitat de(Tauler tauler) {
+        synchronized (ORACLES) {
+            return ORACLES.computeIfAbsent(tauler, OracleViabilitat::new);
+        }
+    }
+
+    /**
+     * @return false si segur que des de l'estat no es pot arribar a la sortida
+     */
+    public boolean viable(Mapa estat) {
+        if (estat.esMeta()) return true;
+        // Les claus que no són al tauler no es poden recollir ni obren res de nou
+        int mascara = estat.getClausMask() & tauler.getClausPresents();
+        for (;;) {
+            Regions r = regions(mascara);
+            int nova = mascara;
+            for (int a = 1; a <= estat.getNumAgents(); a++) {
+                nova |= (int) (tancament(mascara, r.etiquetes[estat.getCellaAgent(a)]) >>> 1);
+            }
+            if (nova == mascara) break;
+            mascara = nova;
+        }
+        Regions r = regions(mascara);
+        for (int a = 1; a <= estat.getNumAgents(); a++) {
+            if (r.sortida[r.etiquetes[estat.getCellaAgent(a)]]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tancament d'una regió tota sola: recull les claus de la regió i torna a etiquetar
+     * amb les portes que obren fins que la màscara no canvia
+     * @return (màscara final << 1 | 1 si la regió final conté la sortida)
+     */
+    private long tancament(int mascara, int regio) {
+        long clau = (long) mascara << 32 | regio;
+        Long desat = tancaments.get(clau);
+        if (desat != null) return desat;
+        // Qualsevol cel·la de la regió serveix de representant
+        int cella = regions(mascara).representants[regio];
+        int m = mascara;
+        Regions r;
+        for (;;) {
+            r = regions(m);
+            int nova = m | r.claus[r.etiquetes[cella]];
+            if (nova == m) break;
+            m = nova;
+        }
+        long resultat = (long) m << 1 | (r.sortida[r.etiquetes[cella]] ? 1 : 0);
+        tancaments.put(clau, resultat);
+        return resultat;
+    }
+
+    private Regions regions(int mascara) {
+        return regions.computeIfAbsent(mascara, m -> new Regions(tauler, m));
+    }
+
+    /**
+     * Components connexes del tauler amb les portes de les claus de la màscara obertes.
+     */
+    private static final class Regions {
+        final int[] etiquetes;     // cel·la -> regió; -1 per parets i portes tancades
+        final int[] representants; // regió -> una cel·la de la regió
+        final int[] claus;         // regió -> màscara de les claus que hi ha
+        final boolean[] sortida;   // regió -> conté la sortida
+
+        Regions(Tauler t, int mascara) {
+            int nc = t.getNumCelles();
+            etiquetes = new int[nc];
+            Arrays.fill(etiquetes, -1);
+            int[] cua = new int[nc];
+            int[] reps = new int[nc], cls = new int[nc];
+            boolean[] sort = new boolean[nc];
+            int num = 0;
+            for (int s = 0; s < nc; s++) {
+                if (etiquetes[s] >= 0 || !transitable(t, s, mascara)) continue;
+                int cap = 0, fi = 0;
+                cua[fi++] = s;
+                etiquetes[s] = num;
+                reps[num] = s;
+                while (cap < fi) {
+                    int c = cua[cap++];
+                    int cell = t.getCell(c);
+                    if (cell >= 'a' && cell <= 'z') cls[num] |= 1 << (cell - 'a');
+                    if (cell == Mapa.SORTIDA) sort[num] = true;
+                    for (int d = 0; d < 4; d++) {
+                        int v = t.veiTransitable(c, d);
+                        if (v < 0 || etiquetes[v] >= 0 || !transitable(t, v, mascara)) continue;
+                        etiquetes[v] = num;
+                        cua[fi++] = v;
+                    }
+                }
+                num++;
+            }
+            representants = Arrays.copyOf(reps, num);
+            claus = Arrays.copyOf(cls, num);
+            sortida = Arrays.copyOf(sort, num);
+        }
+
+        private static boolean transitable(Tauler t, int c, int mascara) {
+            int cell = t.getCell(c);
+            if (cell == Mapa.PARET) return false;
+            return !(cell >= 'A' && cell <= 'Z') || (mascara & (1 << (cell - 'A'))) != 0;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+
+/**
+ * Reducció d'ordre parcial per als moviments de diversos agents.
+ *
+ * Dos moviments consecutius d'agents diferents que no interactuen (veure Mapa.podat)
+ * es poden fer en qualsevol ordre i porten al mateix estat. Cada node té una
+ * restricció, la cel·la on ha acabat el seu últim moviment, i no genera els moviments
+ * independents que acaben a una cel·la menor. Qualsevol camí es pot reordenar
+ * intercanviant parells independents (sense canviar-ne la longitud ni l'estat final)
+ * fins que cap parell consecutiu no quedi podat, de manera que sempre queda un camí
+ * òptim sense podar.
+ *
+ * Com que la poda depèn del camí, la detecció de repetits n'ha de tenir en compte la
+ * restricció: un repetit amb una g més gran es talla com sempre, però si arriba amb la
+ * mateixa g i una restricció diferent, el node passa a ser LLIURE i s'ha d'expandir
+ * sense podar (o tornar-se a expandir, si ja ho estava).
+ *
+ * Les taules que desen un enter per estat hi guarden (g, restricció) empaquetats.
+ */
+final class OrdreParcial {
+    /** Restricció que no poda res (l'arrel, o un estat assolit per camins incompatibles) */
+    static final int LLIURE = -1;
+
+    private static final int BITS_RESTRICCIO = 16;
+    private static final int MASCARA_RESTRICCIO = (1 << BITS_RESTRICCIO) - 1;
+
+    private OrdreParcial() {}
+
+    /**
+     * @return la restricció del node generat amb el codi des de l'estat, si la reducció
+     *         és activa; LLIURE altrament
+     */
+    static int restriccio(boolean activa, Mapa estat, int codi) {
+        return activa ? estat.desti(codi) : LLIURE;
+    }
+
+    /**
+     * @return la restricció d'un estat assolit amb la mateixa g per dos camins
+     */
+    static int uneix(int r1, int r2) {
+        return r1 == r2 ? r1 : LLIURE;
+    }
+
+    /**
+     * @return el valor empaquetat (g, restricció); creix amb la g
+     */
+    static int valor(int g, int restriccio) {
+        return (g << BITS_RESTRICCIO) | (restriccio + 1);
+    }
+
+    static int g(int valor) { return valor >>> BITS_RESTRICCIO; }
+
+    static int restriccio(int valor) { return (valor & MASCARA_RESTRICCIO) - 1; }
+
+    /**
+     * Combina el valor desat d'un estat amb el d'una arribada nova: es queda la g
+     * menor i, a igual g, la unió de les restriccions.
+     * Si el resultat és el valor desat, l'arribada és redundant.
+     */
+    static int combina(int desat, int nou) {
+        int gDesada = g(desat), gNova = g(nou);
+        if (gDesada != gNova) return gDesada < gNova ? desat : nou;
+        return valor(gDesada, uneix(restriccio(desat), restriccio(nou)));
+    }
+
+    /**
+     * Comprova que les cel·les del tauler caben al valor empaquetat
+     */
+    static void comprova(Mapa inicial) {
+        if (inicial.getTauler().getNumCelles() >= MASCARA_RESTRICCIO) {
+            throw new IllegalStateException("Tauler massa gran per a la reducció d'ordre parcial");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.epsevg.prop.ac1.cerca;
+
+/**
+ * Taula de transposició de mida fixa per a la DFS: estat empaquetat -> profunditat
+ * mínima amb què s'ha vist.
+ *
+ * Cada posició té dues entrades (esquema de dos nivells):
+ *  - preferent: es queda l'estat més proper a l'arrel, que és el que talla el
+ *    subarbre més gran quan es torna a trobar;
+ *  - sempre: rep qualsevol estat nou que no mereix la preferent (o la preferent
+ *    desplaçada).
+ * Perdre entrades només fa perdre poda.
+ *
+ * La posició d'un estat surt de la seva clau Zobrist (veure Mapa.getZobrist).
+ */
+public class TaulaDosNivells {
+    /** Bytes per entrada: codi, codiAlt i profunditat */
+    public static final int BYTES_ENTRADA = 20;
+
+    private final long[] claus;
+    private final long[] clausAlt;
+    private final int[] depths; // profunditat + 1; 0 = buida
+    private final int mascara;  // sobre les posicions (parells d'entrades)
+    private int mida;
+
+    /**
+     * @param bytes pressupost de memòria; es fa servir la potència de 2 de posicions
+     *              més gran que hi cap
+     */
+    public TaulaDosNivells(long bytes) {
+        long posicions = Math.max(1, bytes / (2 * BYTES_ENTRADA));
+        int n = (int) Math.min(1 << 26, Long.highestOneBit(posicions));
+        this.claus = new long[n * 2];
+        this.clausAlt = new long[n * 2];
+        this.depths = new int[n * 2];
+        this.mascara = n - 1;
+    }
+
+    /**
+     * @return el nombre d'entrades ocupades
+     */
+    public int size() { return mida; }
+
+    /**
+     * @return la profunditat desada per l'estat, o TaulaLNT.ABSENT si no hi és
+     */
+    public int get(long codi, long codiAlt, long zobrist) {
+        int i = (TaulaLNT.hash(zobrist) & mascara) * 2;
+        for (int j = i; j < i + 2; j++) {
+            if (depths[j] != 0 && claus[j] == codi && clausAlt[j] == codiAlt) return depths[j] - 1;
+        }
+        return TaulaLNT.ABSENT;
+    }
+
+    /**
+     * Desa (o actualitza) la profunditat de l'estat
+     */
+    public void put(long codi, long codiAlt, long zobrist, int depth) {
+        int pref = (TaulaLNT.hash(zobrist) & mascara) * 2, sempre = pref + 1;
+        for (int j = pref; j <= sempre; j++) {
+            if (depths[j] != 0 && claus[j] == codi && clausAlt[j] == codiAlt) {
+                depths[j] = depth + 1;
+                return;
+            }
+        }
+        if (depths[pref] == 0 || depth + 1 <= depths[pref]) {
+            // El nou estat mereix la preferent: l'anterior baixa a la sempre
+            if (depths[pref] != 0) {
+                if (depths[sempre] == 0) mida++;
+                claus[sempre] = claus[pref];
+                clausAlt[sempre] = clausAlt[pref];
+                depths[sempre] = depths[pref];
+            } else {
+                mida++;
+            }
+            claus[pref] = codi;
+            clausAlt[pref] = codiAlt;
+            depths[pref] = depth + 1;
+        } else {
+            if (depths[sempre] == 0) mida++;
+            claus[sempre] = codi;
+            clausAlt[sempre] = codiAlt;
+            depths[sempre] = depth + 1;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+
+/**
+ * Llista de nodes tancats (LNT) com a taula hash d'adreçament obert
+ * estat empaquetat (long, long) -> int.
+ *
+ * No crea cap objecte per entrada: les claus i els valors viuen en arrays
+ * primitius paral·lels i les col·lisions es resolen amb sondeig lineal.
+ * Les entrades buides es marquen amb el valor ABSENT.
+ *
+ * La posició d'un estat surt de la seva clau Zobrist (Mapa.getZobrist), que l'estat
+ * ja porta calculada, i cada entrada en desa 32 bits: el sondeig descarta les altres
+ * entrades sense comparar els codis i el redimensionament no recalcula cap hash.
+ * Les versions sense clau Zobrist fan servir hash(codi, codiAlt); una mateixa taula
+ * s'ha d'omplir i consultar sempre amb la mateixa mena de clau.
+ */
+public class TaulaLNT {
+    /** Valor retornat per get() quan l'estat no hi és (no es pot desar) */
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    private static final int CAPACITAT_INICIAL = 1 << 10;
+
+    private long[] claus;
+    private long[] clausAlt;
+    private int[] hashos;
+    private int[] valors;
+    private int mida;
+    private int llindar;
+
+    public TaulaLNT() {
+        this(CAPACITAT_INICIAL);
+    }
+
+    /**
+     * @param capacitat nombre aproximat d'entrades esperades
+     */
+    public TaulaLNT(int capacitat) {
+        int cap = Integer.highestOneBit(Math.max(16, capacitat * 2 - 1)) << 1;
+        reserva(cap);
+    }
+
+    private void reserva(int cap) {
+        claus = new long[cap];
+        clausAlt = new long[cap];
+        hashos = new int[cap];
+        valors = new int[cap];
+        Arrays.fill(valors, ABSENT);
+        llindar = cap >> 1; // factor de càrrega 0.5
+    }
+
+    /**
+     * @return el nombre d'estats desats
+     */
+    public int size() { return mida; }
+
+    /**
+     * Buida la taula conservant la capacitat reservada
+     */
+    public void clear() {
+        Arrays.fill(valors, ABSENT);
+        mida = 0;
+    }
+
+    /**
+     * @return el valor desat per l'estat, o ABSENT si no hi és
+     */
+    public int get(Mapa estat) {
+        return get(estat.getCodi(), estat.getCodiAlt(), estat.getZobrist());
+    }
+
+    /**
+     * Desa (o sobreescriu) el valor associat a l'estat
+     */
+    public void put(Mapa estat, int valor) {
+        put(estat.getCodi(), estat.getCodiAlt(), estat.getZobrist(), valor);
+    }
+
+    /**
+     * @return el valor desat per l'estat empaquetat (codi, codiAlt), o ABSENT si no hi és
+     */
+    public int get(long codi, long codiAlt) {
+        return buscar(codi, codiAlt, hash(codi, codiAlt));
+    }
+
+    /**
+     * Desa (o sobreescriu) el valor associat a l'estat empaquetat (codi, codiAlt)
+     */
+    public void put(long codi, long codiAlt, int valor) {
+        desar(codi, codiAlt, hash(codi, codiAlt), valor);
+    }
+
+    /**
+     * Esborra l'estat empaquetat (codi, codiAlt) si hi és
+     */
+    public void treu(long codi, long codiAlt) {
+        esborrar(codi, codiAlt, hash(codi, codiAlt));
+    }
+
+    /**
+     * @param zobrist la clau Zobrist de l'estat (veure Mapa.getZobrist)
+     * @return el valor desat per l'estat empaquetat (codi, codiAlt), o ABSENT si no hi és
+     */
+    public int get(long codi, long codiAlt, long zobrist) {
+        return buscar(codi, codiAlt, hash(zobrist));
+    }
+
+    /**
+     * Desa (o sobreescriu) el valor associat a l'estat empaquetat (codi, codiAlt)
+     * @param zobrist la clau Zobrist de l'estat (veure Mapa.getZobrist)
+     */
+    public void put(long codi, long codiAlt, long zobrist, int valor) {
+        desar(codi, codiAlt, hash(zobrist), valor);
+    }
+
+    /**
+     * Esborra l'estat empaquetat (codi, codiAlt) si hi és
+     * @param zobrist la clau Zobrist de l'estat (veure Mapa.getZobrist)
+     */
+    public void treu(long codi, long codiAlt, long zobrist) {
+        esborrar(codi, codiAlt, hash(zobrist));
+    }
+
+    private int buscar(long codi, long codiAlt, int h) {
+        int mascara = valors.length - 1;
+        int i = h & mascara;
+        while (valors[i] != ABSENT) {
+            if (hashos[i] == h && claus[i] == codi && clausAlt[i] == codiAlt) return valors[i];
+            i = (i + 1) & mascara;
+        }
+        return ABSENT;
+    }
+
+    private void desar(long codi, long codiAlt, int h, int valor) {
+        if (valor == ABSENT) throw new IllegalArgumentException("Valor reservat");
+        int mascara = valors.length - 1;
+        int i = h & mascara;
+        while (valors[i] != ABSENT) {
+            if (hashos[i] == h && claus[i] == codi && clausAlt[i] == codiAlt) {
+                valors[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claus[i] = codi;
+        clausAlt[i] = codiAlt;
+        hashos[i] = h;
+        valors[i] = valor;
+        if (++mida > llindar) redimensiona();
+    }
+
+    /**
+     * Les entrades següents del mateix grup es desplacen enrere, de manera que no
+     * calen làpides.
+     */
+    private void esborrar(long codi, long codiAlt, int h) {
+        int mascara = valors.length - 1;
+        int i = h & mascara;
+        while (valors[i] != ABSENT && !(hashos[i] == h && claus[i] == codi && clausAlt[i] == codiAlt)) i = (i + 1) & mascara;
+        if (valors[i] == ABSENT) return;
+        valors[i] = ABSENT;
+        mida--;
+        for (int j = (i + 1) & mascara; valors[j] != ABSENT; j = (j + 1) & mascara) {
+            int ideal = hashos[j] & mascara;
+            // l'entrada j es pot moure al forat i si i és entre la seva posició ideal i j
+            if (((j - ideal) & mascara) >= ((j - i) & mascara)) {
+                claus[i] = claus[j];
+                clausAlt[i] = clausAlt[j];
+                hashos[i] = hashos[j];
+                valors[i] = valors[j];
+                valors[j] = ABSENT;
+                i = j;
+            }
+        }
+    }
+
+    private void redimensiona() {
+        long[] vellesClaus = claus;
+        long[] vellesClausAlt = clausAlt;
+        int[] vellsHashos = hashos;
+        int[] vellsValors = valors;
+        reserva(valors.length << 1);
+        int mascara = valors.length - 1;
+        for (int j = 0; j < vellsValors.length; j++) {
+            if (vellsValors[j] == ABSENT) continue;
+            int i = vellsHashos[j] & mascara;
+            while (valors[i] != ABSENT) i = (i + 1) & mascara;
+            claus[i] = vellesClaus[j];
+            clausAlt[i] = vellesClausAlt[j];
+            hashos[i] = vellsHashos[j];
+            valors[i] = vellsValors[j];
+        }
+    }
+
+    /**
+     * Barreja els dos longs (finalitzador de MurmurHash3) perquè els bits alts
+     * també influeixin en l'índex de la taula.
+     */
+    static int hash(long codi, long codiAlt) {
+        long h = codi ^ (codiAlt * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Les claus Zobrist ja són aleatòries: n'hi ha prou amb plegar-ne les dues meitats.
+     */
+    static int hash(long zobrist) {
+        return (int) (zobrist ^ (zobrist >>> 32));
+    }
+}
@@ -0,0 +1,137 @@
+package edu.epsevg.prop.ac1.cerca;
+
+import java.util.Arrays;
+
+/**
+ * Taula de transposició de mida fixa per a IDA*: per cada estat empaquetat recorda
+ * la millor g amb què s'ha vist i la iteració en què es va desar. Es conserva entre
+ * iteracions.
+ *
+ * Associativa per conjunts de 4 entrades. Quan el conjunt és ple es reemplaça
+ * l'entrada de la iteració més antiga i, a igual iteració, la de g més gran (les
+ * properes a l'arrel tallen subarbres més grans). Perdre una entrada només fa
+ * perdre poda, mai solucions.
+ *
+ * Amb reducció d'ordre parcial, cada entrada també recorda la restricció amb què
+ * s'ha explorat l'estat (veure OrdreParcial).
+ *
+ * El conjunt d'un estat surt de la seva clau Zobrist (veure Mapa.getZobrist).
+ *
+ * La iteració es desa en 16 bits, comptats des de l'últim buidat. Quan el comptador
+ * s'esgotaria, la taula es buida i torna a començar per 1: com qualsevol entrada
+ * perduda, només costa poda.
+ */
+public class TaulaTransposicio {
+    /** Bytes per entrada: codi, codiAlt i (g, iteració, restricció) */
+    public static final int BYTES_ENTRADA = 24;
+    /** Resultat de visita() quan l'estat no s'ha d'explorar */
+    public static final int TALLAT = Integer.MIN_VALUE;
+    private static final int VIES = 4;
+
+    private final long[] claus;
+    private final long[] clausAlt;
+    // (g << 32) | (iteració << 16) | (restricció + 1); 0 = buida (les iteracions comencen a 1)
+    private final long[] dades;
+    private final int mascaraConjunts;
+    private int mida;
+    private int desplacament; // iteracions anteriors a l'últim buidat
+
+    /**
+     * @param bytes pressupost de memòria; es fa servir la potència de 2 d'entrades
+     *              més gran que hi cap (com a mínim un conjunt)
+     */
+    public TaulaTransposicio(long bytes) {
+        long entrades = Math.max(VIES, bytes / BYTES_ENTRADA);
+        int conjunts = (int) Math.min(1 << 26, Long.highestOneBit(entrades / VIES));
+        this.claus = new long[conjunts * VIES];
+        this.clausAlt = new long[conjunts * VIES];
+        this.dades = new long[conjunts * VIES];
+        this.mascaraConjunts = conjunts - 1;
+    }
+
+    /**
+     * @return el nombre d'entrades ocupades
+     */
+    public int size() { return mida; }
+
+    /**
+     * @return el nombre màxim d'entrades
+     */
+    public int capacitat() { return dades.length; }
+
+    /**
+     * Buida la taula
+     */
+    public void clear() {
+        Arrays.fill(dades, 0);
+        mida = 0;
+    }
+
+    /**
+     * Decideix si cal explorar l'estat amb cost g a la iteració donada i, si cal,
+     * ho registra.
+     * Es talla quan l'estat ja s'ha vist amb una g menor (en qualsevol iteració:
+     * el camí millor també es recorre en aquesta) o amb la mateixa g en aquesta
+     * mateixa iteració (el subarbre ja s'ha explorat amb el mateix marge).
+     * @param iteracio la iteració actual, començant per 1 (no pot decréixer)
+     * @return true si s'ha d'explorar
+     */
+    public boolean visita(long codi, long codiAlt, long zobrist, int g, int iteracio) {
+        return visita(codi, codiAlt, zobrist, g, OrdreParcial.LLIURE, iteracio) != TALLAT;
+    }
+
+    /**
+     * Com visita(codi, codiAlt, zobrist, g, iteracio), però per a un node amb la restricció
+     * d'ordre parcial donada: si l'estat ja s'ha explorat en aquesta iteració amb la
+     * mateixa g però una altra restricció, s'ha de tornar a explorar sense podar.
+     * @return la restricció amb què s'ha d'explorar l'estat, o TALLAT
+     */
+    public int visita(long codi, long codiAlt, long zobrist, int g, int restriccio, int iteracio) {
+        if (iteracio - desplacament > 0xFFFF) {
+            clear();
+            desplacament = iteracio - 1;
+        }
+        iteracio -= desplacament;
+        int base = (TaulaLNT.hash(zobrist) & mascaraConjunts) * VIES;
+        int victima = -1;
+        for (int i = base; i < base + VIES; i++) {
+            long d = dades[i];
+            if (d == 0) {
+                if (victima < 0 || dades[victima] != 0) victima = i;
+                continue;
+            }
+            if (claus[i] == codi && clausAlt[i] == codiAlt) {
+                int gDesada = (int) (d >>> 32), itDesada = iteracio(d);
+                if (gDesada < g) return TALLAT;
+                if (gDesada == g && itDesada == iteracio) {
+                    int desada = (int) (d & 0xFFFF) - 1;
+                    if (OrdreParcial.uneix(desada, restriccio) == desada) return TALLAT;
+                    restriccio = OrdreParcial.LLIURE;
+                }
+                dades[i] = dada(g, iteracio, restriccio);
+                return restriccio;
+            }
+            if (victima < 0 || (dades[victima] != 0 && pitjor(d, dades[victima]))) victima = i;
+        }
+        if (dades[victima] == 0) mida++;
+        claus[victima] = codi;
+        clausAlt[victima] = codiAlt;
+        dades[victima] = dada(g, iteracio, restriccio);
+        return restriccio;
+    }
+
+    private static long dada(int g, int iteracio, int restriccio) {
+        return ((long) g << 32) | ((long) iteracio << 16) | (restriccio + 1);
+    }
+
+    private static int iteracio(long dada) { return (int) (dada >>> 16) & 0xFFFF; }
+
+    /**
+     * @return true si l'entrada a és millor candidata a ser reemplaçada que b
+     */
+    private static boolean pitjor(long a, long b) {
+        int itA = iteracio(a), itB = iteracio(b);
+        if (itA != itB) return itA < itB;
+        return (a >>> 32) > (b >>> 32);
+    }
+}
@@ -11,4 +11,20 @@ public interface Heuristica {
      * @param estat és el mapa que volem avaluar
      */
     int h(Mapa estat);
+
+    /**
+     * Cota inferior de la h de qualsevol estat que s'obté des de l'estat movent un
+     * sol pas l'agent donat. La fan servir CercaAStarOD, per no generar els fills de
+     * l'agent fins que la cota surt de la frontera, i l'expansió parcial de CercaAStar,
+     * per saltar-se els agents que no poden arribar a la F del node.
+     * Per defecte h(estat) - 1: amb una heurística consistent és una cota de debò. Amb
+     * una d'admissible però no consistent (per exemple l'AEM de HeuristicaClaus amb
+     * diversos agents) un fill pot tenir una h més petita, però g + 1 + cota mai no
+     * supera la f del pare: els fills només s'endarrereixen, no es perden, i l'A*
+     * continua sent òptim.
+     * @param agentId l'agent que es mou (1..numAgents)
+     */
+    default int hCotaAgent(Mapa estat, int agentId) {
+        return Math.max(0, h(estat) - 1);
+    }
 }
@@ -1,12 +1,7 @@
 package edu.epsevg.prop.ac1.cerca.heuristica;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
-
 import edu.epsevg.prop.ac1.model.Mapa;
-import edu.epsevg.prop.ac1.model.Posicio;
+import edu.epsevg.prop.ac1.model.Tauler;
 
 /**
  * Heurística avançada per A*.
@@ -15,92 +10,111 @@ import edu.epsevg.prop.ac1.model.Posicio;
  * - Més una estimació del cost per recollir la resta de claus (Nearest Neighbor Greedy).
  * - Més la distància des de l'última clau recollida a la sortida.
  * Calcula totes les distàncies amb Manhattan (ignorant obstacles).
+ *
+ * Només el primer terme depèn dels agents. Per cada màscara de claus pendents es
+ * calcula una vegada la clau més propera a cada cel·la, el recorregut greedy des de
+ * cada clau de partida i la distància de les claus a la sortida.
  */
-public class HeuristicaAvancada implements Heuristica {
+public class HeuristicaAvancada implements HeuristicaIncremental {
+
+    /** Bits del terme per l'índex de la clau més propera (la distància va a sobre) */
+    private static final int BITS_CLAU = 16;
+
+    private final TaulesPerClaus<Taula> taules = new TaulesPerClaus<>(Taula::new);
+
+    /**
+     * El terme és (distància a la clau pendent més propera, índex de la clau), empaquetat
+     * perquè el mínim sobre els agents triï la mateixa clau de partida que el greedy
+     */
+    @Override
+    public int terme(Mapa estat, int cella) {
+        return taules.get(estat).termes[cella];
+    }
 
     @Override
-    public int h(Mapa estat) {
+    public int h(Mapa estat, int minTerme) {
+        int minDistToFirstKey = minTerme >>> BITS_CLAU;
         // Si ja hem arribat a la meta, h = 0
-        if (estat.esMeta()) {
+        if (minDistToFirstKey == 0) {
             return 0;
         }
-
-        List<Posicio> agents = estat.getAgents();
-        List<Posicio> clausPendents = estat.getClausPendents();
-        Posicio sortida = estat.getSortidaPosicio();
-
-        // Si no queden claus pendents, retornar distància mínima a la sortida
-        if (clausPendents.isEmpty()) {
-            int minDistToExit = Integer.MAX_VALUE;
-            for (Posicio agent : agents) {
-                int dist = distanciaManhattan(agent, sortida);
-                minDistToExit = Math.min(minDistToExit, dist);
-            }
-            return minDistToExit;
+        Taula taula = taules.get(estat);
+        if (taula.cadena.length == 0) {
+            // Si no queden claus pendents, distància mínima a la sortida
+            return minDistToFirstKey;
         }
+        // Heurística total = dist. a primera clau + dist. estimada per recollir la resta + dist. des de la darrera clau a la sortida
+        return minDistToFirstKey + taula.cadena[minTerme & ((1 << BITS_CLAU) - 1)] + taula.minDistFromAnyKeyToExit;
+    }
 
-        // Si hi ha claus pendents:
-
-        // 1. Trobar la distància mínima des de qualsevol agent a qualsevol clau
-        int minDistToFirstKey = Integer.MAX_VALUE;
-        for (Posicio agent : agents) {
-            for (Posicio clau : clausPendents) {
-                int dist = distanciaManhattan(agent, clau);
-                minDistToFirstKey = Math.min(minDistToFirstKey, dist);
+    /**
+     * Parts de la heurística que només depenen de les claus pendents.
+     */
+    private static final class Taula {
+        final int[] termes;  // per cel·la: distància a la clau més propera << BITS_CLAU | índex
+        final int[] cadena;  // per clau de partida: cost greedy per recollir la resta
+        final int minDistFromAnyKeyToExit;
+
+        Taula(Tauler t, int pendents) {
+            int sortida = t.getSortida();
+
+            // Claus pendents, en ordre de fila, a partir de l'índex de claus del tauler
+            int[] totes = t.getCellesClaus();
+            int[] clausPendents = new int[totes.length];
+            int numPendents = 0;
+            for (int c : totes) {
+                if ((pendents & (1 << (t.getCell(c) - 'a'))) != 0) clausPendents[numPendents++] = c;
             }
-        }
 
-        // 2. Estimar el cost per recollir la resta de claus (Nearest Neighbor Greedy)
-        // Aquesta és una estimació greedy, no l'òptima, però és ràpida i més informada.
-        int estimatedCostToCollectRest = 0;
-        if (clausPendents.size() > 1) {
-            // Fem una còpia per no alterar la llista original
-            List<Posicio> clausRestants = new ArrayList<>(clausPendents);
-            // Triem un punt de partida (pot ser qualsevol clau, per exemple, la més propera a un agent)
-            Posicio currentKey = clausRestants.stream()
-                    .min(Comparator.comparingInt(pos -> minDistToAgent(pos, agents)))
-                    .orElse(clausRestants.get(0));
-
-            clausRestants.remove(currentKey); // Comencem des d'aquesta clau
+            this.termes = new int[t.getNumCelles()];
+            for (int c = 0; c < termes.length; c++) {
+                // Un agent a la sortida ja és meta: terme 0
+                if (t.getCell(c) == Mapa.SORTIDA) continue;
+                if (numPendents == 0) {
+                    termes[c] = t.distanciaManhattan(c, sortida) << BITS_CLAU;
+                    continue;
+                }
+                // Clau més propera; a igual distància, la primera (com el greedy)
+                int millor = 0;
+                for (int i = 1; i < numPendents; i++) {
+                    if (t.distanciaManhattan(c, clausPendents[i]) < t.distanciaManhattan(c, clausPendents[millor])) millor = i;
+                }
+                termes[c] = t.distanciaManhattan(c, clausPendents[millor]) << BITS_CLAU | millor;
+            }
 
-            // Use AtomicReference to allow the variable to be updated inside the loop
-            AtomicReference<Posicio> currentRef = new AtomicReference<>(currentKey);
+            // Estimació greedy per recollir la resta de claus des de cada clau de partida
+            // (no l'òptima, però ràpida i més informada)
+            this.cadena = new int[numPendents];
+            int[] clausRestants = new int[Math.max(numPendents - 1, 0)];
+            for (int inici = 0; inici < numPendents; inici++) {
+                // Treballem sobre una còpia sense la clau de partida, mantenint l'ordre de la resta
+                int current = clausPendents[inici];
+                System.arraycopy(clausPendents, 0, clausRestants, 0, inici);
+                System.arraycopy(clausPendents, inici + 1, clausRestants, inici, numPendents - inici - 1);
+                int restants = clausRestants.length;
+                int estimatedCostToCollectRest = 0;
+
+                while (restants > 0) {
+                    int closest = 0;
+                    for (int i = 1; i < restants; i++) {
+                        if (t.distanciaManhattan(current, clausRestants[i]) < t.distanciaManhattan(current, clausRestants[closest])) closest = i;
+                    }
+                    int seguent = clausRestants[closest];
+                    estimatedCostToCollectRest += t.distanciaManhattan(current, seguent);
+                    current = seguent;
+                    System.arraycopy(clausRestants, closest + 1, clausRestants, closest, restants - closest - 1);
+                    restants--;
+                }
+                cadena[inici] = estimatedCostToCollectRest;
+            }
 
-            while (!clausRestants.isEmpty()) {
-                Posicio closest = clausRestants.stream()
-                        .min(Comparator.comparingInt(pos -> distanciaManhattan(currentRef.get(), pos)))
-                        .orElse(clausRestants.get(0));
-                estimatedCostToCollectRest += distanciaManhattan(currentRef.get(), closest);
-                currentRef.set(closest);
-                clausRestants.remove(closest);
+            // Estimar la distància des de l'última clau recollida a la sortida
+            // Per simplificar i ser més informats, usem la distància mínima de qualsevol clau a la sortida.
+            int minDist = Integer.MAX_VALUE;
+            for (int i = 0; i < numPendents; i++) {
+                minDist = Math.min(minDist, t.distanciaManhattan(clausPendents[i], sortida));
             }
+            this.minDistFromAnyKeyToExit = minDist;
         }
-
-        // 3. Estimar la distància des de l'última clau recollida a la sortida
-        // Això depèn de quina clau sigui l'última. Per simplificar, usem la distància
-        // des de la clau "més allunyada" (segons el camí greedy) a la sortida.
-        // Alternativament, podem usar la distància des de la clau més propera a la sortida.
-        // Per simplificar i ser més informats, usem la distància mínima de qualsevol clau a la sortida.
-        int minDistFromAnyKeyToExit = clausPendents.stream()
-                .mapToInt(clau -> distanciaManhattan(clau, sortida))
-                .min()
-                .orElse(Integer.MAX_VALUE);
-
-        // Heurística total = dist. a primera clau + dist. estimada per recollir la resta + dist. des de la darrera clau a la sortida
-        return minDistToFirstKey + estimatedCostToCollectRest + minDistFromAnyKeyToExit;
-    }
-
-    /**
-     * Troba la distància Manhattan més curta des d'una posició a qualsevol dels agents.
-     */
-    private int minDistToAgent(Posicio pos, List<Posicio> agents) {
-        return agents.stream()
-                .mapToInt(agent -> distanciaManhattan(pos, agent))
-                .min()
-                .orElse(Integer.MAX_VALUE);
-    }
-
-    public static int distanciaManhattan(Posicio p1, Posicio p2) {
-        return Math.abs(p1.x - p2.x) + Math.abs(p1.y - p2.y);
     }
 }
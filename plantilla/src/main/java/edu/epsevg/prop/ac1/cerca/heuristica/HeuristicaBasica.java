@@ -1,55 +1,53 @@
 package edu.epsevg.prop.ac1.cerca.heuristica;
 
 import edu.epsevg.prop.ac1.model.Mapa;
-import edu.epsevg.prop.ac1.model.Posicio;
-
-import java.util.List;
+import edu.epsevg.prop.ac1.model.Tauler;
 
 /** 
  * Distància de Manhattan a la clau més propera 
  * (si queden per recollir) o a la sortida.
+ *
+ * El terme d'un agent és la seva distància a la clau pendent més propera (o a la
+ * sortida), i es guarda en una taula per cel·la per cada màscara de claus pendents.
  */
-public class HeuristicaBasica implements Heuristica {
+public class HeuristicaBasica implements HeuristicaIncremental {
+    
+    private final TaulesPerClaus<int[]> termes = new TaulesPerClaus<>(HeuristicaBasica::termes);
     
     @Override
-    public int h(Mapa estat) {
-        // Si ja hem arribat a la meta, h = 0
-        if (estat.esMeta()) {
-            return 0;
-        }
-        
-        List<Posicio> agents = estat.getAgents();
-        List<Posicio> clausPendents = estat.getClausPendents();
-        
-        // Si hi ha claus pendents, retornar distància a la clau més propera
-        if (!clausPendents.isEmpty()) {
-            int minDist = Integer.MAX_VALUE;
-            
-            // Trobar la distància mínima des de qualsevol agent a qualsevol clau
-            for (Posicio agent : agents) {
-                for (Posicio clau : clausPendents) {
-                    int dist = distanciaManhattan(agent, clau);
-                    minDist = Math.min(minDist, dist);
-                }
+    public int terme(Mapa estat, int cella) {
+        return termes.get(estat)[cella];
+    }
+    
+    @Override
+    public int h(Mapa estat, int minTerme) {
+        return minTerme;
+    }
+    
+    /**
+     * Terme de cada cel·la per les claus pendents donades
+     */
+    private static int[] termes(Tauler t, int pendents) {
+        int sortida = t.getSortida();
+        int[] res = new int[t.getNumCelles()];
+        for (int c = 0; c < res.length; c++) {
+            // Un agent a la sortida ja és meta: h = 0
+            if (t.getCell(c) == Mapa.SORTIDA) continue;
+            if (pendents == 0) {
+                // Totes les claus recollides: distància a la sortida
+                res[c] = t.distanciaManhattan(c, sortida);
+                continue;
             }
-            
-            return minDist;
-        } else {
-            // Totes les claus recollides, retornar distància a la sortida
-            Posicio sortida = estat.getSortidaPosicio();
+            // Distància a la clau pendent més propera
+            // (recorrem l'índex de claus del tauler, sense escanejar la graella)
             int minDist = Integer.MAX_VALUE;
-            
-            // Trobar la distància mínima des de qualsevol agent a la sortida
-            for (Posicio agent : agents) {
-                int dist = distanciaManhattan(agent, sortida);
-                minDist = Math.min(minDist, dist);
+            for (int p = pendents; p != 0; p &= p - 1) {
+                for (int clau : t.getCellesClau(Integer.numberOfTrailingZeros(p))) {
+                    minDist = Math.min(minDist, t.distanciaManhattan(c, clau));
+                }
             }
-            
-            return minDist;
+            res[c] = minDist;
         }
+        return res;
     }
-    
-    public static int distanciaManhattan(Posicio p1, Posicio p2) {
-    return Math.abs(p1.x - p2.x) + Math.abs(p1.y - p2.y);
 }
-}
\ No newline at end of file
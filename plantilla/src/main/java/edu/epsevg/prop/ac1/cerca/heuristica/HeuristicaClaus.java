@@ -0,0 +1,376 @@
+package edu.epsevg.prop.ac1.cerca.heuristica;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.epsevg.prop.ac1.model.Direccio;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Tauler;
+
+/**
+ * Heurística admissible per recollir les claus imprescindibles i arribar a la sortida.
+ *
+ * Una clau pendent és imprescindible si la seva porta separa tots els agents de la
+ * sortida (o d'una altra clau imprescindible) quan la resta de portes es consideren
+ * obertes. Només aquestes claus entren al recorregut: les altres no cal agafar-les
+ * i comptar-les trencaria l'admissibilitat.
+ *
+ * Sobre el conjunt R de claus imprescindibles:
+ *  - Amb un sol agent: camí òptim agent -> totes les claus de R -> sortida, amb
+ *    Held-Karp precalculat per tots els subconjunts (si hi ha poques claus).
+ *  - Amb diversos agents (o massa claus): arbre d'expansió mínima sobre
+ *    {agents} + R + {sortida}, on tots els agents formen un únic node arrel.
+ *    L'AEM de R + {sortida} es memoritza per R i només s'hi afegeixen les arestes
+ *    de l'arrel, que depenen de la posició dels agents.
+ *
+ * El conjunt R només depèn de les claus pendents i de quins components ocupen els
+ * agents, així que es memoritza per (classes dels agents, claus pendents): dues cel·les
+ * són de la mateixa classe si cap porta no les separa.
+ *
+ * Les distàncies són les del Tauler (BFS amb portes obertes), per tant cotes inferiors.
+ */
+public class HeuristicaClaus implements Heuristica {
+
+    /** Nombre màxim de claus per precalcular la taula de Held-Karp (2^n * n entrades) */
+    private static final int MAX_HELD_KARP = 12;
+
+    /** Nombre màxim de classes de cel·la per memoritzar les claus imprescindibles */
+    private static final int MAX_CLASSES = 32;
+
+    private volatile Dades dades;
+
+    @Override
+    public int h(Mapa estat) {
+        if (estat.esMeta()) return 0;
+        Dades d = dades(estat.getTauler());
+        Tauler t = d.tauler;
+        int k = estat.getNumAgents();
+        int mort = t.getNumCelles(); // valor per estats des dels quals no es pot arribar a la sortida
+
+        // Claus pendents (índexs sobre les lletres presents al tauler)
+        int pendents = 0;
+        for (int i = 0; i < d.p; i++) {
+            if (!estat.teClau(d.lletres[i])) pendents |= 1 << i;
+        }
+
+        int imprescindibles = d.imprescindibles(estat, pendents);
+
+        // Distàncies de l'arrel (agent més proper) a cada clau i a la sortida
+        int[] arrel = new int[d.p + 1];
+        arrel[d.p] = Tauler.INFINIT;
+        for (int a = 1; a <= k; a++) {
+            arrel[d.p] = Math.min(arrel[d.p], t.distanciaSortida(estat.getCellaAgent(a)));
+        }
+        for (int i = 0; i < d.p; i++) {
+            if ((imprescindibles & (1 << i)) == 0) continue;
+            arrel[i] = Tauler.INFINIT;
+            for (int a = 1; a <= k; a++) {
+                arrel[i] = Math.min(arrel[i], t.distanciaClau(d.lletres[i], estat.getCellaAgent(a)));
+            }
+        }
+
+        long cota;
+        if (imprescindibles == 0) {
+            cota = arrel[d.p];
+        } else if (k == 1 && d.heldKarp != null) {
+            cota = Long.MAX_VALUE;
+            for (int j = 0; j < d.p; j++) {
+                if ((imprescindibles & (1 << j)) == 0) continue;
+                cota = Math.min(cota, (long) arrel[j] + d.heldKarp[imprescindibles * d.p + j]);
+            }
+        } else {
+            cota = d.aem(imprescindibles, arrel);
+        }
+        return cota >= Tauler.INFINIT ? mort : (int) cota;
+    }
+
+    private Dades dades(Tauler t) {
+        Dades d = dades;
+        if (d == null || d.tauler != t) {
+            d = new Dades(t);
+            dades = d;
+        }
+        return d;
+    }
+
+    /**
+     * Precàlculs que només depenen del tauler.
+     */
+    private static final class Dades {
+        final Tauler tauler;
+        final int p;              // nombre de lletres de clau presents
+        final char[] lletres;     // índex -> lletra
+        final int[][] cellesClau; // índex -> cel·les amb aquesta clau
+        final int[][] components; // índex -> etiqueta de component amb la seva porta tancada (null si no hi ha porta)
+        final int[] dist;         // distàncies entre claus i sortida, [u * (p+1) + v], p = sortida
+        final int[] heldKarp;     // [S * p + j]: camí mínim des de j visitant S i acabant a la sortida
+        final int[] classes;      // cel·la -> classe (mateix component per totes les portes), -1 per parets
+        final int[] representants; // classe -> una cel·la de la classe
+        final ConcurrentHashMap<Integer, int[]> aemClaus = new ConcurrentHashMap<>();
+        // (màscara de classes dels agents << 32 | pendents) -> claus imprescindibles
+        final ConcurrentHashMap<Long, Integer> imprescindiblesPerClasses = new ConcurrentHashMap<>();
+
+        Dades(Tauler t) {
+            this.tauler = t;
+            int presents = t.getClausPresents();
+            this.p = Integer.bitCount(presents);
+            this.lletres = new char[p];
+            this.cellesClau = new int[p][];
+            this.components = new int[p][];
+            int i = 0;
+            for (int l = 0; l < Tauler.BITS_CLAUS; l++) {
+                if ((presents & (1 << l)) == 0) continue;
+                lletres[i] = (char) ('a' + l);
+                cellesClau[i] = t.getCellesClau(l);
+                if (t.getCellesPorta(l).length > 0) components[i] = etiquetar(t, (char) ('A' + l));
+                i++;
+            }
+
+            // Distàncies entre claus (mínim entre qualsevol parell de cel·les) i cap a la sortida
+            this.dist = new int[(p + 1) * (p + 1)];
+            for (int u = 0; u <= p; u++) {
+                for (int v = 0; v <= p; v++) {
+                    int best = Tauler.INFINIT;
+                    if (u == v) {
+                        best = 0;
+                    } else if (u == p || v == p) {
+                        int clau = u == p ? v : u;
+                        for (int c : cellesClau[clau]) best = Math.min(best, t.distanciaSortida(c));
+                    } else {
+                        for (int c : cellesClau[u]) best = Math.min(best, t.distanciaClau(lletres[v], c));
+                    }
+                    dist[u * (p + 1) + v] = best;
+                }
+            }
+
+            this.heldKarp = p <= MAX_HELD_KARP ? heldKarp() : null;
+
+            // Classes: es refina la partició de les cel·les amb els components de cada porta
+            int nc = t.getNumCelles();
+            this.classes = new int[nc];
+            for (int c = 0; c < nc; c++) classes[c] = t.getCell(c) == Mapa.PARET ? -1 : 0;
+            int numClasses = 1;
+            for (int[] comp : components) {
+                if (comp == null) continue;
+                HashMap<Long, Integer> noves = new HashMap<>();
+                for (int c = 0; c < nc; c++) {
+                    if (classes[c] < 0) continue;
+                    long parella = (long) classes[c] << 32 | (comp[c] & 0xFFFFFFFFL);
+                    classes[c] = noves.computeIfAbsent(parella, x -> noves.size());
+                }
+                numClasses = noves.size();
+            }
+            this.representants = new int[numClasses];
+            for (int c = 0; c < nc; c++) if (classes[c] >= 0) representants[classes[c]] = c;
+        }
+
+        private int d(int u, int v) { return dist[u * (p + 1) + v]; }
+
+        /**
+         * Etiqueta els components connexos del tauler amb les cel·les de la porta tancades
+         * (la resta de portes obertes). Parets i porta: -1.
+         */
+        private static int[] etiquetar(Tauler t, char porta) {
+            int nc = t.getNumCelles();
+            int[] comp = new int[nc];
+            Arrays.fill(comp, -1);
+            int[] cua = new int[nc];
+            int etiqueta = 0;
+            for (int s = 0; s < nc; s++) {
+                if (comp[s] >= 0 || t.getCell(s) == Mapa.PARET || t.getCell(s) == porta) continue;
+                int cap = 0, fi = 0;
+                cua[fi++] = s;
+                comp[s] = etiqueta;
+                while (cap < fi) {
+                    int c = cua[cap++];
+                    for (Direccio dir : Direccio.values()) {
+                        int v = t.vei(c, dir);
+                        if (v < 0 || comp[v] >= 0 || t.getCell(v) == Mapa.PARET || t.getCell(v) == porta) continue;
+                        comp[v] = etiqueta;
+                        cua[fi++] = v;
+                    }
+                }
+                etiqueta++;
+            }
+            return comp;
+        }
+
+        /**
+         * @return true si la porta de la clau i separa totes les cel·les dels agents de totes
+         *         les cel·les objectiu
+         */
+        private boolean separa(int i, int[] agents, int[] objectius) {
+            int[] comp = components[i];
+            if (comp == null) return false;
+            for (int a : agents) {
+                int ca = comp[a];
+                for (int c : objectius) if (ca == comp[c]) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Claus pendents imprescindibles per les cel·les dels agents de l'estat, memoritzades
+         * per les classes que ocupen (si n'hi ha prou poques per fer-ne una màscara).
+         */
+        int imprescindibles(Mapa estat, int pendents) {
+            int k = estat.getNumAgents();
+            if (representants.length > MAX_CLASSES) {
+                int[] agents = new int[k];
+                for (int a = 1; a <= k; a++) agents[a - 1] = estat.getCellaAgent(a);
+                return imprescindibles(agents, pendents);
+            }
+            int mascara = 0;
+            for (int a = 1; a <= k; a++) mascara |= 1 << classes[estat.getCellaAgent(a)];
+            long clau = (long) mascara << 32 | pendents;
+            Integer r = imprescindiblesPerClasses.get(clau);
+            if (r == null) {
+                int[] agents = new int[Integer.bitCount(mascara)];
+                for (int x = mascara, n = 0; x != 0; x &= x - 1) {
+                    agents[n++] = representants[Integer.numberOfTrailingZeros(x)];
+                }
+                r = imprescindibles(agents, pendents);
+                imprescindiblesPerClasses.put(clau, r);
+            }
+            return r;
+        }
+
+        /**
+         * Claus pendents imprescindibles: la seva porta separa els agents de la sortida o
+         * d'una altra clau imprescindible (clausura).
+         */
+        private int imprescindibles(int[] agents, int pendents) {
+            int[] sortida = { tauler.getSortida() };
+            int r = 0;
+            for (int i = 0; i < p; i++) {
+                if ((pendents & (1 << i)) != 0 && separa(i, agents, sortida)) r |= 1 << i;
+            }
+            boolean canvi = r != 0;
+            while (canvi) {
+                canvi = false;
+                for (int i = 0; i < p; i++) {
+                    if ((pendents & (1 << i)) == 0 || (r & (1 << i)) != 0) continue;
+                    for (int j = 0; j < p; j++) {
+                        if ((r & (1 << j)) != 0 && separa(i, agents, cellesClau[j])) {
+                            r |= 1 << i;
+                            canvi = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            return r;
+        }
+
+        /**
+         * Held-Karp sobre tots els subconjunts de claus presents.
+         */
+        private int[] heldKarp() {
+            int[] hk = new int[(1 << p) * Math.max(p, 1)];
+            Arrays.fill(hk, Tauler.INFINIT);
+            for (int s = 1; s < (1 << p); s++) {
+                for (int j = 0; j < p; j++) {
+                    if ((s & (1 << j)) == 0) continue;
+                    int resta = s & ~(1 << j);
+                    if (resta == 0) {
+                        hk[s * p + j] = d(j, p);
+                        continue;
+                    }
+                    long best = Tauler.INFINIT;
+                    for (int i = 0; i < p; i++) {
+                        if ((resta & (1 << i)) == 0) continue;
+                        best = Math.min(best, (long) d(j, i) + hk[resta * p + i]);
+                    }
+                    hk[s * p + j] = (int) Math.min(best, Tauler.INFINIT);
+                }
+            }
+            return hk;
+        }
+
+        /**
+         * Cost de l'AEM de {arrel} + R + {sortida}. Un AEM d'un graf amb un vèrtex afegit
+         * només usa arestes de l'AEM original o arestes del vèrtex nou, així que n'hi ha
+         * prou amb l'AEM de R + {sortida} (memoritzat per R) més les arestes de l'arrel.
+         */
+        long aem(int r, int[] arrel) {
+            int[] base = aemClaus.computeIfAbsent(r, this::aemClaus);
+            int nb = base.length / 3;
+            int nodes = Integer.bitCount(r) + 1; // claus de R + sortida
+            int arestes = nb + nodes;
+            int[] u = new int[arestes], v = new int[arestes], w = new int[arestes];
+            for (int e = 0; e < nb; e++) {
+                u[e] = base[3 * e]; v[e] = base[3 * e + 1]; w[e] = base[3 * e + 2];
+            }
+            int e = nb;
+            for (int x = 0; x <= p; x++) {
+                if (x < p && (r & (1 << x)) == 0) continue;
+                u[e] = p + 1; v[e] = x; w[e] = arrel[x]; // p+1 = arrel
+                e++;
+            }
+            // Kruskal sobre poques arestes: ordenació per inserció
+            int[] ordre = new int[arestes];
+            for (int x = 0; x < arestes; x++) {
+                int y = x;
+                while (y > 0 && w[ordre[y - 1]] > w[x]) {
+                    ordre[y] = ordre[y - 1];
+                    y--;
+                }
+                ordre[y] = x;
+            }
+            int[] pare = new int[p + 2];
+            for (int x = 0; x < pare.length; x++) pare[x] = x;
+            long total = 0;
+            int unides = 0;
+            for (int x : ordre) {
+                int a = arrel(pare, u[x]), b = arrel(pare, v[x]);
+                if (a == b) continue;
+                pare[a] = b;
+                total += w[x];
+                if (++unides == nodes) break; // nodes + arrel -> nodes arestes
+            }
+            return total;
+        }
+
+        /**
+         * AEM (Prim) de R + {sortida}, com a llista de triplets (u, v, pes).
+         */
+        private int[] aemClaus(int r) {
+            int nodes = Integer.bitCount(r) + 1;
+            int[] ids = new int[nodes];
+            int n = 0;
+            for (int x = 0; x < p; x++) if ((r & (1 << x)) != 0) ids[n++] = x;
+            ids[n] = p;
+            int[] res = new int[3 * (nodes - 1)];
+            boolean[] dins = new boolean[nodes];
+            int[] millor = new int[nodes];
+            int[] de = new int[nodes];
+            Arrays.fill(millor, Integer.MAX_VALUE);
+            millor[0] = 0;
+            for (int it = 0, e = 0; it < nodes; it++) {
+                int sel = -1;
+                for (int x = 0; x < nodes; x++) {
+                    if (!dins[x] && (sel < 0 || millor[x] < millor[sel])) sel = x;
+                }
+                dins[sel] = true;
+                if (it > 0) {
+                    res[3 * e] = ids[de[sel]]; res[3 * e + 1] = ids[sel]; res[3 * e + 2] = millor[sel];
+                    e++;
+                }
+                for (int x = 0; x < nodes; x++) {
+                    int dx = d(ids[sel], ids[x]);
+                    if (!dins[x] && dx < millor[x]) {
+                        millor[x] = dx;
+                        de[x] = sel;
+                    }
+                }
+            }
+            return res;
+        }
+
+        private static int arrel(int[] pare, int x) {
+            while (pare[x] != x) x = pare[x] = pare[pare[x]];
+            return x;
+        }
+    }
+}
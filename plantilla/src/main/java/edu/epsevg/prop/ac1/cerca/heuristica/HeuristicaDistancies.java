@@ -0,0 +1,44 @@
+package edu.epsevg.prop.ac1.cerca.heuristica;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Tauler;
+
+/**
+ * Distància real (BFS sobre el tauler, respectant les parets) de l'agent
+ * més proper a la sortida. Les distàncies estan precalculades al Tauler en
+ * carregar el mapa, de manera que cada consulta és O(1) per agent.
+ *
+ * Les portes es consideren obertes en el precàlcul: la distància mai supera
+ * el cost real i la heurística és admissible i consistent.
+ */
+public class HeuristicaDistancies implements HeuristicaIncremental {
+
+    /**
+     * El terme és la distància de l'agent a la sortida, que no depèn de les claus
+     */
+    @Override
+    public int terme(Mapa estat, int cella) {
+        return estat.getTauler().distanciaSortida(cella);
+    }
+
+    @Override
+    public int h(Mapa estat, int minTerme) {
+        // Si cap agent pot arribar a la sortida l'estat és un carreró sense sortida
+        return minTerme == Tauler.INFINIT ? estat.getTauler().getNumCelles() : minTerme;
+    }
+
+    /**
+     * Només l'agent que es mou pot escurçar la seva distància, i com a molt en un pas
+     */
+    @Override
+    public int hCotaAgent(Mapa estat, int agentId) {
+        Tauler t = estat.getTauler();
+        int min = Tauler.INFINIT;
+        for (int a = 1; a <= estat.getNumAgents(); a++) {
+            int d = t.distanciaSortida(estat.getCellaAgent(a));
+            if (a == agentId && d != Tauler.INFINIT) d = Math.max(0, d - 1);
+            min = Math.min(min, d);
+        }
+        return min == Tauler.INFINIT ? t.getNumCelles() : min;
+    }
+}
@@ -0,0 +1,38 @@
+package edu.epsevg.prop.ac1.cerca.heuristica;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+
+/**
+ * Heurística que es pot avaluar a partir d'un terme per agent.
+ *
+ * El terme d'un agent només depèn de la seva cel·la i de les claus de l'estat, i la h
+ * només depèn del mínim dels termes de tots els agents (i de les claus). Un fill que no
+ * recull cap clau només canvia el terme de l'agent que es mou: la cerca pot guardar el
+ * millor i el segon millor terme del pare i obtenir la h de cada fill amb un sol terme
+ * nou (veure CercaAStar). Si el fill recull una clau, els termes canvien i es fa servir
+ * h(Mapa).
+ */
+public interface HeuristicaIncremental extends Heuristica {
+    /**
+     * @param estat l'estat, del qual només es fan servir el tauler i les claus
+     * @param cella la cel·la de l'agent
+     * @return el terme d'un agent a la cel·la
+     */
+    int terme(Mapa estat, int cella);
+
+    /**
+     * @param estat l'estat, del qual només es fan servir el tauler i les claus
+     * @param minTerme el mínim dels termes de tots els agents de l'estat
+     * @return la h de l'estat
+     */
+    int h(Mapa estat, int minTerme);
+
+    @Override
+    default int h(Mapa estat) {
+        int min = Integer.MAX_VALUE;
+        for (int a = 1; a <= estat.getNumAgents(); a++) {
+            min = Math.min(min, terme(estat, estat.getCellaAgent(a)));
+        }
+        return h(estat, min);
+    }
+}
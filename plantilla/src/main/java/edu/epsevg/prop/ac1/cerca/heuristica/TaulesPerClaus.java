@@ -0,0 +1,63 @@
+package edu.epsevg.prop.ac1.cerca.heuristica;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Tauler;
+
+/**
+ * Taules d'una heurística que només depenen del tauler i de les claus pendents, calculades
+ * el primer cop que apareix cada màscara. La cerca visita poques màscares diferents i
+ * els nodes consecutius solen compartir-la, de manera que es recorda l'última consultada.
+ * Es pot fer servir des de diversos fils.
+ */
+final class TaulesPerClaus<T> {
+    private final BiFunction<Tauler, Integer, T> calcula;
+    private volatile Taules<T> taules;
+    private volatile Entrada<T> ultima;
+
+    /**
+     * @param calcula construeix la taula per un tauler i una màscara de claus pendents
+     */
+    TaulesPerClaus(BiFunction<Tauler, Integer, T> calcula) {
+        this.calcula = calcula;
+    }
+
+    /**
+     * @return la taula de les claus pendents de l'estat
+     */
+    T get(Mapa estat) {
+        Tauler t = estat.getTauler();
+        int pendents = estat.getClausPendentsMask();
+        Entrada<T> e = ultima;
+        if (e != null && e.tauler == t && e.pendents == pendents) return e.taula;
+        Taules<T> ts = taules;
+        if (ts == null || ts.tauler != t) {
+            ts = new Taules<>(t);
+            taules = ts;
+        }
+        T taula = ts.perMascara.computeIfAbsent(pendents, p -> calcula.apply(t, p));
+        ultima = new Entrada<>(t, pendents, taula);
+        return taula;
+    }
+
+    private static final class Taules<T> {
+        final Tauler tauler;
+        final ConcurrentHashMap<Integer, T> perMascara = new ConcurrentHashMap<>();
+
+        Taules(Tauler tauler) { this.tauler = tauler; }
+    }
+
+    private static final class Entrada<T> {
+        final Tauler tauler;
+        final int pendents;
+        final T taula;
+
+        Entrada(Tauler tauler, int pendents, T taula) {
+            this.tauler = tauler;
+            this.pendents = pendents;
+            this.taula = taula;
+        }
+    }
+}
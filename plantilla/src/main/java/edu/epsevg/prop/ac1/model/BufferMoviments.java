@@ -0,0 +1,53 @@
+package edu.epsevg.prop.ac1.model;
+
+import java.util.Arrays;
+
+/**
+ * Buffer reutilitzable on Mapa.generaMoviments() escriu els codis dels moviments
+ * possibles (veure Moviment.codi). Permet generar successors sense crear cap objecte.
+ *
+ * També conté la marca d'ocupació de cel·les que fa servir la generació per
+ * comprovar col·lisions entre agents en O(1). No és segur compartir-lo entre fils:
+ * cada fil (o cada nivell de recursió) n'ha de tenir un de propi.
+ */
+public final class BufferMoviments {
+    private int[] codis = new int[16];
+    private int mida;
+
+    private int[] ocupacio = new int[0]; // cel·la -> segell de l'última generació que la va marcar
+    private int segell;
+
+    /**
+     * @return el nombre de moviments generats
+     */
+    public int mida() { return mida; }
+
+    /**
+     * @return el codi de l'i-èssim moviment generat
+     */
+    public int get(int i) { return codis[i]; }
+
+    void buida() { mida = 0; }
+
+    void afegeix(int codi) {
+        if (mida == codis.length) codis = Arrays.copyOf(codis, mida << 1);
+        codis[mida++] = codi;
+    }
+
+    /**
+     * Marca les cel·les ocupades pels agents per a una nova generació
+     */
+    void marcaOcupades(int[] agents, int numCelles) {
+        if (ocupacio.length < numCelles) {
+            ocupacio = new int[numCelles];
+            segell = 0;
+        }
+        if (++segell == 0) { // desbordament: reiniciem les marques
+            Arrays.fill(ocupacio, 0);
+            segell = 1;
+        }
+        for (int c : agents) ocupacio[c] = segell;
+    }
+
+    boolean ocupada(int cella) { return ocupacio[cella] == segell; }
+}
@@ -0,0 +1,169 @@
+package edu.epsevg.prop.ac1.model;
+
+import java.util.Arrays;
+
+/**
+ * Graf de punts de decisió d'un mapa, per fer macro-moviments.
+ *
+ * Són punts de decisió les cel·les amb clau, porta o sortida, les cel·les inicials
+ * dels agents i les cruïlles: cel·les amb 3 o més veïns transitables on arriba un
+ * passadís (algun veí amb 2 o menys). L'interior de les sales obertes i dels
+ * passadissos no en forma part.
+ *
+ * Hi ha una aresta u -> v si es pot anar de u a v sense passar per cap altre punt de
+ * decisió; el cost és la distància en passos d'aquest camí i se'n desen les direccions.
+ * Com que qualsevol camí es pot partir pels punts de decisió que travessa, les
+ * distàncies entre punts de decisió en aquest graf són exactes. I com que els agents
+ * només s'aturen en punts de decisió, l'interior d'una aresta mai té cap agent: només
+ * cal comprovar la col·lisió a la cel·la destí.
+ *
+ * Les arestes es desen en format CSR (arrays plans indexats pel punt d'origen).
+ */
+public final class GrafMacro {
+    private final Tauler tauler;
+    private final int[] indexPunt;     // cel·la -> índex del punt de decisió, -1 si no ho és
+    private final int[] cellesPunts;   // índex -> cel·la
+    private final int[] primeraAresta; // índex -> primera aresta (numPunts + 1 entrades)
+    private final int[] destins;       // aresta -> cel·la destí
+    private final int[] costos;        // aresta -> passos
+    private final int[] iniciPassos;   // aresta -> primera direcció a passos (numArestes + 1 entrades)
+    private final byte[] passos;       // direccions (ordinal de Direccio) de cada aresta, en ordre
+
+    /**
+     * @param inicial l'estat inicial: fixa el tauler i les cel·les inicials dels agents
+     */
+    public GrafMacro(Mapa inicial) {
+        this.tauler = inicial.getTauler();
+        int numCelles = tauler.getNumCelles();
+        int dirs = Tauler.DIRECCIONS.length;
+
+        // Punts de decisió
+        int[] graus = new int[numCelles];
+        for (int c = 0; c < numCelles; c++) {
+            if (tauler.getCell(c) == Mapa.PARET) continue;
+            for (int d = 0; d < dirs; d++) if (tauler.veiTransitable(c, d) >= 0) graus[c]++;
+        }
+        this.indexPunt = new int[numCelles];
+        Arrays.fill(indexPunt, -1);
+        int numPunts = 0;
+        int[] punts = new int[numCelles];
+        for (int c = 0; c < numCelles; c++) {
+            if (esPuntDecisio(c, graus, inicial)) {
+                indexPunt[c] = numPunts;
+                punts[numPunts++] = c;
+            }
+        }
+        this.cellesPunts = Arrays.copyOf(punts, numPunts);
+
+        // Arestes: un BFS per punt que no travessa cap altre punt de decisió
+        this.primeraAresta = new int[numPunts + 1];
+        int[] dest = new int[16], cost = new int[16], inici = new int[17];
+        byte[] pas = new byte[64];
+        int numArestes = 0, numPassos = 0;
+        int[] dist = new int[numCelles];
+        byte[] dirPare = new byte[numCelles];
+        int[] cua = new int[numCelles];
+        Arrays.fill(dist, -1);
+        for (int p = 0; p < numPunts; p++) {
+            primeraAresta[p] = numArestes;
+            int origen = cellesPunts[p];
+            int cap = 0, cua0 = 0;
+            dist[origen] = 0;
+            cua[cap++] = origen;
+            while (cua0 < cap) {
+                int c = cua[cua0++];
+                for (int d = 0; d < dirs; d++) {
+                    int v = tauler.veiTransitable(c, d);
+                    if (v < 0 || dist[v] >= 0) continue;
+                    dist[v] = dist[c] + 1;
+                    dirPare[v] = (byte) d;
+                    if (indexPunt[v] < 0) {
+                        cua[cap++] = v;
+                        continue;
+                    }
+                    // Aresta origen -> v: les direccions es recuperen enrere des de v
+                    if (numArestes == dest.length) {
+                        dest = Arrays.copyOf(dest, numArestes * 2);
+                        cost = Arrays.copyOf(cost, numArestes * 2);
+                        inici = Arrays.copyOf(inici, numArestes * 2 + 1);
+                    }
+                    int l = dist[v];
+                    if (numPassos + l > pas.length) pas = Arrays.copyOf(pas, Math.max(pas.length * 2, numPassos + l));
+                    for (int x = v, i = numPassos + l - 1; x != origen; i--) {
+                        pas[i] = dirPare[x];
+                        x = tauler.veiTransitable(x, dirPare[x] ^ 1); // direcció oposada
+                    }
+                    dest[numArestes] = v;
+                    cost[numArestes] = l;
+                    inici[numArestes] = numPassos;
+                    numPassos += l;
+                    numArestes++;
+                }
+            }
+            for (int i = 0; i < cap; i++) dist[cua[i]] = -1;
+            // Els punts de decisió trobats no s'han encuat: també cal netejar-los
+            for (int a = primeraAresta[p]; a < numArestes; a++) dist[dest[a]] = -1;
+        }
+        primeraAresta[numPunts] = numArestes;
+        inici[numArestes] = numPassos;
+        this.destins = Arrays.copyOf(dest, numArestes);
+        this.costos = Arrays.copyOf(cost, numArestes);
+        this.iniciPassos = Arrays.copyOf(inici, numArestes + 1);
+        this.passos = Arrays.copyOf(pas, numPassos);
+    }
+
+    private boolean esPuntDecisio(int c, int[] graus, Mapa inicial) {
+        int cell = tauler.getCell(c);
+        if (cell == Mapa.PARET) return false;
+        if (cell != Mapa.ESPAI) return true; // clau, porta o sortida
+        for (int a = 1; a <= inicial.getNumAgents(); a++) {
+            if (inicial.getCellaAgent(a) == c) return true;
+        }
+        if (graus[c] < 3) return false;
+        for (int d = 0; d < Tauler.DIRECCIONS.length; d++) {
+            int v = tauler.veiTransitable(c, d);
+            if (v >= 0 && graus[v] <= 2) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return el nombre de punts de decisió
+     */
+    public int getNumPunts() { return cellesPunts.length; }
+
+    /**
+     * @return el nombre d'arestes (dirigides)
+     */
+    public int getNumArestes() { return destins.length; }
+
+    /**
+     * @return true si la cel·la és un punt de decisió
+     */
+    public boolean esPunt(int cella) { return indexPunt[cella] >= 0; }
+
+    /**
+     * @return la primera aresta que surt de la cel·la (un punt de decisió)
+     */
+    public int primeraAresta(int cella) { return primeraAresta[indexPunt[cella]]; }
+
+    /**
+     * @return l'aresta següent a l'última que surt de la cel·la (un punt de decisió)
+     */
+    public int fiArestes(int cella) { return primeraAresta[indexPunt[cella] + 1]; }
+
+    /**
+     * @return la cel·la destí de l'aresta
+     */
+    public int desti(int aresta) { return destins[aresta]; }
+
+    /**
+     * @return el nombre de passos de l'aresta
+     */
+    public int cost(int aresta) { return costos[aresta]; }
+
+    /**
+     * @return la direcció (índex a Direccio.values()) del pas i-èssim de l'aresta
+     */
+    public int direccio(int aresta, int i) { return passos[iniciPassos[aresta] + i]; }
+}
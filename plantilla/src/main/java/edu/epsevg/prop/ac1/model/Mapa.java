@@ -4,11 +4,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Representa l'estat del mapa: grid, posicions agents (indexades per id 1..n),
+ * Representa l'estat del mapa: tauler (compartit), posicions agents (indexades per id 1..n),
  * i bitmask de claus.
  *
  * Codifiquem:
@@ -17,14 +18,21 @@ import java.util.List;
  *  - SORTIDA = -2
  *  - claus: ascii 'a'..'z' (valors positius > 0)
  *  - portes: ascii 'A'..'Z' (valors positius > 0)
+ *
+ * La part estàtica (parets, portes, claus i sortida) viu al Tauler, que és immutable
+ * i compartit per tots els estats d'una cerca. Cada Mapa només guarda les cel·les
+ * dels agents, la màscara de claus i la clau Zobrist (veure getZobrist), de manera
+ * que mou() costa O(agents), hashCode() O(1) i equals() O(agents) i no O(n·m).
+ *
+ * Amb un tauler simètric (veure ambSimetria) les cel·les dels agents es guarden
+ * ordenades: l'identificador d'un agent és llavors la seva posició dins d'aquest
+ * ordre, i un moviment d'un estat es refereix a l'ordre d'aquell estat.
  */
 public class Mapa {
-    private final int n;
-    private final int m;
-    private final int[][] grid; // conservem caràcters ordinals o codis
-    private final List<Posicio> agents; // agents indexats a partir de 1 (index 0 -> agent 1)
+    private final Tauler tauler;
+    private final int[] agents; // cel·les dels agents (index 0 -> agent 1)
     private int clausMask;
-    private Posicio sortida;
+    private long zobrist; // veure getZobrist
     
     /**
      * Definicions dels valors del grid: PARET
@@ -43,74 +51,92 @@ public class Mapa {
      * Constructor a partir d'un arxiu
      */
     public Mapa(Path fitxer) throws IOException {
-        List<String> lines = Files.readAllLines(fitxer);
-        this.n = lines.size();
-        this.m = lines.get(0).length();
-        this.grid = new int[n][m];
-        this.agents = new ArrayList<>();
+        this(Files.readAllLines(fitxer));
+    }
+
+    /**
+     * Constructor a partir de les línies d'un mapa (mateix format que els arxius .map)
+     */
+    public Mapa(List<String> lines) {
+        List<Integer> cellesAgents = new ArrayList<>();
+        this.tauler = new Tauler(lines, cellesAgents);
+        this.agents = new int[cellesAgents.size()];
+        for (int i = 0; i < agents.length; i++) agents[i] = cellesAgents.get(i);
         this.clausMask = 0;
+        this.zobrist = tauler.zobrist(agents, 0);
         
-        sortida = null;
-        
-        for (int i = 0; i < n; i++) {
-            String row = lines.get(i);
-            for (int j = 0; j < m; j++) {
-                char c = row.charAt(j);
-                switch (c) {
-                    case '#': grid[i][j] = PARET; break;
-                    case ' ': grid[i][j] = ESPAI; break;
-                    case '@': grid[i][j] = SORTIDA; sortida = new Posicio(i,j); break;
-                    default:
-                        if (Character.isDigit(c)) {
-                            // posem l'agent, però __NO__ es situa a la graella
-                            agents.add(new Posicio(i, j));
-                            grid[i][j] = ESPAI;
-                        } else if (Character.isLowerCase(c)) {
-                            grid[i][j] = c; // desem directament la lletra
-                        } else if (Character.isUpperCase(c)) {
-                            grid[i][j] = c; // desem directament la lletra
-                        } else {
-                            grid[i][j] = ESPAI;
-                        }
-                }
-            }
-        }
-        if(sortida==null) throw new RuntimeException("Sortida no definida.");
-        if(agents.size()==0) throw new RuntimeException("Agents no definits.");
+        if(agents.length==0) throw new RuntimeException("Agents no definits.");
     }
 
     /** 
      * Constructor còpia 
-     * Fa una "Deep copy" del mapa
+     * Comparteix el tauler i copia només l'estat variable (agents i claus)
      */
     public Mapa(Mapa other) {
-        this.n = other.n;
-        this.m = other.m;
-        this.grid = new int[n][m];
-        for (int i = 0; i < n; i++) System.arraycopy(other.grid[i], 0, this.grid[i], 0, m);
-        
-        this.agents = new ArrayList<>();
-        for (Posicio p : other.agents) this.agents.add(new Posicio(p.x, p.y));
-        this.clausMask = other.clausMask;
-        this.sortida = other.sortida;  // IMPORTANT!
+        this(other.tauler, other.agents.clone(), other.clausMask, other.zobrist);
+    }
+
+    private Mapa(Tauler tauler, int[] agents, int clausMask) {
+        this(tauler, agents, clausMask, tauler.zobrist(agents, clausMask));
+    }
+
+    /**
+     * @param zobrist la clau Zobrist de l'estat, ja calculada (veure getZobrist)
+     */
+    private Mapa(Tauler tauler, int[] agents, int clausMask, long zobrist) {
+        this.tauler = tauler;
+        this.agents = agents;
+        this.clausMask = clausMask;
+        this.zobrist = zobrist;
+        if (tauler.esSimetric()) ordena(agents);
+    }
+
+    /**
+     * Ordenació per inserció: els estats fills només mouen un agent, de manera que
+     * l'array ja està gairebé ordenat i el cost és O(agents)
+     */
+    private static void ordena(int[] agents) {
+        for (int i = 1; i < agents.length; i++) {
+            int c = agents[i], j = i - 1;
+            while (j >= 0 && agents[j] > c) {
+                agents[j + 1] = agents[j];
+                j--;
+            }
+            agents[j + 1] = c;
+        }
+    }
+
+    /**
+     * Forma canònica de l'estat: la mateixa posició sobre el tauler simètric
+     * (veure Tauler.ambSimetria), amb els agents ordenats per cel·la. Tots els estats
+     * que se'n generen (mou, desfes, descodifica amb el mateix tauler) també ho són.
+     * @return l'estat canònic (ell mateix si ja ho és)
+     */
+    public Mapa ambSimetria() {
+        if (tauler.esSimetric()) return this;
+        return new Mapa(tauler.ambSimetria(), agents.clone(), clausMask);
     }
 
     /**
      * Número de columnes
      * @return el nombre de columnes
      */
-    public int getN() { return n; }
+    public int getN() { return tauler.getN(); }
     
     /**
      * Número de files
      * @return el nombre de files
      */
-    public int getM() { return m; }
+    public int getM() { return tauler.getM(); }
     
     /**
      * @return Retorna la llista immutable de la posició dels agents
      */
-    public List<Posicio> getAgents() { return Collections.unmodifiableList(agents); }
+    public List<Posicio> getAgents() {
+        Posicio[] res = new Posicio[agents.length];
+        for (int i = 0; i < agents.length; i++) res[i] = tauler.posicio(agents[i]);
+        return Collections.unmodifiableList(Arrays.asList(res));
+    }
     
     /**
      * @return la màscara binària en format int de les claus. Cada clau és un bit, començant per la a (bit menys significant),b,c...
@@ -120,6 +146,33 @@ public class Mapa {
      */
     public int getClausMask() { return clausMask; }
 
+    /**
+     * @return el tauler estàtic (compartit entre tots els estats)
+     */
+    public Tauler getTauler() { return tauler; }
+
+    /**
+     * @return el nombre d'agents
+     */
+    public int getNumAgents() { return agents.length; }
+
+    /**
+     * @param agentId l'identificador de l'agent (1,2,...)
+     * @return la cel·la (índex pla del tauler) on és l'agent
+     */
+    public int getCellaAgent(int agentId) { return agents[agentId - 1]; }
+
+    /**
+     * @param cella la cel·la (índex pla del tauler)
+     * @return l'identificador (1..k) de l'agent que hi ha a la cel·la, 0 si no n'hi ha cap
+     */
+    public int agentA(int cella) {
+        for (int i = 0; i < agents.length; i++) {
+            if (agents[i] == cella) return i + 1;
+        }
+        return 0;
+    }
+
     /**
      * Permet saber si una posició conté la sortida
      * @return true si la posició és la sortida, false altrament
@@ -132,8 +185,7 @@ public class Mapa {
      * @return el valor de la cella (veure constants PARET, ESPAI, SORTIDA)
      */
     private int getCell(Posicio p) {
-        if (p.x < 0 || p.x >= n || p.y < 0 || p.y >= m) return PARET;
-        return grid[p.x][p.y];
+        return tauler.getCell(tauler.cella(p));
     }
 
     /**
@@ -141,6 +193,7 @@ public class Mapa {
      */
     private void setClauRecollida(char key) {
         int idx = key - 'a';
+        if ((clausMask & (1 << idx)) == 0) zobrist ^= tauler.zobristClau(idx);
         clausMask |= (1 << idx);
     }
 
@@ -164,43 +217,189 @@ public class Mapa {
         return teClau(key);
     }
 
+    /**
+     * Comprova si algun altre agent (diferent de aid) ocupa la cel·la
+     */
+    private boolean ocupada(int cella, int aid) {
+        for (int i = 0; i < agents.length; i++) {
+            if (i != aid - 1 && agents[i] == cella) return true;
+        }
+        return false;
+    }
+
     /** 
      * Aplica el moviment SOBRE UNA CÒPIA (no altera el mapa actual)
      * @return  la nova instància amb el moviment ja fet.
      */
     public Mapa mou(Moviment acc) {
-        Mapa nou = new Mapa(this);
         int aid = acc.getAgentId();
-        if (aid < 1 || aid > nou.agents.size()) throw new IllegalArgumentException("Agent id invalid");
-        Posicio actual = nou.agents.get(aid - 1);
-        Posicio dest = actual.translate(acc.getDireccio());
+        if (aid < 1 || aid > agents.length) throw new IllegalArgumentException("Agent id invalid");
+        int dest = tauler.vei(agents[aid - 1], acc.getDireccio());
 
-        int cell = nou.getCell(dest);
+        int cell = tauler.getCell(dest);
         if (cell == PARET) throw new IllegalArgumentException("Moviment cap a mur");
         if (Character.isUpperCase(cell)) {
             // porta
-            if (!nou.portaObrible((char) cell)) throw new IllegalArgumentException("Porta tancada");
+            if (!portaObrible((char) cell)) throw new IllegalArgumentException("Porta tancada");
         }
         // no permetre col·lisions
-        for (int i = 0; i < nou.agents.size(); i++) {
-            if (i == aid-1) continue;
-            Posicio p = nou.agents.get(i);
-            if (p.equals(dest)) throw new IllegalArgumentException("Colisio amb altre agent");
-        }
+        if (ocupada(dest, aid)) throw new IllegalArgumentException("Colisio amb altre agent");
+
         // aplicar moviment
-        nou.agents.set(aid - 1, dest);
-        // si hi ha clau i no la teniem, recollir-la
+        int[] nousAgents = agents.clone();
+        nousAgents[aid - 1] = dest;
+        Mapa nou = new Mapa(tauler, nousAgents, clausMask, moure(aid - 1, dest));
+        // si hi ha clau i no la teniem, recollir-la (la màscara ja indica que la cel·la és buida)
         if (Character.isLowerCase(cell)) {
             char key = (char) cell;
-            if (!nou.teClau(key)) {
-                // recollir
-                nou.setClauRecollida(key);                
-                nou.grid[dest.x][dest.y] = ESPAI;
-            }
+            if (!nou.teClau(key)) nou.setClauRecollida(key);
         }
         return nou;
     }
 
+    /**
+     * Aplica el moviment codificat (veure Moviment.codi) SOBRE UNA CÒPIA.
+     * Versió ràpida de mou(Moviment) per als codis que retorna generaMoviments():
+     * no torna a validar el moviment.
+     * @return la nova instància amb el moviment ja fet.
+     */
+    public Mapa mou(int codi) {
+        int idx = Moviment.agentDeCodi(codi) - 1;
+        int dest = tauler.veiTransitable(agents[idx], (codi >> 1) & 3);
+        int[] nousAgents = agents.clone();
+        nousAgents[idx] = dest;
+        int mask = clausMask;
+        long z = moure(idx, dest);
+        if ((codi & 1) != 0) {
+            int lletra = tauler.getCell(dest) - 'a';
+            mask |= 1 << lletra;
+            z ^= tauler.zobristClau(lletra);
+        }
+        return new Mapa(tauler, nousAgents, mask, z);
+    }
+
+    /**
+     * @return la clau Zobrist d'aquest estat amb l'agent idx (0..k-1) a la cel·la
+     */
+    private long moure(int idx, int cella) {
+        return zobrist ^ tauler.zobristAgent(idx, agents[idx]) ^ tauler.zobristAgent(idx, cella);
+    }
+
+    /**
+     * Porta l'agent directament a la cel·la SOBRE UNA CÒPIA, recollint-hi la clau si n'hi ha.
+     * No comprova el camí ni les col·lisions: és per a macro-moviments que ja els han
+     * validat (veure GrafMacro).
+     * @return la nova instància amb l'agent a la cel·la.
+     */
+    public Mapa desplaca(int agentId, int cella) {
+        int[] nousAgents = agents.clone();
+        nousAgents[agentId - 1] = cella;
+        int mask = clausMask;
+        long z = moure(agentId - 1, cella);
+        int cell = tauler.getCell(cella);
+        if (cell >= 'a' && cell <= 'z' && (mask & (1 << (cell - 'a'))) == 0) {
+            mask |= 1 << (cell - 'a');
+            z ^= tauler.zobristClau(cell - 'a');
+        }
+        return new Mapa(tauler, nousAgents, mask, z);
+    }
+
+    /**
+     * Desfà el moviment codificat (veure Moviment.codi): retorna l'estat des del qual
+     * mou(codi) porta a aquest. Només té sentit si codi és l'últim moviment aplicat.
+     * L'agent del codi és el d'aquest estat (amb tauler simètric, l'índex que té l'agent
+     * mogut després d'ordenar; veure agentA).
+     * @return la nova instància amb el moviment desfet.
+     */
+    public Mapa desfes(int codi) {
+        int idx = Moviment.agentDeCodi(codi) - 1;
+        int[] nousAgents = agents.clone();
+        int mask = clausMask;
+        long z = zobrist;
+        if ((codi & 1) != 0) {
+            int lletra = tauler.getCell(agents[idx]) - 'a';
+            mask &= ~(1 << lletra);
+            z ^= tauler.zobristClau(lletra);
+        }
+        // Les direccions van per parelles oposades (AMUNT/AVALL, ESQUERRA/DRETA)
+        nousAgents[idx] = tauler.veiTransitable(agents[idx], ((codi >> 1) & 3) ^ 1);
+        z ^= tauler.zobristAgent(idx, agents[idx]) ^ tauler.zobristAgent(idx, nousAgents[idx]);
+        return new Mapa(tauler, nousAgents, mask, z);
+    }
+
+    /**
+     * Genera els codis dels moviments possibles (veure Moviment.codi) dins del buffer,
+     * amb el mateix ordre i criteris que getAccionsPossibles(), però sense crear objectes.
+     * Les col·lisions es comproven en O(1) amb la marca d'ocupació del buffer.
+     * @param buf el buffer on s'escriuen els codis (es buida abans)
+     */
+    public void generaMoviments(BufferMoviments buf) {
+        generaMoviments(buf, -1);
+    }
+
+    /**
+     * Com generaMoviments(buf), però sense els moviments que podat() descarta després
+     * d'un moviment que ha acabat a ultimaCella (reducció d'ordre parcial).
+     * @param ultimaCella la cel·la on ha acabat l'últim moviment, o -1 per no podar res
+     */
+    public void generaMoviments(BufferMoviments buf, int ultimaCella) {
+        buf.buida();
+        buf.marcaOcupades(agents, tauler.getNumCelles());
+        for (int i = 0; i < agents.length; i++) generaMovimentsAgent(buf, i, ultimaCella);
+    }
+
+    /**
+     * Com generaMoviments(buf, ultimaCella), però només els moviments d'un agent
+     * @param agentId l'agent (1..numAgents)
+     */
+    public void generaMoviments(BufferMoviments buf, int agentId, int ultimaCella) {
+        buf.buida();
+        buf.marcaOcupades(agents, tauler.getNumCelles());
+        generaMovimentsAgent(buf, agentId - 1, ultimaCella);
+    }
+
+    private void generaMovimentsAgent(BufferMoviments buf, int i, int ultimaCella) {
+        int posAgent = agents[i];
+        for (int d = 0; d < 4; d++) {
+            int dest = tauler.veiTransitable(posAgent, d);
+            // No podem moure'ns a una paret ni fora del tauler
+            if (dest < 0) continue;
+            int cell = tauler.getCell(dest);
+            // Si és una porta, hem de tenir la clau
+            if (cell >= 'A' && cell <= 'Z' && (clausMask & (1 << (cell - 'A'))) == 0) continue;
+            // Col·lisió amb un altre agent
+            if (buf.ocupada(dest)) continue;
+            if (ultimaCella >= 0 && podat(dest, ultimaCella)) continue;
+            // Determinar si recollim una clau
+            int recull = (cell >= 'a' && cell <= 'z' && (clausMask & (1 << (cell - 'a'))) == 0) ? 1 : 0;
+            buf.afegeix((i * 4 + d) * 2 + recull);
+        }
+    }
+
+    /**
+     * Regla de la reducció d'ordre parcial. Sigui m l'últim moviment (un agent de y a
+     * ultimaCella) i m' un moviment d'un altre agent que acaba a desti. Si desti no és
+     * veïna de ultimaCella (no pot ser y) i m no hi ha recollit la clau de la porta de
+     * desti, m' també es podia fer abans de m i els dos ordres porten al mateix estat.
+     * D'aquests parells només es conserva l'ordre amb la cel·la destí creixent.
+     * @return true si el moviment que acaba a desti es pot podar
+     */
+    public boolean podat(int desti, int ultimaCella) {
+        if (desti >= ultimaCella) return false;
+        // Veïnes amb índex menor: la de l'esquerra i la de dalt
+        int dif = ultimaCella - desti;
+        if (dif == 1 || dif == tauler.getM()) return false;
+        int cell = tauler.getCell(ultimaCella);
+        return !(cell >= 'a' && cell <= 'z' && tauler.getCell(desti) == cell - 'a' + 'A');
+    }
+
+    /**
+     * @return la cel·la on acaba el moviment codificat (veure Moviment.codi)
+     */
+    public int desti(int codi) {
+        return tauler.veiTransitable(agents[Moviment.agentDeCodi(codi) - 1], (codi >> 1) & 3);
+    }
+
     /** 
      * Obtenir els moviments possibles des de l'estat actual
      * @return la llista de moviments possibles des de l'estat actual:
@@ -208,52 +407,10 @@ public class Mapa {
      *  - indica recullClau=true si el destí té una clau que encara no s'ha recollit
      */
     public List<Moviment> getAccionsPossibles() {
-        List<Moviment> res = new ArrayList<>();
-        
-        // Per cada agent
-        for (int agentId = 1; agentId <= agents.size(); agentId++) {
-            Posicio posAgent = agents.get(agentId - 1);
-            
-            // Per cada direcció possible
-            for (Direccio dir : Direccio.values()) {
-                Posicio dest = posAgent.translate(dir);
-                
-                // Comprovar si el moviment és vàlid
-                int cell = getCell(dest);
-                
-                // No podem moure'ns a una paret
-                if (cell == PARET) continue;
-                
-                // Si és una porta, hem de tenir la clau
-                if (Character.isUpperCase(cell)) {
-                    if (!portaObrible((char) cell)) continue;
-                }
-                
-                // Comprovar col·lisions amb altres agents
-                boolean colisio = false;
-                for (int i = 0; i < agents.size(); i++) {
-                    if (i == agentId - 1) continue;
-                    if (agents.get(i).equals(dest)) {
-                        colisio = true;
-                        break;
-                    }
-                }
-                if (colisio) continue;
-                
-                // Determinar si recollim una clau
-                boolean recullClau = false;
-                if (Character.isLowerCase(cell)) {
-                    char key = (char) cell;
-                    if (!teClau(key)) {
-                        recullClau = true;
-                    }
-                }
-                
-                // Afegir el moviment vàlid
-                res.add(new Moviment(agentId, dir, recullClau));
-            }
-        }
-        
+        BufferMoviments buf = new BufferMoviments();
+        generaMoviments(buf);
+        List<Moviment> res = new ArrayList<>(buf.mida());
+        for (int i = 0; i < buf.mida(); i++) res.add(Moviment.deCodi(buf.get(i)));
         return res;
     }
 
@@ -262,10 +419,42 @@ public class Mapa {
      * @return true si algun agent ha arribat a la sortida 
      */
     public boolean esMeta() {
-        for (Posicio p : agents) if (esSortida(p)) return true;
+        for (int c : agents) if (tauler.getCell(c) == SORTIDA) return true;
         return false;
     }
 
+    /**
+     * @return la part baixa de l'estat empaquetat (màscara de claus i cel·les dels agents)
+     */
+    public long getCodi() { return tauler.codifica(agents, clausMask, 0); }
+
+    /**
+     * @return la part alta de l'estat empaquetat (0 si tot l'estat cap en getCodi())
+     */
+    public long getCodiAlt() { return tauler.codifica(agents, clausMask, 1); }
+
+    /**
+     * Clau Zobrist de l'estat: XOR de claus aleatòries de 64 bits per cada (agent, cel·la)
+     * i cada clau recollida (veure Tauler.zobrist). Es manté en O(1) a cada moviment i
+     * les taules d'estats la fan servir com a hash, sense recórrer els agents. Dos estats
+     * iguals tenen la mateixa clau; dos de diferents poden coincidir (molt poc probable),
+     * per tant no substitueix la comparació dels codis empaquetats.
+     */
+    public long getZobrist() { return zobrist; }
+
+    /**
+     * Reconstrueix un estat a partir de la seva forma empaquetada
+     * @param tauler el tauler compartit
+     * @param k el nombre d'agents
+     * @param codi la part baixa (veure getCodi)
+     * @param codiAlt la part alta (veure getCodiAlt)
+     */
+    public static Mapa descodifica(Tauler tauler, int k, long codi, long codiAlt) {
+        int[] agents = new int[k];
+        int mask = tauler.descodifica(codi, codiAlt, agents);
+        return new Mapa(tauler, agents, mask);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -273,45 +462,24 @@ public class Mapa {
         
         Mapa other = (Mapa) o;
         
-        // Comparar màscara de claus (molt ràpid)
-        if (this.clausMask != other.clausMask) return false;
+        // Comparar la clau Zobrist i la màscara de claus (molt ràpid)
+        if (this.zobrist != other.zobrist || this.clausMask != other.clausMask) return false;
         
         // Comparar posicions dels agents (ràpid)
-        if (this.agents.size() != other.agents.size()) return false;
-        for (int i = 0; i < this.agents.size(); i++) {
-            if (!this.agents.get(i).equals(other.agents.get(i))) return false;
-        }
-        
-        // NO cal comparar tot el grid!
-        // El grid només canvia quan recollim claus, i això ja està reflectit
-        // en clausMask. Les parets i portes són constants del mapa.
-        
-        return true;
+        // El tauler és constant i compartit, no cal comparar-lo cel·la a cel·la
+        return this.tauler == other.tauler && Arrays.equals(this.agents, other.agents);
     }
 
     @Override
     public int hashCode() {
-        int result = 17;
-        
-        // Hash de les posicions dels agents
-        for (Posicio p : agents) {
-            result = 31 * result + p.hashCode();
-        }
-        
-        // Hash de la màscara de claus
-        result = 31 * result + clausMask;
-        
-        // NO recorrem el grid - això és massa lent!
-        // Els agents + clausMask ja identifiquen únicament l'estat
-        
-        return result;
+        return (int) (zobrist ^ (zobrist >>> 32));
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Agents:");
-        for (int i = 0; i < agents.size(); i++) sb.append(" ").append(i+1).append(agents.get(i));
+        for (int i = 0; i < agents.length; i++) sb.append(" ").append(i+1).append(tauler.posicio(agents[i]));
         sb.append(" clausMask=").append(Integer.toBinaryString(clausMask));
         return sb.toString();
     }
@@ -320,7 +488,7 @@ public class Mapa {
      * @return la posició de sortida del mapa
      */
     public Posicio getSortidaPosicio() {
-        return sortida;
+        return tauler.posicio(tauler.getSortida());
     }
 
     
@@ -334,20 +502,29 @@ public class Mapa {
      */
     public List<Posicio> getClausPendents() {
         List<Posicio> clausPendents = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < m; j++) {
-                int cell = grid[i][j];
-                if (Character.isLowerCase(cell)) {
-                    char key = (char) cell;
-                    if (!teClau(key)) {
-                        clausPendents.add(new Posicio(i, j));
-                    }
-                }
+        for (int c : tauler.getCellesClaus()) {
+            if (!teClau((char) tauler.getCell(c))) {
+                clausPendents.add(tauler.posicio(c));
             }
         }
         return clausPendents;
     }
 
+    /**
+     * Màscara de les claus que apareixen al tauler i encara no s'han recollit.
+     * Permet recórrer les claus pendents sense crear objectes:
+     * <pre>
+     *   for (int p = estat.getClausPendentsMask(); p != 0; p &amp;= p - 1) {
+     *       int clau = Integer.numberOfTrailingZeros(p);
+     *       for (int c : estat.getTauler().getCellesClau(clau)) ...
+     *   }
+     * </pre>
+     * @return la màscara (mateix format que getClausMask())
+     */
+    public int getClausPendentsMask() {
+        return tauler.getClausPresents() & ~clausMask;
+    }
+
     /**
      * Calcula la distància de Manhattan entre dues posicions
      * @param p1 primera posició
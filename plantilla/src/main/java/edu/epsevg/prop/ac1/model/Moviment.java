@@ -21,6 +21,65 @@ public class Moviment {
         this.recullClau = recullClau;
     }
 
+    //===================================================================
+    // Moviments compartits (flyweight) i codificació entera
+    //===================================================================
+
+    /** Nombre d'agents amb moviments precreats a la taula compartida */
+    private static final int MAX_AGENTS_TAULA = 32;
+    private static final Direccio[] DIRECCIONS = Direccio.values();
+    private static final Moviment[] TAULA = new Moviment[MAX_AGENTS_TAULA * DIRECCIONS.length * 2];
+    static {
+        for (int codi = 0; codi < TAULA.length; codi++) {
+            TAULA[codi] = new Moviment(codi / (DIRECCIONS.length * 2) + 1, DIRECCIONS[(codi >> 1) % DIRECCIONS.length], (codi & 1) != 0);
+        }
+    }
+
+    /**
+     * Codifica un moviment com un enter: ((agentId-1) * 4 + direcció) * 2 + recullClau
+     */
+    public static int codi(int agentId, Direccio direccio, boolean recullClau) {
+        return ((agentId - 1) * DIRECCIONS.length + direccio.ordinal()) * 2 + (recullClau ? 1 : 0);
+    }
+
+    /**
+     * @return el moviment corresponent al codi. Per als agents habituals és una instància
+     *         compartida (no es crea cap objecte).
+     */
+    public static Moviment deCodi(int codi) {
+        if (codi < TAULA.length) return TAULA[codi];
+        return new Moviment(codi / (DIRECCIONS.length * 2) + 1, DIRECCIONS[(codi >> 1) % DIRECCIONS.length], (codi & 1) != 0);
+    }
+
+    /**
+     * @return el moviment compartit equivalent a new Moviment(agentId, direccio, recullClau)
+     */
+    public static Moviment de(int agentId, Direccio direccio, boolean recullClau) {
+        return deCodi(codi(agentId, direccio, recullClau));
+    }
+
+    /**
+     * @return l'agent (1,2,..) codificat dins del codi de moviment
+     */
+    public static int agentDeCodi(int codi) { return codi / (DIRECCIONS.length * 2) + 1; }
+
+    /**
+     * @return la direcció codificada dins del codi de moviment
+     */
+    public static Direccio direccioDeCodi(int codi) { return DIRECCIONS[(codi >> 1) % DIRECCIONS.length]; }
+
+    /**
+     * @return el mateix codi de moviment (direcció i recullClau) aplicat a un altre agent
+     */
+    public static int ambAgent(int codi, int agentId) {
+        return codi % (DIRECCIONS.length * 2) + (agentId - 1) * DIRECCIONS.length * 2;
+    }
+
+    /**
+     * @return el codi enter d'aquest moviment (veure codi(...))
+     */
+    public int getCodi() { return codi(agentId, direccio, recullClau); }
+
     /**
      * @return l'Id (1,2,..) de l'agent que ha mogut
      */
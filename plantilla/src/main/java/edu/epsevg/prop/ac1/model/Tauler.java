@@ -0,0 +1,425 @@
+package edu.epsevg.prop.ac1.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Disposició estàtica i immutable d'un mapa: parets, portes, claus i sortida.
+ *
+ * Totes les instàncies de Mapa generades durant una cerca comparteixen el mateix
+ * Tauler; només l'estat variable (posicions dels agents i màscara de claus) es
+ * copia en cada moviment.
+ *
+ * Les cel·les s'adrecen amb un índex pla: cella = fila * m + columna.
+ *
+ * Un tauler simètric (veure ambSimetria) és la mateixa disposició amb els agents
+ * intercanviables: els estats que el fan servir es guarden en forma canònica.
+ */
+public final class Tauler {
+    static final Direccio[] DIRECCIONS = Direccio.values();
+
+    private final int n;
+    private final int m;
+    private final int[] cells; // mateixa codificació que Mapa (PARET, ESPAI, SORTIDA, lletres)
+    private final Posicio[] posicions; // una Posicio compartida per cel·la
+    private final int sortida;
+    private final int bitsCella; // bits per codificar una cel·la dins l'estat empaquetat
+    private final int[] fontClau; // lletra de clau (0..25) -> índex de camp de distàncies, -1 si no hi és
+    private final int[] distancies; // camps de distàncies, [font * numCelles + cella]
+    private final int[] cellesClaus; // totes les cel·les amb clau, en ordre de fila
+    private final int[][] cellesPerClau; // lletra (0..25) -> cel·les amb aquella clau
+    private final int[][] cellesPerPorta; // lletra (0..25) -> cel·les amb aquella porta
+    private final int clausPresents; // màscara de les lletres de clau que apareixen al tauler
+    private final int[] veins; // [cella * 4 + direcció] -> cel·la veïna transitable, -1 si és paret o fora
+    private final boolean simetric; // els estats guarden els agents ordenats per cel·la (veure ambSimetria)
+    private final long[] zobristAgents; // [agent * numCelles + cella]; una sola fila si és simètric
+    private final long[] zobristClaus;  // lletra de clau (0..25) -> clau aleatòria
+    private Tauler versioSimetrica;
+
+    /**
+     * Construeix el tauler a partir de les línies d'un fitxer .map.
+     * Els agents NO es desen al tauler: es retornen a través de la llista agents.
+     * @param lines les línies del fitxer
+     * @param agents llista on s'afegeixen (en ordre de lectura) les cel·les dels agents
+     */
+    Tauler(List<String> lines, List<Integer> agents) {
+        this.n = lines.size();
+        this.m = lines.get(0).length();
+        this.cells = new int[n * m];
+        this.posicions = new Posicio[n * m];
+
+        int sortida = -1;
+        for (int i = 0; i < n; i++) {
+            String row = lines.get(i);
+            for (int j = 0; j < m; j++) {
+                int c = i * m + j;
+                posicions[c] = new Posicio(i, j);
+                char ch = j < row.length() ? row.charAt(j) : '#';
+                switch (ch) {
+                    case '#': cells[c] = Mapa.PARET; break;
+                    case ' ': cells[c] = Mapa.ESPAI; break;
+                    case '@': cells[c] = Mapa.SORTIDA; sortida = c; break;
+                    default:
+                        if (Character.isDigit(ch)) {
+                            // posem l'agent, però __NO__ es situa a la graella
+                            agents.add(c);
+                            cells[c] = Mapa.ESPAI;
+                        } else if (Character.isLowerCase(ch)) {
+                            cells[c] = ch; // desem directament la lletra
+                        } else if (Character.isUpperCase(ch)) {
+                            cells[c] = ch; // desem directament la lletra
+                        } else {
+                            cells[c] = Mapa.ESPAI;
+                        }
+                }
+            }
+        }
+        if (sortida < 0) throw new RuntimeException("Sortida no definida.");
+        this.sortida = sortida;
+        this.bitsCella = Math.max(1, 32 - Integer.numberOfLeadingZeros(cells.length - 1));
+
+        // Taula de veïns: evita recalcular coordenades i comprovar límits a cada moviment
+        this.veins = new int[cells.length * DIRECCIONS.length];
+        for (int c = 0; c < cells.length; c++) {
+            for (Direccio d : DIRECCIONS) {
+                int v = cella(c / m + d.dx, c % m + d.dy);
+                veins[c * DIRECCIONS.length + d.ordinal()] = (v < 0 || cells[v] == Mapa.PARET) ? -1 : v;
+            }
+        }
+
+        // Índex de claus i portes
+        int[] numClau = new int[BITS_CLAUS];
+        int[] numPorta = new int[BITS_CLAUS];
+        int totalClaus = 0;
+        for (int cell : cells) {
+            if (Character.isLowerCase(cell) && cell - 'a' < BITS_CLAUS) { numClau[cell - 'a']++; totalClaus++; }
+            if (Character.isUpperCase(cell) && cell - 'A' < BITS_CLAUS) numPorta[cell - 'A']++;
+        }
+        this.cellesClaus = new int[totalClaus];
+        this.cellesPerClau = new int[BITS_CLAUS][];
+        this.cellesPerPorta = new int[BITS_CLAUS][];
+        int presents = 0;
+        for (int k = 0; k < BITS_CLAUS; k++) {
+            cellesPerClau[k] = new int[numClau[k]];
+            cellesPerPorta[k] = new int[numPorta[k]];
+            if (numClau[k] > 0) presents |= 1 << k;
+            numClau[k] = 0;
+            numPorta[k] = 0;
+        }
+        this.clausPresents = presents;
+        totalClaus = 0;
+        for (int c = 0; c < cells.length; c++) {
+            int cell = cells[c];
+            if (Character.isLowerCase(cell) && cell - 'a' < BITS_CLAUS) {
+                cellesClaus[totalClaus++] = c;
+                cellesPerClau[cell - 'a'][numClau[cell - 'a']++] = c;
+            }
+            if (Character.isUpperCase(cell) && cell - 'A' < BITS_CLAUS) {
+                cellesPerPorta[cell - 'A'][numPorta[cell - 'A']++] = c;
+            }
+        }
+
+        // Camps de distàncies: font 0 = sortida, després una font per cada lletra de clau present
+        this.fontClau = new int[BITS_CLAUS];
+        Arrays.fill(fontClau, -1);
+        int fonts = 1;
+        for (int k = 0; k < BITS_CLAUS; k++) {
+            if ((clausPresents & (1 << k)) != 0) fontClau[k] = fonts++;
+        }
+        this.distancies = new int[fonts * cells.length];
+        int[] cua = new int[cells.length];
+        omplirDistancies(0, cua);
+        for (int k = 0; k < BITS_CLAUS; k++) {
+            if (fontClau[k] >= 0) omplirDistancies(fontClau[k], cua);
+        }
+        this.simetric = false;
+
+        // Claus Zobrist: aleatòries però fixes, perquè els hash siguin reproduïbles
+        SplittableRandom rnd = new SplittableRandom(LLAVOR_ZOBRIST);
+        this.zobristAgents = new long[Math.max(1, agents.size()) * cells.length];
+        for (int i = 0; i < zobristAgents.length; i++) zobristAgents[i] = rnd.nextLong();
+        this.zobristClaus = new long[BITS_CLAUS];
+        for (int i = 0; i < BITS_CLAUS; i++) zobristClaus[i] = rnd.nextLong();
+    }
+
+    /**
+     * Còpia que comparteix tota la disposició i només canvia el mode simètric
+     */
+    private Tauler(Tauler t) {
+        this.n = t.n;
+        this.m = t.m;
+        this.cells = t.cells;
+        this.posicions = t.posicions;
+        this.sortida = t.sortida;
+        this.bitsCella = t.bitsCella;
+        this.fontClau = t.fontClau;
+        this.distancies = t.distancies;
+        this.cellesClaus = t.cellesClaus;
+        this.cellesPerClau = t.cellesPerClau;
+        this.cellesPerPorta = t.cellesPerPorta;
+        this.clausPresents = t.clausPresents;
+        this.veins = t.veins;
+        this.simetric = true;
+        // Agents intercanviables: la clau d'un agent només depèn de la seva cel·la
+        this.zobristAgents = Arrays.copyOf(t.zobristAgents, t.cells.length);
+        this.zobristClaus = t.zobristClaus;
+        this.versioSimetrica = this;
+    }
+
+    /**
+     * Versió simètrica del tauler: els agents es consideren intercanviables i els
+     * estats (Mapa) que la fan servir guarden les cel·les dels agents en ordre creixent.
+     * Així, dos estats que només difereixen per una permutació dels agents són iguals
+     * (equals, hashCode, getCodi) i les cerques els detecten com a repetits.
+     * Es crea un cop i es reutilitza, de manera que les caches per tauler continuen servint.
+     * @return el tauler simètric (ell mateix si ja ho és)
+     */
+    public synchronized Tauler ambSimetria() {
+        if (versioSimetrica == null) versioSimetrica = new Tauler(this);
+        return versioSimetrica;
+    }
+
+    /**
+     * @return true si els estats d'aquest tauler guarden els agents en forma canònica
+     */
+    public boolean esSimetric() { return simetric; }
+
+    /**
+     * BFS multi-origen des de totes les cel·les de la font (la sortida o una lletra de clau).
+     * Les portes es consideren obertes, de manera que les distàncies són cotes inferiors
+     * del cost real sigui quina sigui la màscara de claus.
+     */
+    private void omplirDistancies(int font, int[] cua) {
+        int base = font * cells.length;
+        Arrays.fill(distancies, base, base + cells.length, INFINIT);
+        int cap = 0, fi = 0;
+        for (int c = 0; font == 0 && c < cells.length; c++) {
+            if (cells[c] == Mapa.SORTIDA) {
+                distancies[base + c] = 0;
+                cua[fi++] = c;
+            }
+        }
+        for (int k = 0; font > 0 && k < BITS_CLAUS; k++) {
+            if (fontClau[k] != font) continue;
+            for (int c : cellesPerClau[k]) {
+                distancies[base + c] = 0;
+                cua[fi++] = c;
+            }
+        }
+        while (cap < fi) {
+            int c = cua[cap++];
+            int d = distancies[base + c] + 1;
+            for (Direccio dir : DIRECCIONS) {
+                int v = vei(c, dir);
+                if (v < 0 || cells[v] == Mapa.PARET || distancies[base + v] != INFINIT) continue;
+                distancies[base + v] = d;
+                cua[fi++] = v;
+            }
+        }
+    }
+
+    /**
+     * @return el nombre de files
+     */
+    public int getN() { return n; }
+
+    /**
+     * @return el nombre de columnes
+     */
+    public int getM() { return m; }
+
+    /**
+     * @return el nombre total de cel·les (n*m)
+     */
+    public int getNumCelles() { return cells.length; }
+
+    /**
+     * @return l'índex pla de la cel·la (x,y), o -1 si és fora del tauler
+     */
+    public int cella(int x, int y) {
+        if (x < 0 || x >= n || y < 0 || y >= m) return -1;
+        return x * m + y;
+    }
+
+    /**
+     * @return l'índex pla de la posició p, o -1 si és fora del tauler
+     */
+    public int cella(Posicio p) { return cella(p.x, p.y); }
+
+    /**
+     * @return la cel·la veïna en la direcció d, o -1 si és fora del tauler
+     */
+    public int vei(int cella, Direccio d) {
+        return cella(cella / m + d.dx, cella % m + d.dy);
+    }
+
+    /**
+     * @return la cel·la veïna transitable (no paret) en la direcció d, o -1 si no n'hi ha.
+     *         Les portes es consideren transitables: cal comprovar-les a part.
+     */
+    public int veiTransitable(int cella, int d) {
+        return veins[cella * DIRECCIONS.length + d];
+    }
+
+    /**
+     * @return la Posicio (compartida) que correspon a la cel·la
+     */
+    public Posicio posicio(int cella) { return posicions[cella]; }
+
+    /**
+     * @return el valor de la cel·la (veure constants PARET, ESPAI, SORTIDA de Mapa), PARET si és fora
+     */
+    public int getCell(int cella) {
+        if (cella < 0) return Mapa.PARET;
+        return cells[cella];
+    }
+
+    /**
+     * @return la cel·la de la sortida
+     */
+    public int getSortida() { return sortida; }
+
+    /**
+     * @return totes les cel·les amb clau, en ordre de fila. L'array és compartit: no s'ha de modificar.
+     */
+    public int[] getCellesClaus() { return cellesClaus; }
+
+    /**
+     * @param clau l'índex de la clau (0 = 'a')
+     * @return les cel·les amb aquesta clau. L'array és compartit: no s'ha de modificar.
+     */
+    public int[] getCellesClau(int clau) { return cellesPerClau[clau]; }
+
+    /**
+     * @param porta l'índex de la porta (0 = 'A')
+     * @return les cel·les amb aquesta porta. L'array és compartit: no s'ha de modificar.
+     */
+    public int[] getCellesPorta(int porta) { return cellesPerPorta[porta]; }
+
+    /**
+     * @return la màscara de les claus que apareixen al tauler (mateix format que Mapa.getClausMask())
+     */
+    public int getClausPresents() { return clausPresents; }
+
+    /** Distància per les cel·les des de les quals no es pot arribar a la font */
+    public static final int INFINIT = Integer.MAX_VALUE / 4;
+
+    /**
+     * @return el mínim nombre de passos des de la cel·la fins la sortida, considerant
+     *         totes les portes obertes (INFINIT si no s'hi pot arribar)
+     */
+    public int distanciaSortida(int cella) {
+        return distancies[cella];
+    }
+
+    /**
+     * @return el mínim nombre de passos des de la cel·la fins a qualsevol cel·la amb la clau,
+     *         considerant totes les portes obertes (INFINIT si no s'hi pot arribar o la clau no existeix)
+     */
+    public int distanciaClau(char clau, int cella) {
+        int font = fontClau[clau - 'a'];
+        if (font < 0) return INFINIT;
+        return distancies[font * cells.length + cella];
+    }
+
+    /**
+     * Distància de Manhattan entre dues cel·les
+     */
+    public int distanciaManhattan(int c1, int c2) {
+        return Math.abs(c1 / m - c2 / m) + Math.abs(c1 % m - c2 % m);
+    }
+
+    //===================================================================
+    // Codificació empaquetada de l'estat
+    //===================================================================
+
+    /** Bits reservats per la màscara de claus ('a'..'z') */
+    public static final int BITS_CLAUS = 26;
+
+    /**
+     * @return el nombre de longs (1 o 2) que calen per empaquetar un estat amb k agents
+     */
+    public int getParaulesEstat(int k) {
+        int bits = BITS_CLAUS + k * bitsCella;
+        if (bits > 128) throw new IllegalStateException("Massa agents per empaquetar l'estat en 128 bits");
+        return bits > 64 ? 2 : 1;
+    }
+
+    /**
+     * Empaqueta la màscara i les cel·les dels agents com una seqüència de bits:
+     * primer els 26 bits de claus i després bitsCella bits per agent.
+     * @param part 0 pel long baix, 1 pel long alt
+     */
+    long codifica(int[] agents, int clausMask, int part) {
+        long lo = clausMask & ((1L << BITS_CLAUS) - 1);
+        long hi = 0;
+        int off = BITS_CLAUS;
+        for (int c : agents) {
+            long v = c;
+            if (off >= 64) {
+                hi |= v << (off - 64);
+            } else {
+                lo |= v << off;
+                if (off + bitsCella > 64) hi |= v >>> (64 - off);
+            }
+            off += bitsCella;
+        }
+        return part == 0 ? lo : hi;
+    }
+
+    /**
+     * Operació inversa de codifica: omple agents amb les cel·les i retorna la màscara
+     */
+    int descodifica(long lo, long hi, int[] agents) {
+        long mascaraCella = (1L << bitsCella) - 1;
+        int off = BITS_CLAUS;
+        for (int i = 0; i < agents.length; i++) {
+            long v;
+            if (off >= 64) {
+                v = hi >>> (off - 64);
+            } else {
+                v = lo >>> off;
+                if (off + bitsCella > 64) v |= hi << (64 - off);
+            }
+            agents[i] = (int) (v & mascaraCella);
+            off += bitsCella;
+        }
+        return (int) (lo & ((1L << BITS_CLAUS) - 1));
+    }
+
+    //===================================================================
+    // Claus Zobrist
+    //===================================================================
+
+    private static final long LLAVOR_ZOBRIST = 0x5DEECE66DL;
+
+    /**
+     * Clau Zobrist d'un estat: XOR de la clau de cada (agent, cel·la) i de cada clau
+     * recollida. Mapa la manté en O(1) a cada moviment (veure zobristAgent i zobristClau).
+     * Amb tauler simètric la clau d'un agent no depèn del seu índex, de manera que no
+     * canvia en reordenar-los.
+     */
+    long zobrist(int[] agents, int clausMask) {
+        long z = 0;
+        for (int i = 0; i < agents.length; i++) z ^= zobristAgent(i, agents[i]);
+        for (int p = clausMask; p != 0; p &= p - 1) z ^= zobristClaus[Integer.numberOfTrailingZeros(p)];
+        return z;
+    }
+
+    /**
+     * @param idx índex de l'agent (0..k-1)
+     * @return la clau Zobrist de l'agent a la cel·la
+     */
+    long zobristAgent(int idx, int cella) {
+        return zobristAgents[simetric ? cella : idx * cells.length + cella];
+    }
+
+    /**
+     * @param lletra lletra de la clau (0..25)
+     * @return la clau Zobrist de tenir la clau recollida
+     */
+    long zobristClau(int lletra) {
+        return zobristClaus[lletra];
+    }
+}
@@ -13,6 +13,8 @@ import java.util.List;
  *     <li>incNodesExplorats(): Useu-lo per anar comptant nodes explorats.</li>
  *     <li>incNodesTallats(): Useu-lo per anar comptant nodes tallats.</li>
  *     <li>updateMemoria(int): Useu-lo per informar de la memòria consumida. </li> 
+ *     <li>incNodesOblidats() / incNodesRegenerats(): cerques amb memòria limitada.</li>
+ *     <li>incNodesReexpandits(): nodes que es tornen a expandir (p.ex. expansió parcial).</li>
  *     </ul>
  * Els mètodes startTime() i stiopTime() ja es criden des del mètode executarIRecollir().
  */
@@ -21,6 +23,9 @@ public class ResultatCerca {
     private int nodesExplorats;
     private int nodesTallats;
     private int memoriaPic;
+    private int nodesOblidats;
+    private int nodesRegenerats;
+    private int nodesReexpandits;
         
     private long inici;
     private long fi;
@@ -50,6 +55,13 @@ public class ResultatCerca {
         nodesExplorats++;
     }
     
+    /**
+     * Suma n nodes explorats de cop (cerques que compten per separat, p.ex. per fil)
+     */
+    public void incNodesExplorats(int n){
+        nodesExplorats += n;
+    }
+    
     /**
      * Incrementa en 1 els nodes tallats (prunning)
      */    
@@ -57,6 +69,34 @@ public class ResultatCerca {
         this.nodesTallats++;
     }
     
+    /**
+     * Suma n nodes tallats de cop
+     */
+    public void incNodesTallats(int n){
+        this.nodesTallats += n;
+    }
+    
+    /**
+     * Incrementa en 1 els nodes oblidats per falta de memòria
+     */
+    public void incNodesOblidats(){
+        this.nodesOblidats++;
+    }
+    
+    /**
+     * Incrementa en 1 els nodes oblidats que s'han tornat a generar
+     */
+    public void incNodesRegenerats(){
+        this.nodesRegenerats++;
+    }
+    
+    /**
+     * Incrementa en 1 les expansions d'un node que ja s'havia expandit
+     */
+    public void incNodesReexpandits(){
+        this.nodesReexpandits++;
+    }
+    
     /**
      * Permet informar de l'us de memòria actual. Si és el màxim històric, ResultatCerca el registra, sinó l'ignora.
      */
@@ -88,6 +128,9 @@ public class ResultatCerca {
     public int getNodesExplorats() { return nodesExplorats; }
     public int getNodesTallats() { return nodesTallats; }
     public int getMemoriaPic() { return memoriaPic; }
+    public int getNodesOblidats() { return nodesOblidats; }
+    public int getNodesRegenerats() { return nodesRegenerats; }
+    public int getNodesReexpandits() { return nodesReexpandits; }
     public long getTempsMs() { return fi-inici; }
 
     @Override
@@ -96,6 +139,8 @@ public class ResultatCerca {
                ", explorats=" + nodesExplorats +
                ", tallats=" + nodesTallats +
                ", memòria=" + memoriaPic +
+               (nodesOblidats > 0 ? ", oblidats=" + nodesOblidats + ", regenerats=" + nodesRegenerats : "") +
+               (nodesReexpandits > 0 ? ", reexpandits=" + nodesReexpandits : "") +
                ", temps=" + getTempsMs() + "ms";
     }
 }
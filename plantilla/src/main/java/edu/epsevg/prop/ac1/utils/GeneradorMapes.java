@@ -0,0 +1,572 @@
+package edu.epsevg.prop.ac1.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador procedural de mapes en el format .map (el que llegeix Mapa(Path)).
+ *
+ * Passos:
+ *  1. Parets exteriors i, si es demanen habitacions, particions BSP amb una
+ *     obertura a cada paret divisòria.
+ *  2. Parets aleatòries amb la densitat indicada. Després es reconnecten les
+ *     components aïllades obrint el camí més curt (en parets trencades) cap a la
+ *     component principal, de manera que totes les cel·les lliures queden connectades.
+ *  3. Agents en cel·les lliures aleatòries.
+ *  4. Per cada parell clau/porta (a/A, b/B, ...): la porta es posa a la regió
+ *     accessible amb les claus anteriors, preferint obertures entre habitacions i
+ *     cel·les de passadís que tallin la regió, i mai tallant el pas a una clau ja
+ *     posada. La clau es posa a la regió accessible amb la porta encara tancada.
+ *  5. La sortida es posa darrere de la darrera porta (o lluny dels agents si no n'hi ha).
+ *
+ * Per construcció el mapa és resoluble (es comprova igualment amb esResoluble).
+ * Els agents es bloquegen entre ells, però només cal que un arribi a la sortida i
+ * les claus són compartides: si un agent en talla el camí a un altre, el que talla
+ * pot continuar el camí des d'on és.
+ */
+public class GeneradorMapes {
+    private static final char PARET = '#';
+    private static final char LLIURE = '·';
+    private static final char SORTIDA = '@';
+    private static final int MIDA_MIN_HABITACIO = 3;
+    private static final int INTENTS_PORTA = 16;
+
+    private static final int[] MIDES_FAMILIA = {64, 128, 256, 512, 1024};
+    private static final int[] AGENTS_FAMILIA = {1, 2, 4, 6};
+    private static final int[] CLAUS_FAMILIA = {0, 5, 10, 20};
+
+    private final int files;
+    private final int columnes;
+    private double densitatParets = 0.15;
+    private int habitacions = 1;
+    private int numAgents = 1;
+    private int numClaus = 0;
+    private long llavor = 0;
+
+    // Estat d'una generació
+    private Random rnd;
+    private char[] g;
+    private int[] agents;
+    private final List<Integer> obertures = new ArrayList<>();
+    private int[] cua;
+    private boolean[] vist;
+    private int[] seguentPendent;
+    private int clausAbastades;
+
+    /**
+     * @param files nombre de files (com a mínim 5)
+     * @param columnes nombre de columnes (com a mínim 5)
+     */
+    public GeneradorMapes(int files, int columnes) {
+        if (files < 5 || columnes < 5) throw new IllegalArgumentException("El mapa ha de ser com a mínim de 5x5");
+        this.files = files;
+        this.columnes = columnes;
+    }
+
+    /**
+     * @param densitat proporció (0..1) de cel·les interiors que es tornen paret
+     */
+    public GeneradorMapes densitatParets(double densitat) {
+        if (densitat < 0 || densitat >= 1) throw new IllegalArgumentException("Densitat fora de rang: " + densitat);
+        this.densitatParets = densitat;
+        return this;
+    }
+
+    /**
+     * @param n nombre d'habitacions de la partició BSP (1 = sense particions).
+     *          Si no hi caben, se'n fan menys.
+     */
+    public GeneradorMapes habitacions(int n) {
+        if (n < 1) throw new IllegalArgumentException("Cal com a mínim una habitació");
+        this.habitacions = n;
+        return this;
+    }
+
+    /**
+     * @param n nombre d'agents (1..9, un dígit per agent)
+     */
+    public GeneradorMapes agents(int n) {
+        if (n < 1 || n > 9) throw new IllegalArgumentException("Nombre d'agents fora de rang (1..9): " + n);
+        this.numAgents = n;
+        return this;
+    }
+
+    /**
+     * @param n nombre de parells clau/porta (0..26)
+     */
+    public GeneradorMapes claus(int n) {
+        if (n < 0 || n > 26) throw new IllegalArgumentException("Nombre de claus fora de rang (0..26): " + n);
+        this.numClaus = n;
+        return this;
+    }
+
+    public GeneradorMapes llavor(long llavor) {
+        this.llavor = llavor;
+        return this;
+    }
+
+    /**
+     * Genera el mapa. Amb els mateixos paràmetres i llavor el resultat és idèntic.
+     * @return les línies del fitxer .map
+     */
+    public List<String> genera() {
+        int cel = files * columnes;
+        rnd = new Random(llavor);
+        g = new char[cel];
+        cua = new int[cel];
+        vist = new boolean[cel];
+        seguentPendent = new int[cel];
+        obertures.clear();
+
+        Arrays.fill(g, LLIURE);
+        for (int i = 0; i < files; i++) {
+            for (int j = 0; j < columnes; j++) {
+                if (i == 0 || j == 0 || i == files - 1 || j == columnes - 1) g[i * columnes + j] = PARET;
+            }
+        }
+        particiona();
+        paretsAleatories();
+        connecta();
+        posaAgents();
+        int[] darrera = posaClausIPortes();
+        posaSortida(darrera);
+
+        List<String> lines = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) lines.add(new String(g, i * columnes, columnes));
+        if (!esResoluble(lines)) throw new IllegalStateException("El mapa generat no és resoluble");
+        return lines;
+    }
+
+    /**
+     * Genera el mapa i l'escriu a fitxer
+     */
+    public void escriu(Path fitxer) throws IOException {
+        Files.write(fitxer, genera(), StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------- habitacions
+
+    private void particiona() {
+        // Rectangles interiors [f0, f1] x [c0, c1]; sempre es parteix el més gran
+        List<int[]> rects = new ArrayList<>();
+        rects.add(new int[] {1, files - 2, 1, columnes - 2});
+        while (rects.size() < habitacions) {
+            int millor = -1;
+            for (int r = 0; r < rects.size(); r++) {
+                if (potPartir(rects.get(r)) && (millor < 0 || area(rects.get(r)) > area(rects.get(millor)))) millor = r;
+            }
+            if (millor < 0) break;
+            int[] r = rects.remove(millor);
+            int[][] fills = parteix(r);
+            if (fills == null) { rects.add(millor, r); break; }
+            rects.add(fills[0]);
+            rects.add(fills[1]);
+        }
+    }
+
+    private static int area(int[] r) { return (r[1] - r[0] + 1) * (r[3] - r[2] + 1); }
+
+    private static boolean potPartir(int[] r) {
+        return r[1] - r[0] + 1 >= 2 * MIDA_MIN_HABITACIO + 1 || r[3] - r[2] + 1 >= 2 * MIDA_MIN_HABITACIO + 1;
+    }
+
+    /**
+     * Traça una paret divisòria amb una obertura. La paret no pot caure davant
+     * d'una obertura de la vora del rectangle, que quedaria tapada.
+     */
+    private int[][] parteix(int[] r) {
+        int alt = r[1] - r[0] + 1, ample = r[3] - r[2] + 1;
+        boolean horitzontal = alt >= 2 * MIDA_MIN_HABITACIO + 1
+                && (ample < 2 * MIDA_MIN_HABITACIO + 1 || alt > ample || (alt == ample && rnd.nextBoolean()));
+        int lo = (horitzontal ? r[0] : r[2]) + MIDA_MIN_HABITACIO;
+        int hi = (horitzontal ? r[1] : r[3]) - MIDA_MIN_HABITACIO;
+        int inici = lo + rnd.nextInt(hi - lo + 1);
+        for (int k = 0; k <= hi - lo; k++) {
+            int s = lo + (inici - lo + k) % (hi - lo + 1);
+            if (horitzontal) {
+                if (g[s * columnes + r[2] - 1] != PARET || g[s * columnes + r[3] + 1] != PARET) continue;
+                for (int j = r[2]; j <= r[3]; j++) g[s * columnes + j] = PARET;
+                int o = s * columnes + r[2] + rnd.nextInt(ample);
+                g[o] = LLIURE;
+                obertures.add(o);
+                return new int[][] {{r[0], s - 1, r[2], r[3]}, {s + 1, r[1], r[2], r[3]}};
+            } else {
+                if (g[(r[0] - 1) * columnes + s] != PARET || g[(r[1] + 1) * columnes + s] != PARET) continue;
+                for (int i = r[0]; i <= r[1]; i++) g[i * columnes + s] = PARET;
+                int o = (r[0] + rnd.nextInt(alt)) * columnes + s;
+                g[o] = LLIURE;
+                obertures.add(o);
+                return new int[][] {{r[0], r[1], r[2], s - 1}, {r[0], r[1], s + 1, r[3]}};
+            }
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- parets i connectivitat
+
+    private void paretsAleatories() {
+        boolean[] protegida = new boolean[g.length];
+        for (int o : obertures) {
+            protegida[o] = true;
+            for (int d = 0; d < 4; d++) protegida[vei(o, d)] = true;
+        }
+        for (int c = 0; c < g.length; c++) {
+            if (g[c] == LLIURE && !protegida[c] && rnd.nextDouble() < densitatParets) g[c] = PARET;
+        }
+    }
+
+    /**
+     * Etiqueta les components de cel·les lliures i uneix les petites a la més gran
+     * amb una BFS 0-1 (trencar una paret interior costa 1, passar per lliure 0).
+     */
+    private void connecta() {
+        int[] comp = new int[g.length];
+        Arrays.fill(comp, -1);
+        List<Integer> representants = new ArrayList<>();
+        int principal = -1, midaPrincipal = 0;
+        for (int c = 0; c < g.length; c++) {
+            if (g[c] == PARET || comp[c] >= 0) continue;
+            int id = representants.size();
+            representants.add(c);
+            int cap = 0, fi = 0;
+            cua[fi++] = c;
+            comp[c] = id;
+            while (cap < fi) {
+                int x = cua[cap++];
+                for (int d = 0; d < 4; d++) {
+                    int v = vei(x, d);
+                    if (g[v] != PARET && comp[v] < 0) { comp[v] = id; cua[fi++] = v; }
+                }
+            }
+            if (fi > midaPrincipal) { midaPrincipal = fi; principal = id; }
+        }
+        if (representants.isEmpty()) {
+            // tot paret: obrim el centre
+            g[(files / 2) * columnes + columnes / 2] = LLIURE;
+            return;
+        }
+        if (representants.size() == 1) return;
+
+        int[] dist = new int[g.length];
+        int[] pare = new int[g.length];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        for (int c = 0; c < g.length; c++) {
+            if (comp[c] == principal) { dist[c] = 0; pare[c] = -1; deque.add(c); }
+        }
+        while (!deque.isEmpty()) {
+            int x = deque.poll();
+            for (int d = 0; d < 4; d++) {
+                int v = vei(x, d);
+                if (esVora(v)) continue;
+                int cost = g[v] == PARET ? 1 : 0;
+                if (dist[x] + cost < dist[v]) {
+                    dist[v] = dist[x] + cost;
+                    pare[v] = x;
+                    if (cost == 0) deque.addFirst(v); else deque.addLast(v);
+                }
+            }
+        }
+        for (int id = 0; id < representants.size(); id++) {
+            if (id == principal) continue;
+            for (int x = representants.get(id); x >= 0 && dist[x] > 0; x = pare[x]) g[x] = LLIURE;
+        }
+    }
+
+    private boolean esVora(int c) {
+        int i = c / columnes, j = c % columnes;
+        return i == 0 || j == 0 || i == files - 1 || j == columnes - 1;
+    }
+
+    private int vei(int c, int d) {
+        switch (d) {
+            case 0: return c - columnes;
+            case 1: return c + columnes;
+            case 2: return c - 1;
+            default: return c + 1;
+        }
+    }
+
+    // ---------------------------------------------------------------- agents, claus, portes i sortida
+
+    private void posaAgents() {
+        agents = new int[numAgents];
+        List<Integer> lliures = new ArrayList<>();
+        for (int c = 0; c < g.length; c++) if (g[c] == LLIURE) lliures.add(c);
+        if (lliures.size() < numAgents + numClaus * 2 + 1) {
+            throw new IllegalArgumentException("No hi ha prou cel·les lliures per als agents, claus, portes i sortida");
+        }
+        for (int a = 0; a < numAgents; a++) {
+            int k = a + rnd.nextInt(lliures.size() - a);
+            int c = lliures.get(k);
+            lliures.set(k, lliures.get(a));
+            lliures.set(a, c);
+            agents[a] = c;
+            g[c] = (char) ('1' + a);
+        }
+    }
+
+    /**
+     * @return les cel·les que només són accessibles després d'obrir la darrera porta
+     *         (buit si no hi ha cap porta que talli)
+     */
+    private int[] posaClausIPortes() {
+        int[] darrera = new int[0];
+        int abans = accessibles();
+        for (int k = 0; k < numClaus; k++) {
+            char porta = (char) ('A' + k), clau = (char) ('a' + k);
+            int mascaraAnteriors = (1 << k) - 1;
+            boolean[] regioAbans = vist.clone();
+
+            int triada = -1, accessiblesTriada = 0;
+            List<Integer> candidates = candidatesPorta(regioAbans);
+            for (int i = 0; i < candidates.size() && i < INTENTS_PORTA; i++) {
+                int c = candidates.get(i);
+                g[c] = porta;
+                int n = accessibles();
+                if (n < abans && (clausAbastades & mascaraAnteriors) == mascaraAnteriors) {
+                    triada = c;
+                    accessiblesTriada = n;
+                    break;
+                }
+                g[c] = LLIURE;
+            }
+            for (int intent = 0; triada < 0; intent++) {
+                if (intent == 1000) throw new IllegalStateException("No es troba lloc per a la porta " + porta);
+                // cap candidata no talla la regió: en posem una qualsevol que no aïlli cap clau
+                abans = accessibles();
+                int c = cellaLliureAleatoria(abans);
+                g[c] = porta;
+                int n = accessibles();
+                if ((clausAbastades & mascaraAnteriors) == mascaraAnteriors) {
+                    triada = c;
+                    accessiblesTriada = n;
+                } else {
+                    g[c] = LLIURE;
+                }
+            }
+            // La clau, a la regió accessible amb la porta tancada (vist/cua en aquest estat)
+            int c = cellaLliureAleatoria(accessiblesTriada);
+            boolean[] regioTancada = vist.clone();
+            g[c] = clau;
+            abans = accessibles();
+            if (abans > accessiblesTriada) {
+                int n = 0;
+                int[] nous = new int[abans - accessiblesTriada];
+                for (int i = 0; i < abans; i++) if (!regioTancada[cua[i]]) nous[n++] = cua[i];
+                darrera = Arrays.copyOf(nous, n);
+            } else {
+                darrera = new int[0];
+            }
+        }
+        return darrera;
+    }
+
+    /**
+     * Cel·les candidates a porta dins la regió: primer obertures entre habitacions,
+     * després cel·les de passadís (dos veïns lliures oposats), totes barrejades.
+     */
+    private List<Integer> candidatesPorta(boolean[] regio) {
+        List<Integer> obert = new ArrayList<>();
+        for (int o : obertures) if (regio[o] && g[o] == LLIURE) obert.add(o);
+        List<Integer> passadissos = new ArrayList<>();
+        for (int c = 0; c < g.length; c++) {
+            if (!regio[c] || g[c] != LLIURE) continue;
+            boolean vertical = g[vei(c, 0)] != PARET && g[vei(c, 1)] != PARET && g[vei(c, 2)] == PARET && g[vei(c, 3)] == PARET;
+            boolean horitzontal = g[vei(c, 2)] != PARET && g[vei(c, 3)] != PARET && g[vei(c, 0)] == PARET && g[vei(c, 1)] == PARET;
+            if (vertical || horitzontal) passadissos.add(c);
+        }
+        barreja(obert);
+        barreja(passadissos);
+        obert.addAll(passadissos);
+        return obert;
+    }
+
+    private void barreja(List<Integer> l) {
+        for (int i = l.size() - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = l.get(i);
+            l.set(i, l.get(j));
+            l.set(j, t);
+        }
+    }
+
+    /**
+     * Tria una cel·la lliure (sense agent, clau ni porta) entre les n primeres de la cua
+     */
+    private int cellaLliureAleatoria(int n) {
+        for (int intent = 0; intent < 64; intent++) {
+            int c = cua[rnd.nextInt(n)];
+            if (g[c] == LLIURE) return c;
+        }
+        for (int i = 0; i < n; i++) if (g[cua[i]] == LLIURE) return cua[i];
+        throw new IllegalStateException("No queden cel·les lliures a la regió accessible");
+    }
+
+    private void posaSortida(int[] darrera) {
+        int c = -1;
+        if (darrera.length > 0) {
+            for (int intent = 0; intent < 64 && c < 0; intent++) {
+                int x = darrera[rnd.nextInt(darrera.length)];
+                if (g[x] == LLIURE) c = x;
+            }
+        }
+        if (c < 0) {
+            // el darrer quart de la cua BFS: les cel·les més allunyades dels agents
+            int n = accessibles();
+            int inici = n - Math.max(1, n / 4);
+            for (int intent = 0; intent < 64 && c < 0; intent++) {
+                int x = cua[inici + rnd.nextInt(n - inici)];
+                if (g[x] == LLIURE) c = x;
+            }
+            if (c < 0) c = cellaLliureAleatoria(n);
+        }
+        g[c] = SORTIDA;
+    }
+
+    /**
+     * Recorregut en amplada des dels agents que obre cada porta quan se n'ha
+     * recollit la clau (punt fix). Deixa les cel·les abastades a cua[0..n) i vist,
+     * i les claus recollides a clausAbastades.
+     * @return el nombre de cel·les abastades
+     */
+    private int accessibles() {
+        Arrays.fill(vist, false);
+        int[] capPendent = new int[26];
+        Arrays.fill(capPendent, -1);
+        int cap = 0, fi = 0, mascara = 0;
+        for (int a : agents) { vist[a] = true; cua[fi++] = a; }
+        while (cap < fi) {
+            int x = cua[cap++];
+            char ch = g[x];
+            if (ch >= 'a' && ch <= 'z' && (mascara & (1 << (ch - 'a'))) == 0) {
+                mascara |= 1 << (ch - 'a');
+                for (int p = capPendent[ch - 'a']; p >= 0; p = seguentPendent[p]) { vist[p] = true; cua[fi++] = p; }
+                capPendent[ch - 'a'] = -1;
+            }
+            for (int d = 0; d < 4; d++) {
+                int v = vei(x, d);
+                if (vist[v] || g[v] == PARET) continue;
+                char cv = g[v];
+                vist[v] = true;
+                if (cv >= 'A' && cv <= 'Z' && (mascara & (1 << (cv - 'A'))) == 0) {
+                    // porta tancada: queda pendent fins que es trobi la clau
+                    seguentPendent[v] = capPendent[cv - 'A'];
+                    capPendent[cv - 'A'] = v;
+                    continue;
+                }
+                cua[fi++] = v;
+            }
+        }
+        // les portes que han quedat pendents no són abastables
+        for (int l = 0; l < 26; l++) for (int p = capPendent[l]; p >= 0; p = seguentPendent[p]) vist[p] = false;
+        clausAbastades = mascara;
+        return fi;
+    }
+
+    // ---------------------------------------------------------------- validació
+
+    /**
+     * Comprova que algun agent pot arribar a la sortida recollint claus (relaxant
+     * les col·lisions entre agents, que no impedeixen la solució: veure la capçalera).
+     */
+    public static boolean esResoluble(List<String> lines) {
+        int n = lines.size(), m = lines.get(0).length();
+        char[] c = new char[n * m];
+        for (int i = 0; i < n; i++) {
+            String row = lines.get(i);
+            for (int j = 0; j < m; j++) c[i * m + j] = j < row.length() ? row.charAt(j) : PARET;
+        }
+        boolean[] v = new boolean[c.length];
+        int[] q = new int[c.length];
+        int fi = 0;
+        for (int x = 0; x < c.length; x++) if (Character.isDigit(c[x])) { v[x] = true; q[fi++] = x; }
+        int mascara = 0;
+        List<List<Integer>> pendents = new ArrayList<>();
+        for (int l = 0; l < 26; l++) pendents.add(new ArrayList<>());
+        int[] dx = {-1, 1, 0, 0}, dy = {0, 0, -1, 1};
+        for (int cap = 0; cap < fi; cap++) {
+            int x = q[cap];
+            if (c[x] == SORTIDA) return true;
+            if (Character.isLowerCase(c[x]) && (mascara & (1 << (c[x] - 'a'))) == 0) {
+                mascara |= 1 << (c[x] - 'a');
+                for (int p : pendents.get(c[x] - 'a')) q[fi++] = p;
+            }
+            for (int d = 0; d < 4; d++) {
+                int i = x / m + dx[d], j = x % m + dy[d];
+                if (i < 0 || j < 0 || i >= n || j >= m) continue;
+                int y = i * m + j;
+                if (v[y] || c[y] == PARET) continue;
+                v[y] = true;
+                if (Character.isUpperCase(c[y]) && (mascara & (1 << (c[y] - 'A'))) == 0) {
+                    pendents.get(c[y] - 'A').add(y);
+                } else {
+                    q[fi++] = y;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------- famílies
+
+    /**
+     * Escriu una família de mapes quadrats per mesurar l'escalabilitat dels motors.
+     * Noms: gen_&lt;mida&gt;_a&lt;agents&gt;_k&lt;claus&gt;.map
+     */
+    public static List<Path> escriuFamilia(Path directori, int[] mides, int[] agents, int[] claus, long llavor)
+            throws IOException {
+        Files.createDirectories(directori);
+        List<Path> fitxers = new ArrayList<>();
+        for (int mida : mides) {
+            for (int a : agents) {
+                for (int k : claus) {
+                    Path f = directori.resolve("gen_" + mida + "_a" + a + "_k" + k + ".map");
+                    new GeneradorMapes(mida, mida)
+                            .habitacions(habitacionsPerMida(mida))
+                            .agents(a).claus(k).llavor(llavor)
+                            .escriu(f);
+                    fitxers.add(f);
+                }
+            }
+        }
+        return fitxers;
+    }
+
+    /**
+     * @return el nombre d'habitacions de les famílies: una per cada 32x32 cel·les
+     */
+    public static int habitacionsPerMida(int mida) {
+        return Math.max(1, (mida / 32) * (mida / 32));
+    }
+
+    /**
+     * Ús: GeneradorMapes &lt;directori&gt; [mides] [agents] [claus] [llavor]
+     * on mides, agents i claus són llistes separades per comes
+     * (per defecte 64,128,256,512,1024 / 1,2,4,6 / 0,5,10,20 / 0).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Ús: GeneradorMapes <directori> [mides] [agents] [claus] [llavor]");
+            return;
+        }
+        int[] mides = args.length > 1 ? llista(args[1]) : MIDES_FAMILIA;
+        int[] agents = args.length > 2 ? llista(args[2]) : AGENTS_FAMILIA;
+        int[] claus = args.length > 3 ? llista(args[3]) : CLAUS_FAMILIA;
+        long llavor = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        for (Path f : escriuFamilia(Path.of(args[0]), mides, agents, claus, llavor)) {
+            System.out.println("Escrit " + f);
+        }
+    }
+
+    private static int[] llista(String s) {
+        return Arrays.stream(s.split(",")).mapToInt(x -> Integer.parseInt(x.trim())).toArray();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaAStarOD;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AStarODTest {
+    @Test
+    public void testMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaAStarOD(true, new HeuristicaClaus()).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testMoltsAgents() {
+        // Amb 6 agents, els que no s'acosten a la sortida no generen fills
+        Mapa m = new Mapa(new GeneradorMapes(32, 32).agents(6).claus(2).llavor(1).genera());
+        ResultatCerca pla = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaDistancies()).ferCerca(m, pla);
+        ResultatCerca od = new ResultatCerca();
+        new CercaAStarOD(true, new HeuristicaDistancies()).ferCerca(m, od);
+        assertNotNull(od.getCami());
+        assertEquals(pla.getCami().size(), od.getCami().size());
+        assertTrue(od.getMemoriaPic() < pla.getMemoriaPic());
+        for (Moviment acc : od.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testSenseLNTMapA() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaAStarOD(false, new HeuristicaDistancies()).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(5, r.getCami().size());
+    }
+}
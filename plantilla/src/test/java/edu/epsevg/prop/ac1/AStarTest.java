@@ -0,0 +1,33 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AStarTest {
+    @Test
+    public void testAStarMapD() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        CercaAStar[] cerques = {
+            new CercaAStar(true, new HeuristicaDistancies()),
+            new CercaAStar(true, new HeuristicaClaus(), true)
+        };
+        for (CercaAStar c : cerques) {
+            ResultatCerca r = new ResultatCerca();
+            c.ferCerca(m, r);
+            assertNotNull(r.getCami());
+            assertEquals(79, r.getCami().size()); // mateixa longitud que BFS
+            Mapa estat = m;
+            for (Moviment acc : r.getCami()) estat = estat.mou(acc);
+            assertTrue(estat.esMeta());
+        }
+    }
+}
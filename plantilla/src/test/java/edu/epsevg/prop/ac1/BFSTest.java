@@ -1,10 +1,15 @@
 package edu.epsevg.prop.ac1;
 
 import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaBFSParallela;
 import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,5 +27,49 @@ public class BFSTest {
         */
     }
 
- 
+    @Test
+    public void testBFSArenaMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaBFS(true, true).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testBFSParallelaMapD() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaBFSParallela(true, 4).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(79, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testBFSParallelaSenseLNTMapA() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaBFSParallela(false, 2).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(5, r.getCami().size());
+    }
+
+    @Test
+    public void testBFSExternaMapD(@TempDir Path dir) throws Exception {
+        // Buffer de 16 KB: molts trams per capa
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaBFSExterna(dir, 16 << 10).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(79, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+        try (var fitxers = Files.list(dir)) {
+            assertEquals(0, fitxers.count()); // capes esborrades
+        }
+    }
 }
@@ -2,6 +2,7 @@ package edu.epsevg.prop.ac1;
 
 import edu.epsevg.prop.ac1.cerca.CercaDFS;
 import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
 import edu.epsevg.prop.ac1.resultat.ResultatCerca;
 import org.junit.jupiter.api.Test;
 
@@ -21,4 +22,28 @@ public class DFSTest {
         System.out.println(">"+r.getCami());
         */
     }
+
+    @Test
+    public void testDFSTaulaLimitada() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapB.map"));
+        CercaDFS dfs = new CercaDFS(true, 4 << 10);
+        ResultatCerca r = new ResultatCerca();
+        dfs.ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertTrue(r.getCami().size() <= 50);
+        Mapa x = m;
+        for (Moviment mv : r.getCami()) x = x.mou(mv);
+        assertTrue(x.esMeta());
+    }
+
+    @Test
+    public void testDFSSenseLNT() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        CercaDFS dfs = new CercaDFS(false);
+        ResultatCerca r = new ResultatCerca();
+        dfs.ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertTrue(r.getCami().size() <= 50);
+        assertTrue(r.getMemoriaPic() <= 50);
+    }
 }
@@ -0,0 +1,83 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.Frontera;
+import edu.epsevg.prop.ac1.cerca.FronteraCubetes;
+import edu.epsevg.prop.ac1.cerca.FronteraHeap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FronteraTest {
+    @Test
+    public void testHeapOrdre() {
+        comprovaOrdre(new FronteraHeap());
+    }
+
+    @Test
+    public void testHeapMillora() {
+        FronteraHeap fr = new FronteraHeap();
+        for (int id = 0; id < 10; id++) fr.afegeix(id, 10 + id, 0);
+        // Decrease-key: el node 9 passa al davant
+        assertTrue(fr.millora(9, 5, 0));
+        assertEquals(10, fr.size());
+        assertEquals(9, fr.treu());
+        assertEquals(0, fr.treu());
+        // Un id que ja ha sortit o que no s'ha afegit mai no hi és
+        assertFalse(fr.millora(9, 1, 0));
+        assertFalse(fr.millora(0, 1, 0));
+        assertFalse(fr.millora(5000, 1, 0));
+        assertEquals(8, fr.size());
+    }
+
+    @Test
+    public void testCubetesOrdre() {
+        comprovaOrdre(new FronteraCubetes());
+    }
+
+    @Test
+    public void testCubetesMilloraMandrosa() {
+        FronteraCubetes fr = new FronteraCubetes();
+        fr.afegeix(0, 8, 1);
+        fr.afegeix(1, 8, 4);
+        fr.afegeix(2, 9, 2);
+        // Les entrades velles de 1 i 2 queden a les seves cubetes com a obsoletes
+        assertTrue(fr.millora(2, 8, 5));
+        assertTrue(fr.millora(1, 6, 3));
+        assertEquals(3, fr.size());
+        assertEquals(1, fr.treu());
+        assertEquals(2, fr.treu());
+        assertEquals(0, fr.treu());
+        assertFalse(fr.millora(1, 2, 0));
+        assertTrue(fr.isEmpty());
+        assertEquals(0, fr.size());
+
+        // Després de buidar les entrades obsoletes la frontera torna a funcionar
+        fr.afegeix(3, 8, 0);
+        fr.afegeix(4, 300, 150);
+        fr.afegeix(5, 8, 200);
+        assertEquals(5, fr.treu());
+        assertEquals(3, fr.treu());
+        assertEquals(4, fr.treu());
+        assertTrue(fr.isEmpty());
+    }
+
+    /**
+     * Ordre per f creixent i, a igual f, per g decreixent
+     */
+    static void comprovaOrdre(Frontera fr) {
+        fr.afegeix(0, 7, 2);
+        fr.afegeix(1, 5, 1);
+        fr.afegeix(2, 5, 3);
+        fr.afegeix(3, 9, 0);
+        fr.afegeix(4, 5, 2);
+        fr.afegeix(5, 6, 6);
+        assertEquals(6, fr.size());
+        int[] esperat = {2, 4, 1, 5, 0, 3};
+        for (int id : esperat) {
+            assertFalse(fr.isEmpty());
+            assertEquals(id, fr.treu());
+        }
+        assertTrue(fr.isEmpty());
+        assertEquals(0, fr.size());
+    }
+}
@@ -0,0 +1,83 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneradorMapesTest {
+    @Test
+    public void testMateixaLlavorMateixMapa() {
+        List<String> a = new GeneradorMapes(30, 50).habitacions(4).agents(2).claus(3).llavor(7).genera();
+        List<String> b = new GeneradorMapes(30, 50).habitacions(4).agents(2).claus(3).llavor(7).genera();
+        List<String> c = new GeneradorMapes(30, 50).habitacions(4).agents(2).claus(3).llavor(8).genera();
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+    }
+
+    @Test
+    public void testContingutGenerat() {
+        List<String> lines = new GeneradorMapes(40, 60).habitacions(6).agents(3).claus(5).llavor(1).genera();
+        assertEquals(40, lines.size());
+        String tot = String.join("", lines);
+        for (String l : lines) assertEquals(60, l.length());
+        for (char ch = '1'; ch <= '3'; ch++) {
+            final char agent = ch;
+            assertEquals(1, tot.chars().filter(x -> x == agent).count());
+        }
+        for (char ch = 'a'; ch <= 'e'; ch++) {
+            assertTrue(tot.indexOf(ch) >= 0);
+            assertTrue(tot.indexOf(Character.toUpperCase(ch)) >= 0);
+        }
+        assertEquals(1, tot.chars().filter(x -> x == '@').count());
+        Mapa m = new Mapa(lines);
+        assertEquals(3, m.getNumAgents());
+        assertEquals(5, m.getClausPendents().size());
+    }
+
+    @Test
+    public void testMapesGeneratsResolubles() {
+        for (long llavor = 0; llavor < 5; llavor++) {
+            List<String> lines = new GeneradorMapes(16, 24).habitacions(3).agents(2).claus(3).llavor(llavor).genera();
+            assertTrue(GeneradorMapes.esResoluble(lines));
+            Mapa m = new Mapa(lines);
+
+            ResultatCerca bfs = new ResultatCerca();
+            new CercaBFS(true).ferCerca(m, bfs);
+            assertNotNull(bfs.getCami());
+
+            ResultatCerca astar = new ResultatCerca();
+            new CercaAStar(true, new HeuristicaClaus()).ferCerca(m, astar);
+            assertNotNull(astar.getCami());
+            assertEquals(bfs.getCami().size(), astar.getCami().size());
+
+            Mapa x = m;
+            for (Moviment acc : astar.getCami()) x = x.mou(acc);
+            assertTrue(x.esMeta());
+        }
+    }
+
+    @Test
+    public void testNoResoluble() {
+        assertFalse(GeneradorMapes.esResoluble(List.of(
+            "#######",
+            "#1·#·@#",
+            "#######")));
+        assertFalse(GeneradorMapes.esResoluble(List.of(
+            "#######",
+            "#1·A·@#",
+            "#######")));
+        assertTrue(GeneradorMapes.esResoluble(List.of(
+            "#######",
+            "#1aA·@#",
+            "#######")));
+    }
+}
@@ -0,0 +1,38 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HDAStarTest {
+    @Test
+    public void testHDAStarOptimMapD() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        for (int fils : new int[] {1, 3, 4}) {
+            ResultatCerca r = new ResultatCerca();
+            new CercaHDAStar(new HeuristicaDistancies(), fils).ferCerca(m, r);
+            assertNotNull(r.getCami());
+            assertEquals(79, r.getCami().size());
+            Mapa x = m;
+            for (Moviment acc : r.getCami()) x = x.mou(acc);
+            assertTrue(x.esMeta());
+        }
+    }
+
+    @Test
+    public void testHDAStarMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaHDAStar(new HeuristicaClaus(), 2).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+    }
+}
@@ -0,0 +1,54 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeuristicaClausTest {
+    @Test
+    public void testMapesInclosos() throws Exception {
+        for (String nom : List.of("mapA", "mapB", "mapC", "mapD")) {
+            comprova(new Mapa(Path.of("src/main/resources/" + nom + ".map")));
+        }
+    }
+
+    @Test
+    public void testDiversosAgents() {
+        for (long llavor = 1; llavor <= 4; llavor++) {
+            comprova(new Mapa(new GeneradorMapes(10, 10).agents(3).claus(3).llavor(llavor).genera()));
+        }
+    }
+
+    /**
+     * La h no supera mai el cost restant al llarg del camí òptim del BFS, i l'A* amb la
+     * heurística troba un camí de la mateixa longitud
+     */
+    private static void comprova(Mapa m) {
+        ResultatCerca bfs = new ResultatCerca();
+        new CercaBFS(true).ferCerca(m, bfs);
+        List<Moviment> cami = bfs.getCami();
+        assertNotNull(cami);
+
+        HeuristicaClaus h = new HeuristicaClaus();
+        Mapa estat = m;
+        for (int i = 0; i < cami.size(); i++) {
+            assertTrue(h.h(estat) <= cami.size() - i);
+            estat = estat.mou(cami.get(i));
+        }
+        assertEquals(0, h.h(estat));
+
+        ResultatCerca astar = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaClaus()).ferCerca(m, astar);
+        assertEquals(cami.size(), astar.getCami().size());
+    }
+}
@@ -0,0 +1,57 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.Heuristica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaAvancada;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaBasica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaIncremental;
+import edu.epsevg.prop.ac1.model.BufferMoviments;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeuristicaIncrementalTest {
+    @Test
+    public void testTermesDelPare() {
+        // La h de cada fill sense clau nova surt del mínim dels termes del pare,
+        // canviant només el de l'agent que es mou
+        Mapa m = new Mapa(new GeneradorMapes(16, 16).agents(3).claus(3).llavor(2).genera());
+        HeuristicaIncremental[] hs = { new HeuristicaBasica(), new HeuristicaAvancada(), new HeuristicaDistancies() };
+        BufferMoviments buf = new BufferMoviments();
+        Random r = new Random(1);
+        for (int pas = 0; pas < 200 && !m.esMeta(); pas++) {
+            m.generaMoviments(buf);
+            for (int i = 0; i < buf.mida(); i++) {
+                int codi = buf.get(i);
+                Mapa fill = m.mou(codi);
+                for (HeuristicaIncremental h : hs) {
+                    int min = Integer.MAX_VALUE;
+                    for (int a = 1; a <= m.getNumAgents(); a++) {
+                        int cella = a == codi / 8 + 1 ? m.desti(codi) : m.getCellaAgent(a);
+                        min = Math.min(min, h.terme((codi & 1) == 0 ? m : fill, cella));
+                    }
+                    assertEquals(h.h(fill), h.h(fill, min));
+                }
+            }
+            m = m.mou(buf.get(r.nextInt(buf.mida())));
+        }
+    }
+
+    @Test
+    public void testAStarMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        for (Heuristica h : new Heuristica[] { new HeuristicaBasica(), new HeuristicaAvancada() }) {
+            ResultatCerca r = new ResultatCerca();
+            new CercaAStar(true, h).ferCerca(m, r);
+            assertNotNull(r.getCami());
+            assertEquals(37, r.getCami().size());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaIDAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaBasica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IDAStarTest {
+    @Test
+    public void testIDAStarBasicaMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaIDAStar(true, new HeuristicaBasica()).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testIDAStarTaulaPetitaMapD() throws Exception {
+        // Amb una taula petita (1 MB) es pot perdre poda però no optimalitat
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaIDAStar(true, new HeuristicaClaus(), 1 << 20).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(79, r.getCami().size());
+    }
+
+    @Test
+    public void testIDAStarSenseLNTMapA() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaIDAStar(false, new HeuristicaBasica()).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(5, r.getCami().size());
+    }
+}
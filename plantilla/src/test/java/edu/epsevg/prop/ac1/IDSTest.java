@@ -21,4 +21,16 @@ public class IDSTest {
         assertEquals(5, r.getCami().size()); // seguint l'enunciat, solucio optima 5
         */
     }
+
+    @Test
+    public void testIDSSenseLimitDeProfunditat() throws Exception {
+        // mapD demana 79 passos: prop de l'antic límit de 80 iteracions
+        for (String nom : new String[] {"mapC", "mapD"}) {
+            Mapa m = new Mapa(Path.of("src/main/resources/" + nom + ".map"));
+            ResultatCerca r = new ResultatCerca();
+            new CercaIDS(true).ferCerca(m, r);
+            assertNotNull(r.getCami());
+            assertEquals(nom.equals("mapC") ? 37 : 79, r.getCami().size()); // mateixa longitud que BFS
+        }
+    }
 }
@@ -0,0 +1,127 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaMacro;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.GrafMacro;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MacroTest {
+    @Test
+    public void testMacroMapD() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        GrafMacro graf = new GrafMacro(m);
+        assertTrue(graf.getNumPunts() < m.getN() * m.getM() / 4);
+        ResultatCerca r = new ResultatCerca();
+        new CercaMacro(true, new HeuristicaDistancies()).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(79, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc); // llança excepció si algun pas no és vàlid
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testMacroUnAgentOptim() {
+        // Amb un agent, els macro-moviments no perden optimalitat
+        for (long llavor = 1; llavor <= 3; llavor++) {
+            Mapa m = new Mapa(new GeneradorMapes(32, 32).agents(1).claus(2).llavor(llavor).genera());
+            ResultatCerca rA = new ResultatCerca();
+            new CercaAStar(true, new HeuristicaDistancies()).ferCerca(m, rA);
+            ResultatCerca rM = new ResultatCerca();
+            new CercaMacro(true, new HeuristicaDistancies()).ferCerca(m, rM);
+            assertNotNull(rM.getCami());
+            assertEquals(rA.getCami().size(), rM.getCami().size());
+        }
+    }
+
+    @Test
+    public void testMacroDiversosAgentsSenseApartarse() {
+        // El pla evident (1 agafa la clau i travessa el passadís) necessita que 2 s'aparti
+        // al racó de sota, que no és un punt de decisió: cost 1 + 1 + 8 = 10. Els
+        // macro-moviments no el poden fer, però troben el pla òptim on 2 fa el recorregut
+        // mentre 1 agafa la clau.
+        Mapa m = new Mapa(List.of(
+                "###########",
+                "#a1  2  A@#",
+                "##### #####",
+                "###########"));
+        GrafMacro graf = new GrafMacro(m);
+        assertFalse(graf.esPunt(m.getTauler().cella(2, 5)));
+
+        ResultatCerca rB = new ResultatCerca();
+        new CercaBFS(true).ferCerca(m, rB);
+        ResultatCerca rM = new ResultatCerca();
+        new CercaMacro(true, new HeuristicaDistancies()).ferCerca(m, rM);
+        assertEquals(5, rB.getCami().size());
+        assertEquals(5, rM.getCami().size());
+        for (Moviment acc : rM.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testMacroDiversosAgentsAleatoris() {
+        // Mapes petits amb passadissos estrets, 2-4 agents i 0-3 claus: la longitud ha
+        // de coincidir amb la del BFS (veure la nota sobre diversos agents a CercaMacro)
+        Random r = new Random(2024);
+        int provats = 0;
+        while (provats < 2000) {
+            Mapa m = new Mapa(mapaAleatori(r, 2 + r.nextInt(3), r.nextInt(4)));
+            ResultatCerca rB = new ResultatCerca();
+            new CercaBFS(true).ferCerca(m, rB);
+            if (rB.getCami() == null) continue;
+            provats++;
+            ResultatCerca rM = new ResultatCerca();
+            new CercaMacro(true, new HeuristicaDistancies()).ferCerca(m, rM);
+            assertNotNull(rM.getCami(), m.toString());
+            assertEquals(rB.getCami().size(), rM.getCami().size(), m.toString());
+        }
+    }
+
+    /**
+     * Tauler de 4-6 x 5-9 amb vora de paret, un 35% de parets a l'interior, k agents,
+     * una sortida i les claus amb la seva porta en cel·les lliures a l'atzar
+     */
+    private static List<String> mapaAleatori(Random r, int k, int claus) {
+        while (true) {
+            int n = 4 + r.nextInt(3), m = 5 + r.nextInt(5);
+            char[][] g = new char[n][m];
+            List<int[]> lliures = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < m; j++) {
+                    boolean vora = i == 0 || j == 0 || i == n - 1 || j == m - 1;
+                    g[i][j] = vora || r.nextInt(100) < 35 ? '#' : ' ';
+                    if (g[i][j] == ' ') lliures.add(new int[] {i, j});
+                }
+            }
+            if (lliures.size() < k + 1 + 2 * claus) continue;
+            Collections.shuffle(lliures, r);
+            int p = 0;
+            for (int a = 1; a <= k; a++) posa(g, lliures.get(p++), (char) ('0' + a));
+            posa(g, lliures.get(p++), '@');
+            for (int c = 0; c < claus; c++) {
+                posa(g, lliures.get(p++), (char) ('a' + c));
+                posa(g, lliures.get(p++), (char) ('A' + c));
+            }
+            List<String> files = new ArrayList<>();
+            for (char[] fila : g) files.add(new String(fila));
+            return files;
+        }
+    }
+
+    private static void posa(char[][] g, int[] cella, char c) {
+        g[cella[0]][cella[1]] = c;
+    }
+}
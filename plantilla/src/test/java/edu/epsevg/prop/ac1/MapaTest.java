@@ -1,9 +1,14 @@
 package edu.epsevg.prop.ac1;
 
+import edu.epsevg.prop.ac1.model.BufferMoviments;
 import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.model.Tauler;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,4 +26,97 @@ public class MapaTest {
         assertNotNull(m);
         assertEquals(1, m.getAgents().size());
     }
+
+    @Test
+    public void testDistancies() {
+        Mapa m = new Mapa(List.of(
+                "#########",
+                "#1  #@#a#",
+                "#   # ###",
+                "#   A   #",
+                "#########"));
+        Tauler t = m.getTauler();
+        int agent = t.cella(1, 1), sortida = t.cella(1, 5);
+        // La paret obliga a fer la volta per la fila de baix
+        assertEquals(4, t.distanciaManhattan(agent, sortida));
+        assertEquals(8, t.distanciaSortida(agent));
+        // La porta compta com a oberta
+        assertEquals(3, t.distanciaSortida(t.cella(3, 4)));
+        assertEquals(0, t.distanciaSortida(sortida));
+        // La clau és tancada entre parets
+        assertEquals(Tauler.INFINIT, t.distanciaSortida(t.cella(1, 7)));
+        assertEquals(Tauler.INFINIT, t.distanciaClau('a', agent));
+        assertEquals(0, t.distanciaClau('a', t.cella(1, 7)));
+        assertEquals(Tauler.INFINIT, t.distanciaClau('b', agent));
+    }
+
+    @Test
+    public void testMouNoAlteraOriginal() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        Moviment acc = m.getAccionsPossibles().get(0);
+        Mapa fill = m.mou(acc);
+        assertNotEquals(m, fill);
+        assertEquals(fill, m.mou(acc));
+        assertEquals(fill.hashCode(), m.mou(acc).hashCode());
+        assertSame(m.getTauler(), fill.getTauler());
+    }
+
+    @Test
+    public void testIndexClausPendents() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        assertEquals(3, m.getClausPendents().size()); // a, b i c
+        assertEquals(0b111, m.getClausPendentsMask());
+        assertEquals(1, m.getTauler().getCellesPorta('C' - 'A').length);
+    }
+
+    @Test
+    public void testGeneraMovimentsCoincideixAmbMou() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        BufferMoviments buf = new BufferMoviments();
+        m.generaMoviments(buf);
+        assertEquals(m.getAccionsPossibles().size(), buf.mida());
+        for (int i = 0; i < buf.mida(); i++) {
+            Moviment acc = Moviment.deCodi(buf.get(i));
+            assertSame(acc, Moviment.de(acc.getAgentId(), acc.getDireccio(), acc.isRecullClau()));
+            assertEquals(m.mou(acc), m.mou(buf.get(i)));
+        }
+    }
+
+    @Test
+    public void testDesfesInverteixMou() throws Exception {
+        // Passeig aleatori (amb recollida de claus) desfent cada moviment
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        BufferMoviments buf = new BufferMoviments();
+        Random rnd = new Random(1);
+        for (int pas = 0; pas < 2000 && !m.esMeta(); pas++) {
+            m.generaMoviments(buf);
+            for (int i = 0; i < buf.mida(); i++) assertEquals(m, m.mou(buf.get(i)).desfes(buf.get(i)));
+            m = m.mou(buf.get(rnd.nextInt(buf.mida())));
+        }
+    }
+
+    @Test
+    public void testZobristIncremental() throws Exception {
+        // La clau mantinguda a cada moviment és la mateixa que la calculada de zero
+        for (Mapa inicial : new Mapa[] {
+                new Mapa(Path.of("src/main/resources/mapD.map")),
+                new Mapa(Path.of("src/main/resources/mapC.map")).ambSimetria() }) {
+            Mapa m = inicial;
+            BufferMoviments buf = new BufferMoviments();
+            Random rnd = new Random(2);
+            for (int pas = 0; pas < 2000 && !m.esMeta(); pas++) {
+                Mapa zero = Mapa.descodifica(m.getTauler(), m.getNumAgents(), m.getCodi(), m.getCodiAlt());
+                assertEquals(zero.getZobrist(), m.getZobrist());
+                m.generaMoviments(buf);
+                int codi = buf.get(rnd.nextInt(buf.mida()));
+                Mapa fill = m.mou(codi);
+                assertEquals(fill.getZobrist(), m.mou(Moviment.deCodi(codi)).getZobrist());
+                assertEquals(fill.getZobrist(), m.desplaca(Moviment.agentDeCodi(codi), m.desti(codi)).getZobrist());
+                // Amb tauler simètric, desfes fa servir l'índex de l'agent dins del fill
+                int codiFill = codi + (fill.agentA(m.desti(codi)) - Moviment.agentDeCodi(codi)) * 8;
+                assertEquals(m.getZobrist(), fill.desfes(codiFill).getZobrist());
+                m = fill;
+            }
+        }
+    }
 }
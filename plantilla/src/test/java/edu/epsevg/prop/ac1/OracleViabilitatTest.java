@@ -0,0 +1,93 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.Cerca;
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaAStarOD;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaBFSParallela;
+import edu.epsevg.prop.ac1.cerca.CercaDFS;
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDS;
+import edu.epsevg.prop.ac1.cerca.CercaMacro;
+import edu.epsevg.prop.ac1.cerca.CercaSMAStar;
+import edu.epsevg.prop.ac1.cerca.CercaSimetrica;
+import edu.epsevg.prop.ac1.cerca.OracleViabilitat;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OracleViabilitatTest {
+    // La clau de la porta és darrere la porta
+    private static final List<String> SENSE_SOLUCIO = List.of(
+            "########",
+            "#1  A a#",
+            "#2  ####",
+            "#   A @#",
+            "########");
+
+    // Cal obrir A per arribar a b, i B per arribar a la sortida
+    private static final List<String> CLAUS_ENCADENADES = List.of(
+            "#########",
+            "#1 a#b  #",
+            "#   A   #",
+            "#####B###",
+            "#   2  @#",
+            "#########");
+
+    @Test
+    public void testMapesResolubles() throws Exception {
+        for (String nom : List.of("mapA", "mapB", "mapC", "mapD")) {
+            Mapa m = new Mapa(Path.of("src/main/resources/" + nom + ".map"));
+            assertTrue(OracleViabilitat.de(m.getTauler()).viable(m), nom);
+        }
+        Mapa m = new Mapa(CLAUS_ENCADENADES);
+        assertTrue(OracleViabilitat.de(m.getTauler()).viable(m));
+        ResultatCerca r = new ResultatCerca();
+        new CercaBFS(true).ferCerca(m, r);
+        assertNotNull(r.getCami());
+    }
+
+    @Test
+    public void testSenseSolucio() {
+        Mapa m = new Mapa(SENSE_SOLUCIO);
+        assertFalse(OracleViabilitat.de(m.getTauler()).viable(m));
+        // Amb la clau a aquesta banda de la porta la sortida torna a ser assolible
+        Mapa ambClau = new Mapa(List.of(
+                "########",
+                "#1 aA  #",
+                "#2  ####",
+                "#   A @#",
+                "########"));
+        assertTrue(OracleViabilitat.de(ambClau.getTauler()).viable(ambClau));
+    }
+
+    @Test
+    public void testTotesLesCerques(@TempDir Path dir) {
+        Mapa m = new Mapa(SENSE_SOLUCIO);
+        List<Cerca> cerques = List.of(
+                new CercaBFS(true), new CercaBFS(true, true), new CercaDFS(true), new CercaIDS(true),
+                new CercaAStar(true, new HeuristicaDistancies()), new CercaAStarOD(true, new HeuristicaDistancies()),
+                new CercaIDAStar(true, new HeuristicaDistancies()), new CercaHDAStar(new HeuristicaDistancies(), 2),
+                new CercaBFSParallela(true), new CercaBFSExterna(dir, 16 << 10),
+                new CercaSMAStar(true, new HeuristicaClaus(), 128 << 10),
+                new CercaMacro(true, new HeuristicaDistancies()),
+                new CercaSimetrica(new CercaAStar(true, new HeuristicaDistancies())));
+        for (Cerca c : cerques) {
+            ResultatCerca r = new ResultatCerca();
+            c.ferCerca(m, r);
+            String nom = c.getClass().getSimpleName();
+            assertNull(r.getCami(), nom);
+            assertEquals(0, r.getNodesExplorats(), nom);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.Cerca;
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaBFS;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaBFSParallela;
+import edu.epsevg.prop.ac1.cerca.CercaHDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDAStar;
+import edu.epsevg.prop.ac1.cerca.CercaIDS;
+import edu.epsevg.prop.ac1.cerca.CercaMacro;
+import edu.epsevg.prop.ac1.cerca.CercaSMAStar;
+import edu.epsevg.prop.ac1.cerca.CercaSimetrica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrdreParcialTest {
+    @Test
+    public void testRegla() {
+        Mapa m = new Mapa(List.of(
+                "######",
+                "#A1  #",
+                "#  a2#",
+                "#   @#",
+                "######"));
+        int clau = 2 * 6 + 3;
+        assertFalse(m.podat(clau + 1, clau));  // destí més gran
+        assertFalse(m.podat(clau - 1, clau));  // veïnes: poden ser l'origen de l'últim
+        assertFalse(m.podat(clau - 6, clau));
+        assertFalse(m.podat(1 * 6 + 1, clau)); // la porta de la clau recollida
+        assertTrue(m.podat(1 * 6 + 2, clau));
+        assertTrue(m.podat(1 * 6 + 1, clau + 1));
+    }
+
+    @Test
+    public void testLongitudsMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        comprova(m, 37, () -> new CercaBFS(true), true);
+        comprova(m, 37, () -> new CercaBFS(true, true), true);
+        comprova(m, 37, () -> new CercaAStar(true, new HeuristicaDistancies()), true);
+        comprova(m, 37, () -> new CercaIDAStar(true, new HeuristicaDistancies()), true);
+        comprova(m, 37, () -> new CercaHDAStar(new HeuristicaDistancies(), 2), true);
+        comprova(m, 37, () -> new CercaBFSParallela(true), true);
+        comprova(m, 37, () -> new CercaSMAStar(true, new HeuristicaClaus(), 128 << 10), true);
+        comprova(m, 37, () -> new CercaMacro(true, new HeuristicaDistancies()), true);
+        comprova(m, 37, () -> new CercaSimetrica(new CercaAStar(true, new HeuristicaDistancies())), true);
+    }
+
+    @Test
+    public void testLongitudsMapA(@TempDir Path dir) throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        comprova(m, 5, () -> new CercaIDS(true), true);
+        comprova(m, 5, () -> new CercaBFS(false), true);
+        comprova(m, 5, () -> new CercaBFSParallela(false), true);
+        comprova(m, 5, () -> new CercaBFSExterna(dir, 16 << 10), true);
+    }
+
+    @Test
+    public void testLongitudsTresAgents(@TempDir Path dir) {
+        for (long llavor = 1; llavor <= 3; llavor++) {
+            Mapa m = new Mapa(new GeneradorMapes(10, 10).agents(3).claus(2).llavor(llavor).genera());
+            ResultatCerca r = new ResultatCerca();
+            new CercaBFS(true).ferCerca(m, r);
+            int longitud = r.getCami().size();
+            comprova(m, longitud, () -> new CercaBFS(true), true);
+            comprova(m, longitud, () -> new CercaAStar(true, new HeuristicaDistancies()), false);
+            comprova(m, longitud, () -> new CercaIDAStar(false, new HeuristicaDistancies()), false);
+            comprova(m, longitud, () -> new CercaBFSExterna(dir, 16 << 10), true);
+        }
+    }
+
+    /**
+     * Compara la cerca amb i sense reducció d'ordre parcial: mateixa longitud òptima,
+     * camí vàlid i, si cal, menys repetits generats
+     */
+    private static void comprova(Mapa m, int longitud, Supplier<Cerca> cerca, boolean menysTallats) {
+        ResultatCerca sense = new ResultatCerca();
+        cerca.get().ferCerca(m, sense);
+        ResultatCerca amb = new ResultatCerca();
+        cerca.get().ordreParcial(true).ferCerca(m, amb);
+        assertNotNull(amb.getCami());
+        assertEquals(longitud, sense.getCami().size());
+        assertEquals(longitud, amb.getCami().size());
+        if (menysTallats) assertTrue(amb.getNodesTallats() < sense.getNodesTallats());
+        Mapa estat = m;
+        for (Moviment acc : amb.getCami()) estat = estat.mou(acc);
+        assertTrue(estat.esMeta());
+    }
+}
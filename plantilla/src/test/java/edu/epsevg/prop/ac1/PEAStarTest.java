@@ -0,0 +1,66 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import edu.epsevg.prop.ac1.utils.GeneradorMapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PEAStarTest {
+    @Test
+    public void testMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca pla = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaClaus()).ferCerca(m, pla);
+        ResultatCerca pea = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaClaus(), false, true).ferCerca(m, pea);
+        assertNotNull(pea.getCami());
+        assertEquals(37, pea.getCami().size());
+        assertTrue(pea.getMemoriaPic() < pla.getMemoriaPic());
+        assertTrue(pea.getNodesReexpandits() > 0);
+        assertEquals(0, pla.getNodesReexpandits());
+        for (Moviment acc : pea.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testMoltsAgents() {
+        Mapa m = new Mapa(new GeneradorMapes(32, 32).agents(6).claus(2).llavor(1).genera());
+        ResultatCerca pla = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaDistancies()).ferCerca(m, pla);
+        ResultatCerca pea = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaDistancies(), false, true).ferCerca(m, pea);
+        assertNotNull(pea.getCami());
+        assertEquals(pla.getCami().size(), pea.getCami().size());
+        assertTrue(pea.getMemoriaPic() < pla.getMemoriaPic());
+        for (Moviment acc : pea.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testCubetesIOrdreParcial() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaDistancies(), true, true).ordreParcial(true).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testSenseLNTMapA() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaAStar(false, new HeuristicaDistancies(), false, true).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(5, r.getCami().size());
+    }
+}
@@ -0,0 +1,51 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaSMAStar;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaBasica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaClaus;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SMAStarTest {
+    @Test
+    public void testSMAStarMapC() throws Exception {
+        // 128 KB no hi cap tota la cerca: cal oblidar nodes però la solució és òptima
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        CercaSMAStar sma = new CercaSMAStar(true, new HeuristicaClaus(), 128 << 10);
+        ResultatCerca r = new ResultatCerca();
+        sma.ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        assertTrue(r.getNodesOblidats() > 0);
+        assertTrue(r.getMemoriaPic() <= sma.getCapacitat());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testSMAStarRegeneraMapD() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        CercaSMAStar sma = new CercaSMAStar(true, new HeuristicaClaus(), 2 << 20);
+        ResultatCerca r = new ResultatCerca();
+        sma.ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(79, r.getCami().size());
+        assertTrue(r.getNodesRegenerats() > 0);
+        assertTrue(r.getMemoriaPic() <= sma.getCapacitat());
+    }
+
+    @Test
+    public void testSMAStarSenseLNTMapA() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapA.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaSMAStar(false, new HeuristicaBasica(), 8 << 10).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(5, r.getCami().size());
+    }
+}
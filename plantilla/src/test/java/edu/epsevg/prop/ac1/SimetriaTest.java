@@ -0,0 +1,65 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.CercaAStar;
+import edu.epsevg.prop.ac1.cerca.CercaBFSExterna;
+import edu.epsevg.prop.ac1.cerca.CercaSimetrica;
+import edu.epsevg.prop.ac1.cerca.heuristica.HeuristicaDistancies;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import edu.epsevg.prop.ac1.resultat.ResultatCerca;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimetriaTest {
+    @Test
+    public void testEstatsPermutatsIguals() {
+        Mapa m = new Mapa(List.of(
+                "#####",
+                "#1 2#",
+                "#  @#",
+                "#####"));
+        Mapa permutat = new Mapa(List.of(
+                "#####",
+                "#2 1#",
+                "#  @#",
+                "#####"));
+        Mapa c = m.ambSimetria();
+        assertSame(c, c.ambSimetria());
+        assertSame(c.getTauler(), m.getTauler().ambSimetria());
+        // Mateixes cel·les amb els agents intercanviats: mateix estat canònic
+        Mapa cp = Mapa.descodifica(c.getTauler(), 2, permutat.getCodi(), permutat.getCodiAlt());
+        assertEquals(c, cp);
+        assertEquals(c.getCodi(), cp.getCodi());
+    }
+
+    @Test
+    public void testAStarMapC() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaAStar(true, new HeuristicaDistancies()).ferCerca(m, r);
+        ResultatCerca rs = new ResultatCerca();
+        new CercaSimetrica(new CercaAStar(true, new HeuristicaDistancies())).ferCerca(m, rs);
+        assertNotNull(rs.getCami());
+        assertEquals(r.getCami().size(), rs.getCami().size());
+        assertTrue(rs.getNodesExplorats() < r.getNodesExplorats());
+        // El camí fa servir els identificadors reals dels agents
+        for (Moviment acc : rs.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+
+    @Test
+    public void testBFSExternaMapC(@TempDir Path dir) throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapC.map"));
+        ResultatCerca r = new ResultatCerca();
+        new CercaSimetrica(new CercaBFSExterna(dir, 16 << 10)).ferCerca(m, r);
+        assertNotNull(r.getCami());
+        assertEquals(37, r.getCami().size());
+        for (Moviment acc : r.getCami()) m = m.mou(acc);
+        assertTrue(m.esMeta());
+    }
+}
@@ -0,0 +1,64 @@
+package edu.epsevg.prop.ac1;
+
+import edu.epsevg.prop.ac1.cerca.TaulaLNT;
+import edu.epsevg.prop.ac1.cerca.TaulaTransposicio;
+import edu.epsevg.prop.ac1.model.Mapa;
+import edu.epsevg.prop.ac1.model.Moviment;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaulaLNTTest {
+    @Test
+    public void testCodiReversible() throws Exception {
+        Mapa m = new Mapa(Path.of("src/main/resources/mapD.map"));
+        for (Moviment acc : m.getAccionsPossibles()) {
+            Mapa fill = m.mou(acc);
+            Mapa copia = Mapa.descodifica(fill.getTauler(), fill.getNumAgents(), fill.getCodi(), fill.getCodiAlt());
+            assertEquals(fill, copia);
+        }
+    }
+
+    @Test
+    public void testPutGetAmbRedimensionat() {
+        TaulaLNT t = new TaulaLNT(4);
+        for (int i = 0; i < 100000; i++) t.put(i * 31L, i % 7, i);
+        assertEquals(100000, t.size());
+        for (int i = 0; i < 100000; i++) assertEquals(i, t.get(i * 31L, i % 7));
+        assertEquals(TaulaLNT.ABSENT, t.get(-1L, 0));
+        t.put(31L, 1, 5);
+        assertEquals(5, t.get(31L, 1));
+        assertEquals(100000, t.size());
+        t.clear();
+        assertEquals(TaulaLNT.ABSENT, t.get(31L, 1));
+    }
+
+    @Test
+    public void testTreu() {
+        TaulaLNT t = new TaulaLNT(4);
+        for (int i = 0; i < 1000; i++) t.put(i, 0, i);
+        for (int i = 0; i < 1000; i += 2) t.treu(i, 0);
+        assertEquals(500, t.size());
+        for (int i = 0; i < 1000; i++) assertEquals(i % 2 == 0 ? TaulaLNT.ABSENT : i, t.get(i, 0));
+        t.treu(-1L, 0);
+        assertEquals(500, t.size());
+    }
+
+    @Test
+    public void testTransposicioSenseLimitIteracions() {
+        TaulaTransposicio t = new TaulaTransposicio(1 << 10);
+        assertTrue(t.visita(7L, 1L, 99L, 5, 1));
+        assertFalse(t.visita(7L, 1L, 99L, 5, 1));  // mateixa g i iteració
+        assertFalse(t.visita(7L, 1L, 99L, 6, 2));  // g més gran
+        assertTrue(t.visita(7L, 1L, 99L, 5, 2));
+        t.visita(8L, 1L, 98L, 3, 2);
+        assertEquals(2, t.size());
+        // Passat el comptador de 16 bits la taula es buida i continua
+        for (int it = 3; it <= 0x10002; it++) assertTrue(t.visita(7L, 1L, 99L, 5, it));
+        assertEquals(1, t.size());
+        assertFalse(t.visita(7L, 1L, 99L, 5, 0x10002));
+        assertFalse(t.visita(7L, 1L, 99L, 6, 0x10003));
+    }
+}